@@ -1,33 +1,123 @@
 import javax.swing.*;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.TableModel;
 import java.awt.*;
-import java.io.*;
-import java.net.URI;
-import java.net.URLEncoder;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.Duration;
+import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import weather.AccuracyReport;
+import weather.Alert;
+import weather.AlertEngine;
+import weather.AlertRule;
+import weather.CitySuggester;
+import weather.DiskCache;
+import weather.FavoritesStore;
+import weather.ForecastAccuracy;
+import weather.ForecastDay;
+import weather.Futures;
+import weather.HistoryMetric;
+import weather.HistoryStore;
+import weather.Place;
+import weather.RefreshScheduler;
+import weather.TimeSeries;
+import weather.WeatherCache;
+import weather.WeatherFormatter;
+import weather.WeatherMetrics;
+import weather.WeatherReport;
+import weather.WeatherService;
+import weather.ui.AccuracyTableModel;
+import weather.ui.DailyTableModel;
+import weather.ui.DashboardCellRenderer;
+import weather.ui.DashboardModel;
+import weather.ui.HistoryTableModel;
+import weather.ui.HourlyTableModel;
 
 public class WeatherAppGUI extends JFrame {
-    private static final String API_KEY = "YOUR_API_KEY_HERE"; // Get your free API key from https://www.weatherapi.com/
-    private static final String BASE_URL = "http://api.weatherapi.com/v1/current.json";
-    private static final String FORECAST_URL = "http://api.weatherapi.com/v1/forecast.json";
-    private static final String FAVORITES_FILE = "weather_favorites.txt";
+    private static final String FAVORITES_FILE = "weather_favorites.journal";
+    // Read once and imported into the journal on first start
+    private static final String LEGACY_FAVORITES_FILE = "weather_favorites.txt";
+    // One alert rule per line, as entered
+    private static final String ALERT_RULES_FILE = "weather_alerts.txt";
+    
+    // Fetching, caching and the on-disk snapshots, tunable with -Dweather.* system properties
+    private static final WeatherService SERVICE = WeatherService.fromSystemProperties(true);
+    private static final CitySuggester SUGGESTER = new CitySuggester(SERVICE.provider(),
+        Duration.ofMillis(Integer.getInteger("weather.suggest.debounce", 250)));
+    private static final int MAX_SUGGESTIONS = 8;
+    private static final int DASHBOARD_TAB = 3;
+    private static final int HISTORY_TAB = 4;
+    private static final int ACCURACY_TAB = 5;
+    private static final int ALERTS_TAB = 6;
+    private static final String[] HISTORY_RANGES = {"Last 7 days", "Last 30 days", "Last 90 days", "Last 365 days"};
+    private static final int[] HISTORY_DAYS = {7, 30, 90, 365};
+    // Days requested per city; the API serves up to 14
+    private static final int FORECAST_DAYS = Math.max(1, Math.min(14, Integer.getInteger("weather.forecast.days", 7)));
+    private static final WeatherMetrics METRICS = WeatherMetrics.global();
     
     private JTextField cityField;
     private JButton searchButton;
     private JButton addFavoriteButton;
     private JButton darkModeToggle;
+    private JButton refreshAllButton;
     private JTextArea weatherDisplay;
-    private JTextArea hourlyDisplay;
-    private JTextArea weeklyDisplay;
+    private JLabel hourlyTitle;
+    private JLabel weeklyTitle;
+    private JTable hourlyTable;
+    private JTable weeklyTable;
+    private HourlyTableModel hourlyModel = new HourlyTableModel();
+    private DailyTableModel weeklyModel = new DailyTableModel();
+    private JLabel historyTitle;
+    private JTable historyTable;
+    private HistoryTableModel historyModel = new HistoryTableModel();
+    private JComboBox<HistoryMetric> historyMetric;
+    private JComboBox<String> historyRange;
+    private long historyGeneration;
+    private ForecastAccuracy accuracy;
+    private AccuracyReport accuracyReport;
+    private JLabel accuracyTitle;
+    private JTable accuracyTable;
+    private AccuracyTableModel accuracyModel = new AccuracyTableModel();
+    private JButton exportAccuracyButton;
+    private AlertEngine alerts;
+    private Alert latestAlert;
+    private JTextField alertRuleField;
+    private DefaultListModel<AlertRule> alertRulesModel = new DefaultListModel<>();
+    private JList<AlertRule> alertRulesList;
+    private DefaultListModel<Alert> alertsModel = new DefaultListModel<>();
+    private JList<Alert> alertsList;
+    private JPanel alertsPanel;
+    private WeatherReport shownReport;
+    private boolean[] staleTabs = new boolean[3];
     private JLabel statusLabel;
     private DefaultListModel<String> favoritesModel;
     private JList<String> favoritesList;
-    private List<String> favorites;
+    private FavoritesStore favorites;
+    // Current conditions of every favorite, shown on the dashboard and next to the favorites list
+    private DashboardModel dashboardModel = new DashboardModel();
+    private JList<String> dashboardList;
+    private DashboardCellRenderer dashboardRenderer;
+    private int refreshedCount;
+    private long fetchGeneration;
+    private DiskCache.Snapshot shownSnapshot;
+    private String shownCity;
+    private String statusMessage = "Ready";
+    private RefreshScheduler refresher;
+    private JPopupMenu suggestionPopup;
+    private JList<Place> suggestionList;
+    private DefaultListModel<Place> suggestionModel;
+    private boolean suppressSuggestions;
+    private CompletableFuture<WeatherReport> activeSearch;
     private JTabbedPane tabbedPane;
     private boolean isDarkMode = false;
     
@@ -45,9 +135,24 @@ public class WeatherAppGUI extends JFrame {
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setLocationRelativeTo(null);
         
-        // Load favorites from file
-        favorites = new ArrayList<>();
-        loadFavorites();
+        // Favorites are deduped by the same canonical query the caches use; edits are journaled off the EDT
+        favorites = FavoritesStore.open(Paths.get(FAVORITES_FILE), Paths.get(LEGACY_FAVORITES_FILE), SUGGESTER::resolve);
+        Runtime.getRuntime().addShutdownHook(new Thread(favorites::close));
+        
+        // Every upstream fetch is appended to the local history behind the History tab
+        HistoryStore history = HistoryStore.fromSystemProperties();
+        SERVICE.recordTo(history);
+        Runtime.getRuntime().addShutdownHook(new Thread(history::close));
+        accuracy = new ForecastAccuracy(history, history.directory().resolve("accuracy.bin"), SUGGESTER::resolve);
+        
+        // Alert rules are compiled once and tested against every report that lands
+        alerts = new AlertEngine(SUGGESTER::resolve);
+        loadAlertRules();
+        
+        // Every spelling the suggester knows maps to one "lat,lon" query, so caches share a key per city
+        SERVICE.resolveWith(SUGGESTER::resolve);
+        SUGGESTER.setFavorites(favorites.names());
+        METRICS.registerMBean();
         
         // Create main panel with padding
         JPanel mainPanel = new JPanel();
@@ -65,6 +170,7 @@ public class WeatherAppGUI extends JFrame {
         
         cityField = new JTextField(20);
         cityField.setFont(new Font("Arial", Font.PLAIN, 14));
+        createSuggestionPopup();
         
         searchButton = new JButton("Get Weather");
         searchButton.setFont(new Font("Arial", Font.BOLD, 14));
@@ -104,30 +210,107 @@ public class WeatherAppGUI extends JFrame {
         
         JScrollPane scrollPane = new JScrollPane(weatherDisplay);
         
-        // Hourly forecast panel
-        hourlyDisplay = new JTextArea();
-        hourlyDisplay.setEditable(false);
-        hourlyDisplay.setFont(new Font("Monospaced", Font.PLAIN, 12));
-        hourlyDisplay.setBackground(Color.WHITE);
-        hourlyDisplay.setBorder(BorderFactory.createLineBorder(new Color(176, 196, 222), 2));
-        hourlyDisplay.setMargin(new Insets(10, 10, 10, 10));
+        // Hourly and weekly forecasts are tables, so a refresh only repaints the cells that changed
+        // The hourly table spans every forecast day; a day's hours are decoded once it scrolls into view
+        hourlyTitle = new JLabel("Hourly Weather Forecast");
+        hourlyTable = createForecastTable(hourlyModel, 3);
+        JPanel hourlyPanel = createForecastPanel(hourlyTitle, hourlyTable);
+        
+        weeklyTitle = new JLabel(FORECAST_DAYS + "-Day Weather Forecast");
+        weeklyTable = createForecastTable(weeklyModel, 0);
+        JPanel weeklyPanel = createForecastPanel(weeklyTitle, weeklyTable);
         
-        JScrollPane hourlyScrollPane = new JScrollPane(hourlyDisplay);
+        // All favorites as painted tiles; with fixed cell sizes the list lays out and paints only what is visible
+        dashboardModel.setCities(favorites.names());
+        dashboardRenderer = new DashboardCellRenderer(dashboardModel);
+        dashboardList = new JList<>(dashboardModel);
+        dashboardList.setCellRenderer(dashboardRenderer);
+        dashboardList.setLayoutOrientation(JList.HORIZONTAL_WRAP);
+        dashboardList.setVisibleRowCount(-1);
+        dashboardList.setFixedCellWidth(DashboardCellRenderer.CELL_WIDTH);
+        dashboardList.setFixedCellHeight(DashboardCellRenderer.CELL_HEIGHT);
+        dashboardList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        dashboardList.setBackground(lightBg);
+        JScrollPane dashboardScroll = new JScrollPane(dashboardList);
         
-        // Weekly forecast panel
-        weeklyDisplay = new JTextArea();
-        weeklyDisplay.setEditable(false);
-        weeklyDisplay.setFont(new Font("Monospaced", Font.PLAIN, 12));
-        weeklyDisplay.setBackground(Color.WHITE);
-        weeklyDisplay.setBorder(BorderFactory.createLineBorder(new Color(176, 196, 222), 2));
-        weeklyDisplay.setMargin(new Insets(10, 10, 10, 10));
+        // Recorded history of the shown city, one row per day
+        historyTitle = new JLabel("Recorded History");
+        historyTable = createForecastTable(historyModel, 0);
+        JPanel historyPanel = createForecastPanel(historyTitle, historyTable);
+        historyMetric = new JComboBox<>(HistoryMetric.values());
+        historyRange = new JComboBox<>(HISTORY_RANGES);
+        historyRange.setSelectedIndex(1);
+        JPanel historyControls = new JPanel(new FlowLayout(FlowLayout.RIGHT, 5, 4));
+        historyControls.setOpaque(false);
+        historyControls.add(historyMetric);
+        historyControls.add(historyRange);
+        historyPanel.add(historyControls, BorderLayout.SOUTH);
         
-        JScrollPane weeklyScrollPane = new JScrollPane(weeklyDisplay);
+        // Recorded forecasts against what was observed later, per favorite and lead day
+        accuracyTitle = new JLabel("Forecast Accuracy");
+        accuracyTable = createForecastTable(accuracyModel, 0);
+        accuracyTable.getColumnModel().getColumn(0).setPreferredWidth(160);
+        JPanel accuracyPanel = createForecastPanel(accuracyTitle, accuracyTable);
+        exportAccuracyButton = new JButton("💾 Export CSV");
+        exportAccuracyButton.setFont(new Font("Arial", Font.PLAIN, 11));
+        exportAccuracyButton.setEnabled(false);
+        JPanel accuracyControls = new JPanel(new FlowLayout(FlowLayout.RIGHT, 5, 4));
+        accuracyControls.setOpaque(false);
+        accuracyControls.add(exportAccuracyButton);
+        accuracyPanel.add(accuracyControls, BorderLayout.SOUTH);
+        
+        // Alert rules on the left, the alerts they raised on the right
+        alertRuleField = new JTextField(26);
+        alertRuleField.setFont(new Font("Arial", Font.PLAIN, 13));
+        alertRuleField.setToolTipText("e.g. rain chance > 70% in the next 6h, temp_c < 0 tomorrow, UV >= 8, Oslo: wind > 50");
+        JButton addRuleButton = new JButton("➕ Add Rule");
+        addRuleButton.setFont(new Font("Arial", Font.PLAIN, 11));
+        JButton removeRuleButton = new JButton("Remove Rule");
+        removeRuleButton.setFont(new Font("Arial", Font.PLAIN, 11));
+        JPanel ruleInputPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 4));
+        ruleInputPanel.setOpaque(false);
+        ruleInputPanel.add(new JLabel("Rule:"));
+        ruleInputPanel.add(alertRuleField);
+        ruleInputPanel.add(addRuleButton);
+        ruleInputPanel.add(removeRuleButton);
+        
+        alertRulesList = new JList<>(alertRulesModel);
+        alertRulesList.setFont(new Font("Arial", Font.PLAIN, 12));
+        alertRulesList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        alertsList = new JList<>(alertsModel);
+        alertsList.setFont(new Font("Arial", Font.PLAIN, 12));
+        JScrollPane rulesScroll = new JScrollPane(alertRulesList);
+        rulesScroll.setBorder(BorderFactory.createTitledBorder("Rules"));
+        JScrollPane alertsScroll = new JScrollPane(alertsList);
+        alertsScroll.setBorder(BorderFactory.createTitledBorder("Notifications"));
+        JSplitPane alertsSplit = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT, rulesScroll, alertsScroll);
+        alertsSplit.setResizeWeight(0.4);
+        alertsSplit.setBorder(null);
+        alertsPanel = new JPanel(new BorderLayout());
+        alertsPanel.setBackground(Color.WHITE);
+        alertsPanel.add(ruleInputPanel, BorderLayout.NORTH);
+        alertsPanel.add(alertsSplit, BorderLayout.CENTER);
         
         // Add tabs
         tabbedPane.addTab("☀️ Current Weather", scrollPane);
-        tabbedPane.addTab("🕐 Hourly Forecast", hourlyScrollPane);
-        tabbedPane.addTab("📅 7-Day Forecast", weeklyScrollPane);
+        tabbedPane.addTab("🕐 Hourly Forecast", hourlyPanel);
+        tabbedPane.addTab("📅 " + FORECAST_DAYS + "-Day Forecast", weeklyPanel);
+        tabbedPane.addTab("🗺️ Dashboard", dashboardScroll);
+        tabbedPane.addTab("📈 History", historyPanel);
+        tabbedPane.addTab("🎯 Accuracy", accuracyPanel);
+        tabbedPane.addTab("🔔 Alerts", alertsPanel);
+        
+        // Tabs that were hidden when a report arrived catch up once they are shown
+        tabbedPane.addChangeListener(e -> {
+            renderTab(tabbedPane.getSelectedIndex());
+            if (tabbedPane.getSelectedIndex() == DASHBOARD_TAB) {
+                seedDashboard();
+            } else if (tabbedPane.getSelectedIndex() == HISTORY_TAB) {
+                loadHistory();
+            } else if (tabbedPane.getSelectedIndex() == ACCURACY_TAB) {
+                updateAccuracy();
+            }
+        });
         
         // Left panel for favorites
         JPanel favoritesPanel = new JPanel();
@@ -140,7 +323,7 @@ public class WeatherAppGUI extends JFrame {
         favLabel.setBorder(BorderFactory.createEmptyBorder(0, 5, 5, 5));
         
         favoritesModel = new DefaultListModel<>();
-        for (String fav : favorites) {
+        for (String fav : favorites.names()) {
             favoritesModel.addElement(fav);
         }
         
@@ -149,15 +332,24 @@ public class WeatherAppGUI extends JFrame {
         favoritesList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
         favoritesList.setBackground(Color.WHITE);
         favoritesList.setBorder(BorderFactory.createLineBorder(new Color(176, 196, 222), 1));
+        favoritesList.setCellRenderer(new FavoriteCellRenderer());
         
         JScrollPane favScrollPane = new JScrollPane(favoritesList);
         
         JButton removeFavButton = new JButton("Remove");
         removeFavButton.setFont(new Font("Arial", Font.PLAIN, 11));
         
+        refreshAllButton = new JButton("🔄 Refresh All");
+        refreshAllButton.setFont(new Font("Arial", Font.PLAIN, 11));
+        
+        JPanel favButtonPanel = new JPanel(new GridLayout(1, 2, 5, 0));
+        favButtonPanel.setBackground(lightBg);
+        favButtonPanel.add(refreshAllButton);
+        favButtonPanel.add(removeFavButton);
+        
         favoritesPanel.add(favLabel, BorderLayout.NORTH);
         favoritesPanel.add(favScrollPane, BorderLayout.CENTER);
-        favoritesPanel.add(removeFavButton, BorderLayout.SOUTH);
+        favoritesPanel.add(favButtonPanel, BorderLayout.SOUTH);
         
         // Bottom panel for status
         statusLabel = new JLabel("Ready");
@@ -184,7 +376,27 @@ public class WeatherAppGUI extends JFrame {
                 if (evt.getClickCount() == 2) {
                     String selected = favoritesList.getSelectedValue();
                     if (selected != null) {
-                        cityField.setText(selected);
+                        setCityText(selected);
+                        fetchWeather();
+                    }
+                }
+            }
+        });
+        
+        favoritesList.addListSelectionListener(e -> {
+            String selected = favoritesList.getSelectedValue();
+            if (!e.getValueIsAdjusting() && selected != null) {
+                showSavedForecast(selected);
+            }
+        });
+        
+        dashboardList.addMouseListener(new java.awt.event.MouseAdapter() {
+            public void mouseClicked(java.awt.event.MouseEvent evt) {
+                if (evt.getClickCount() == 2) {
+                    String selected = dashboardList.getSelectedValue();
+                    if (selected != null) {
+                        setCityText(selected);
+                        tabbedPane.setSelectedIndex(0);
                         fetchWeather();
                     }
                 }
@@ -193,13 +405,67 @@ public class WeatherAppGUI extends JFrame {
         
         removeFavButton.addActionListener(e -> removeFromFavorites());
         
+        refreshAllButton.addActionListener(e -> refreshAllFavorites());
+        
         darkModeToggle.addActionListener(e -> toggleDarkMode());
         
+        historyMetric.addActionListener(e -> loadHistory());
+        
+        historyRange.addActionListener(e -> loadHistory());
+        
+        exportAccuracyButton.addActionListener(e -> exportAccuracy());
+        
+        addRuleButton.addActionListener(e -> addAlertRule());
+        
+        alertRuleField.addActionListener(e -> addAlertRule());
+        
+        removeRuleButton.addActionListener(e -> removeAlertRule());
+        
+        // Keep the shown city and every favorite fresh in the background, but not while minimized
+        refresher = new RefreshScheduler(SERVICE, FORECAST_DAYS, new RefreshScheduler.Listener() {
+            @Override
+            public void refreshed(String city, WeatherReport report) {
+                SwingUtilities.invokeLater(() -> backgroundRefreshed(city, report));
+            }
+            
+            @Override
+            public void failed(String city, Throwable error, long retryInMillis) {
+                SwingUtilities.invokeLater(() -> backgroundFailed(city, error, retryInMillis));
+            }
+        });
+        updateTrackedCities();
+        addWindowListener(new java.awt.event.WindowAdapter() {
+            @Override
+            public void windowIconified(java.awt.event.WindowEvent e) {
+                refresher.pause();
+            }
+            
+            @Override
+            public void windowDeiconified(java.awt.event.WindowEvent e) {
+                refresher.resume();
+            }
+            
+            // Stops the refresh timer before EXIT_ON_CLOSE, so no refresh starts while the app shuts down
+            @Override
+            public void windowClosing(java.awt.event.WindowEvent e) {
+                refresher.shutdown();
+            }
+        });
+        
+        // Keeps the "observed N min ago" part of the status line current
+        new Timer(30_000, e -> updateStatus()).start();
+        
         setVisible(true);
+        
+        // Show the first favorite's saved forecast straight away
+        if (!favorites.isEmpty()) {
+            favoritesList.setSelectedIndex(0);
+        }
     }
     
     private void fetchWeather() {
         String city = cityField.getText().trim();
+        hideSuggestions();
         
         if (city.isEmpty()) {
             JOptionPane.showMessageDialog(this, "Please enter a city name!", 
@@ -207,322 +473,679 @@ public class WeatherAppGUI extends JFrame {
             return;
         }
         
-        statusLabel.setText("Fetching weather data...");
+        // Every search supersedes the previous one: its HTTP exchange is cancelled
+        // (unless Refresh All still wants it) and any late result is dropped
+        long generation = ++fetchGeneration;
+        shownSnapshot = null;
+        if (activeSearch != null) {
+            activeSearch.cancel(true);
+            activeSearch = null;
+        }
+        
+        WeatherReport cached = SERVICE.cached(city, FORECAST_DAYS);
+        if (cached != null) {
+            showCity(city);
+            displayReport(cached);
+            setStatus("Weather data updated");
+            searchButton.setEnabled(true);
+            return;
+        }
+        
+        setStatus("Fetching weather data...");
         searchButton.setEnabled(false);
-        weatherDisplay.setText("Loading...");
-        hourlyDisplay.setText("Loading...");
-        weeklyDisplay.setText("Loading...");
+        showMessage("Loading...", "Loading...", "Loading...");
+        
+        // Paint the last saved forecast while the network request runs
+        SERVICE.snapshot(city)
+            .thenAccept(snapshot -> SwingUtilities.invokeLater(() -> {
+                if (snapshot != null && generation == fetchGeneration && !searchButton.isEnabled()) {
+                    shownSnapshot = snapshot;
+                    displayReport(snapshot.report());
+                    setStatus("Showing data saved " + snapshot.ageText() + " - refreshing...");
+                }
+            }));
         
-        // Use SwingWorker to avoid freezing the UI
-        SwingWorker<String[], Void> worker = new SwingWorker<>() {
+        activeSearch = SERVICE.load(city, FORECAST_DAYS);
+        activeSearch.whenComplete((report, error) -> SwingUtilities.invokeLater(() -> {
+            if (generation != fetchGeneration) {
+                return;
+            }
+            activeSearch = null;
+            
+            if (report != null) {
+                // One parsed report feeds every tab
+                showCity(city);
+                refresher.observed(city, report);
+                fetched(city, report);
+                displayReport(report);
+                setStatus(SERVICE.isStale(report) ? "Weather service unavailable - showing cached data" : "Weather data updated");
+            } else if (shownSnapshot != null) {
+                setStatus("Offline - showing data saved " + shownSnapshot.ageText());
+            } else {
+                showMessage("Failed to fetch weather data.\nPlease check the city name and try again.",
+                    "Failed to fetch hourly forecast.", "Failed to fetch " + FORECAST_DAYS + "-day forecast.");
+                setStatus("Error fetching data: " + Futures.unwrap(error).getMessage());
+            }
+            searchButton.setEnabled(true);
+        }));
+    }
+    
+    private void createSuggestionPopup() {
+        suggestionModel = new DefaultListModel<>();
+        suggestionList = new JList<>(suggestionModel);
+        suggestionList.setFont(new Font("Arial", Font.PLAIN, 13));
+        suggestionList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        suggestionList.setFocusable(false);
+        suggestionList.addMouseListener(new java.awt.event.MouseAdapter() {
+            @Override
+            public void mouseClicked(java.awt.event.MouseEvent evt) {
+                acceptSuggestion(suggestionList.getSelectedValue());
+            }
+        });
+        
+        JScrollPane suggestionScroll = new JScrollPane(suggestionList);
+        suggestionScroll.setBorder(BorderFactory.createEmptyBorder());
+        
+        // Not focusable, so typing carries on in the city field while the list is open
+        suggestionPopup = new JPopupMenu();
+        suggestionPopup.setFocusable(false);
+        suggestionPopup.setBorder(BorderFactory.createLineBorder(new Color(176, 196, 222), 1));
+        suggestionPopup.add(suggestionScroll);
+        
+        cityField.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
             @Override
-            protected String[] doInBackground() {
-                String currentWeather = getWeather(city);
-                String forecast = getForecast(city, 7);
-                return new String[]{currentWeather, forecast};
+            public void insertUpdate(javax.swing.event.DocumentEvent e) {
+                cityTextChanged();
             }
             
             @Override
-            protected void done() {
-                try {
-                    String[] results = get();
-                    String weatherData = results[0];
-                    String forecastData = results[1];
-                    
-                    if (weatherData != null) {
-                        displayWeather(weatherData);
-                        statusLabel.setText("Weather data updated");
-                    } else {
-                        weatherDisplay.setText("Failed to fetch weather data.\nPlease check the city name and try again.");
-                        statusLabel.setText("Error fetching data");
-                    }
-                    
-                    if (forecastData != null) {
-                        displayHourlyForecast(forecastData);
-                        displayWeeklyForecast(forecastData);
-                    } else {
-                        hourlyDisplay.setText("Failed to fetch hourly forecast.");
-                        weeklyDisplay.setText("Failed to fetch 7-day forecast.");
-                    }
-                } catch (Exception e) {
-                    weatherDisplay.setText("Error: " + e.getMessage());
-                    hourlyDisplay.setText("Error: " + e.getMessage());
-                    weeklyDisplay.setText("Error: " + e.getMessage());
-                    statusLabel.setText("Error occurred");
+            public void removeUpdate(javax.swing.event.DocumentEvent e) {
+                cityTextChanged();
+            }
+            
+            @Override
+            public void changedUpdate(javax.swing.event.DocumentEvent e) {
+            }
+        });
+        
+        // Runs before the field's own Enter action, so Enter on a highlighted suggestion picks it
+        cityField.addKeyListener(new java.awt.event.KeyAdapter() {
+            @Override
+            public void keyPressed(java.awt.event.KeyEvent evt) {
+                switch (evt.getKeyCode()) {
+                    case java.awt.event.KeyEvent.VK_DOWN:
+                        moveSuggestion(1);
+                        evt.consume();
+                        break;
+                    case java.awt.event.KeyEvent.VK_UP:
+                        moveSuggestion(-1);
+                        evt.consume();
+                        break;
+                    case java.awt.event.KeyEvent.VK_ENTER:
+                        if (suggestionPopup.isVisible() && suggestionList.getSelectedValue() != null) {
+                            acceptSuggestion(suggestionList.getSelectedValue());
+                            evt.consume();
+                        }
+                        break;
+                    case java.awt.event.KeyEvent.VK_ESCAPE:
+                        hideSuggestions();
+                        break;
+                    default:
+                        break;
                 }
-                searchButton.setEnabled(true);
             }
-        };
+        });
         
-        worker.execute();
+        cityField.addFocusListener(new java.awt.event.FocusAdapter() {
+            @Override
+            public void focusLost(java.awt.event.FocusEvent e) {
+                hideSuggestions();
+            }
+        });
     }
     
-    private String getWeather(String city) {
-        try {
-            String encodedCity = URLEncoder.encode(city, StandardCharsets.UTF_8);
-            String urlString = BASE_URL + "?key=" + API_KEY + "&q=" + encodedCity;
-            
-            HttpClient client = HttpClient.newBuilder()
-                .connectTimeout(Duration.ofSeconds(5))
-                .build();
-            
-            HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(urlString))
-                .timeout(Duration.ofSeconds(5))
-                .GET()
-                .build();
-            
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-            
-            if (response.statusCode() == 200) {
-                return response.body();
-            } else {
-                return null;
+    private void cityTextChanged() {
+        if (!suppressSuggestions) {
+            // Deferred so the popup is never shown from inside a document notification
+            SwingUtilities.invokeLater(this::updateSuggestions);
+        }
+    }
+    
+    private void updateSuggestions() {
+        String text = cityField.getText();
+        if (text.trim().isEmpty() || !cityField.hasFocus()) {
+            hideSuggestions();
+            return;
+        }
+        
+        // Local matches come from memory and show straight away; search.json results
+        // land in the suggester's cache and are merged in if the text is still the same
+        showSuggestions(SUGGESTER.local(text, MAX_SUGGESTIONS));
+        SUGGESTER.remote(text).thenAccept(places -> SwingUtilities.invokeLater(() -> {
+            if (!places.isEmpty() && text.equals(cityField.getText()) && cityField.hasFocus()) {
+                showSuggestions(SUGGESTER.local(text, MAX_SUGGESTIONS));
             }
-            
-        } catch (Exception e) {
-            return null;
+        }));
+    }
+    
+    private void showSuggestions(List<Place> places) {
+        if (places.isEmpty()) {
+            hideSuggestions();
+            return;
+        }
+        Place selected = suggestionList.getSelectedValue();
+        suggestionModel.clear();
+        for (Place place : places) {
+            suggestionModel.addElement(place);
+        }
+        if (selected != null && suggestionModel.contains(selected)) {
+            suggestionList.setSelectedValue(selected, true);
+        }
+        suggestionList.setVisibleRowCount(places.size());
+        
+        if (suggestionPopup.isVisible()) {
+            suggestionPopup.pack();
+        } else {
+            suggestionPopup.setPopupSize(Math.max(cityField.getWidth(), suggestionPopup.getPreferredSize().width),
+                suggestionPopup.getPreferredSize().height);
+            suggestionPopup.show(cityField, 0, cityField.getHeight());
         }
     }
     
-    private String getForecast(String city, int days) {
+    private void hideSuggestions() {
+        SUGGESTER.cancel();
+        suggestionPopup.setVisible(false);
+        suggestionList.clearSelection();
+    }
+    
+    private void moveSuggestion(int step) {
+        if (!suggestionPopup.isVisible()) {
+            updateSuggestions();
+            return;
+        }
+        int size = suggestionModel.getSize();
+        int index = suggestionList.getSelectedIndex() + step;
+        index = index < 0 ? size - 1 : index >= size ? 0 : index;
+        suggestionList.setSelectedIndex(index);
+        suggestionList.ensureIndexIsVisible(index);
+    }
+    
+    private void acceptSuggestion(Place place) {
+        if (place == null) {
+            return;
+        }
+        hideSuggestions();
+        setCityText(place.label());
+        fetchWeather();
+    }
+    
+    private void setCityText(String text) {
+        suppressSuggestions = true;
         try {
-            String encodedCity = URLEncoder.encode(city, StandardCharsets.UTF_8);
-            String urlString = FORECAST_URL + "?key=" + API_KEY + "&q=" + encodedCity + "&days=" + days;
-            
-            HttpClient client = HttpClient.newBuilder()
-                .connectTimeout(Duration.ofSeconds(5))
-                .build();
-            
-            HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(urlString))
-                .timeout(Duration.ofSeconds(5))
-                .GET()
-                .build();
-            
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-            
-            if (response.statusCode() == 200) {
-                return response.body();
-            } else {
-                return null;
+            cityField.setText(text);
+        } finally {
+            suppressSuggestions = false;
+        }
+    }
+    
+    private void refreshAllFavorites() {
+        if (favorites.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "Add some favorite cities first!", 
+                "No Favorites", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        
+        List<String> cities = favorites.names();
+        long start = System.nanoTime();
+        refreshedCount = 0;
+        refreshAllButton.setEnabled(false);
+        setStatus("Refreshing " + cities.size() + " favorites...");
+        
+        // All requests start at once; the client caps how many are in flight and
+        // each result is pushed to the EDT as soon as it lands
+        for (String city : cities) {
+            SERVICE.load(city, FORECAST_DAYS).whenComplete((report, error) -> SwingUtilities.invokeLater(
+                () -> favoriteRefreshed(city, report, cities.size(), start)));
+        }
+    }
+    
+    private void favoriteRefreshed(String city, WeatherReport report, int total, long start) {
+        refreshedCount++;
+        if (report != null) {
+            refresher.observed(city, report);
+            fetched(city, report);
+            if (city.equalsIgnoreCase(cityField.getText().trim()) && searchButton.isEnabled()) {
+                displayReport(report);
             }
-            
-        } catch (Exception e) {
-            return null;
+        }
+        
+        if (refreshedCount < total) {
+            setStatus("Refreshed " + refreshedCount + "/" + total + " favorites...");
+        } else {
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+            setStatus("Refreshed " + total + " favorites in " + elapsedMillis + " ms");
+            refreshAllButton.setEnabled(true);
         }
     }
     
-    private void displayWeather(String jsonResponse) {
-        try {
-            String cityName = extractValue(jsonResponse, "\"name\":\"", "\"");
-            String country = extractValue(jsonResponse, "\"country\":\"", "\"");
-            String region = extractValue(jsonResponse, "\"region\":\"", "\"");
-            String localTime = extractValue(jsonResponse, "\"localtime\":\"", "\"");
-            String tempC = extractValue(jsonResponse, "\"temp_c\":", ",");
-            String condition = extractValue(jsonResponse, "\"text\":\"", "\"");
-            String humidity = extractValue(jsonResponse, "\"humidity\":", ",");
-            String feelsLikeC = extractValue(jsonResponse, "\"feelslike_c\":", ",");
-            String visibility = extractValue(jsonResponse, "\"vis_km\":", ",");
-            String uvIndex = extractValue(jsonResponse, "\"uv\":", ",");
-            
-            StringBuilder display = new StringBuilder();
-            display.append("╔════════════════════════════════════════════════╗\n");
-            display.append("  📍 ").append(cityName);
-            if (!region.equals("N/A") && !region.isEmpty()) {
-                display.append(", ").append(region);
-            }
-            display.append(", ").append(country).append("\n");
-            display.append("  📅 ").append(localTime).append("\n");
-            display.append("╚════════════════════════════════════════════════╝\n\n");
-            
-            display.append("🌡️  Temperature\n");
-            display.append("    ").append(tempC).append("°C\n");
-            display.append("    Feels like: ").append(feelsLikeC).append("°C\n\n");
-            
-            display.append("☁️  Conditions\n");
-            display.append("    ").append(getWeatherIcon(condition)).append(" ").append(condition).append("\n\n");
-            
-            display.append("💧 Humidity:      ").append(humidity).append("%\n");
-            display.append("👁️  Visibility:    ").append(visibility).append(" km\n");
-            display.append("☀️  UV Index:      ").append(uvIndex).append("\n");
-            
-            weatherDisplay.setText(display.toString());
-            
-        } catch (Exception e) {
-            weatherDisplay.setText("Error parsing weather data: " + e.getMessage());
+    private void showSavedForecast(String city) {
+        // Read the on-disk snapshot off the EDT and paint it unless a fetch is already running
+        SERVICE.snapshot(city)
+            .thenAccept(snapshot -> SwingUtilities.invokeLater(() -> {
+                if (snapshot != null && !dashboardModel.hasTile(city)) {
+                    updateDashboard(city, snapshot.report());
+                }
+                if (snapshot != null && searchButton.isEnabled()) {
+                    setCityText(city);
+                    showCity(city);
+                    displayReport(snapshot.report());
+                    setStatus("Showing data saved " + snapshot.ageText() + " - double-click to refresh");
+                }
+            }));
+    }
+    
+    private void showCity(String city) {
+        if (shownCity == null || !WeatherCache.normalizeKey(shownCity).equals(WeatherCache.normalizeKey(city))) {
+            String previous = shownCity;
+            shownCity = city;
+            if (previous != null && !favorites.contains(previous)) {
+                refresher.untrack(previous);
+            }
+            refresher.track(city);
+        }
+    }
+    
+    private void updateTrackedCities() {
+        List<String> tracked = favorites.names();
+        if (shownCity != null) {
+            tracked.add(shownCity);
         }
+        refresher.setCities(tracked);
     }
     
-    private void displayHourlyForecast(String jsonResponse) {
+    private boolean isShown(String city) {
+        return shownCity != null && WeatherCache.normalizeKey(shownCity).equals(WeatherCache.normalizeKey(city));
+    }
+    
+    private void backgroundRefreshed(String city, WeatherReport report) {
+        fetched(city, report);
+        // Only touch the tabs when no search is running; the table models repaint just what changed
+        if (isShown(city) && searchButton.isEnabled()) {
+            displayReport(report);
+            setStatus("Weather data updated");
+        }
+    }
+    
+    // A freshly fetched report: updates the city's tile and, for a favorite, its saved coordinates and fetch time
+    private void fetched(String city, WeatherReport report) {
+        updateDashboard(city, report);
+        if (!SERVICE.isStale(report)) {
+            favorites.markFetched(city, report);
+            evaluateAlerts(city, report);
+        }
+    }
+    
+    // Only rules whose window's value changed since the city's last report are tested again
+    private void evaluateAlerts(String city, WeatherReport report) {
+        if (alerts.rules().isEmpty()) {
+            return;
+        }
+        AlertEngine.Update update = alerts.evaluate(city, report, System.currentTimeMillis() / 1000);
+        if (update.isEmpty()) {
+            return;
+        }
+        if (!update.triggered().isEmpty()) {
+            latestAlert = update.triggered().get(update.triggered().size() - 1);
+        }
+        showAlerts();
+    }
+    
+    private void showAlerts() {
+        List<Alert> active = alerts.active();
+        alertsModel.clear();
+        alertsModel.addAll(active);
+        if (active.isEmpty()) {
+            latestAlert = null;
+        } else if (latestAlert == null || !active.contains(latestAlert)) {
+            latestAlert = active.get(0);
+        }
+        tabbedPane.setTitleAt(ALERTS_TAB, active.isEmpty() ? "🔔 Alerts" : "🔔 Alerts (" + active.size() + ")");
+        updateStatus();
+    }
+    
+    private void addAlertRule() {
+        String text = alertRuleField.getText().trim();
+        if (text.isEmpty()) {
+            return;
+        }
+        AlertRule rule;
         try {
-            // Extract city name and date for header
-            String cityName = extractValue(jsonResponse, "\"name\":\"", "\"");
-            String forecastDate = extractValue(jsonResponse, "\"date\":\"", "\"");
-            
-            StringBuilder display = new StringBuilder();
-            display.append("╔════════════════════════════════════════════════╗\n");
-            display.append("          24-HOUR WEATHER FORECAST\n");
-            display.append("  📍 ").append(cityName).append("\n");
-            display.append("  📅 ").append(forecastDate).append("\n");
-            display.append("╚════════════════════════════════════════════════╝\n\n");
-            
-            // Find the forecast array
-            int hourIndex = jsonResponse.indexOf("\"hour\":[");
-            if (hourIndex == -1) {
-                hourlyDisplay.setText("No hourly data available.");
-                return;
+            rule = AlertRule.parse(text);
+        } catch (IllegalArgumentException e) {
+            JOptionPane.showMessageDialog(this, e.getMessage(), "Invalid Rule", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        if (!alerts.add(rule)) {
+            JOptionPane.showMessageDialog(this, "That rule is already set up!",
+                "Already Added", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        alertRulesModel.addElement(rule);
+        alertRuleField.setText("");
+        saveAlertRules();
+        // Cities with data in memory are checked now; the others with their next refresh
+        List<String> cities = favorites.names();
+        if (shownCity != null) {
+            cities.add(shownCity);
+        }
+        for (String city : cities) {
+            WeatherReport cached = SERVICE.cached(city, FORECAST_DAYS);
+            if (cached != null) {
+                evaluateAlerts(city, cached);
             }
-            
-            String hourData = jsonResponse.substring(hourIndex);
-            
-            // Parse each hour
-            int startPos = 0;
-            int hourCount = 0;
-            
-            while (hourCount < 24) {
-                int timeStart = hourData.indexOf("\"time\":\"", startPos);
-                if (timeStart == -1) break;
-                
-                timeStart += 8;
-                int timeEnd = hourData.indexOf("\"", timeStart);
-                String time = hourData.substring(timeStart, timeEnd);
-                
-                // Extract just the hour part (HH:MM)
-                String hourTime = time.substring(11, 16);
-                
-                // Get temperature
-                int tempStart = hourData.indexOf("\"temp_c\":", timeEnd);
-                if (tempStart == -1) break;
-                tempStart += 9;
-                int tempEnd = hourData.indexOf(",", tempStart);
-                String temp = hourData.substring(tempStart, tempEnd).trim();
-                
-                // Get condition
-                int condStart = hourData.indexOf("\"text\":\"", tempEnd);
-                if (condStart == -1) break;
-                condStart += 8;
-                int condEnd = hourData.indexOf("\"", condStart);
-                String condition = hourData.substring(condStart, condEnd);
-                
-                // Get chance of rain
-                int rainStart = hourData.indexOf("\"chance_of_rain\":", condEnd);
-                String chanceRain = "0";
-                if (rainStart != -1) {
-                    rainStart += 17;
-                    int rainEnd = hourData.indexOf(",", rainStart);
-                    if (rainEnd == -1) rainEnd = hourData.indexOf("}", rainStart);
-                    chanceRain = hourData.substring(rainStart, rainEnd).trim();
+        }
+        setStatus("Added alert rule: " + rule.text());
+    }
+    
+    private void removeAlertRule() {
+        AlertRule selected = alertRulesList.getSelectedValue();
+        if (selected == null) {
+            JOptionPane.showMessageDialog(this, "Please select a rule to remove!",
+                "Selection Required", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        alerts.remove(selected);
+        alertRulesModel.removeElement(selected);
+        saveAlertRules();
+        showAlerts();
+        setStatus("Removed alert rule: " + selected.text());
+    }
+    
+    private void loadAlertRules() {
+        Path file = Paths.get(ALERT_RULES_FILE);
+        if (!Files.isRegularFile(file)) {
+            return;
+        }
+        try {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                if (line.trim().isEmpty()) {
+                    continue;
                 }
-                
-                // Format output
-                display.append(String.format("%-8s │ %5s°C │ %s %-22s │ 💧 %3s%%\n", 
-                    hourTime, temp, 
-                    getWeatherIcon(condition),
-                    condition.length() > 22 ? condition.substring(0, 19) + "..." : condition,
-                    chanceRain));
-                
-                if (hourCount % 6 == 5 && hourCount < 23) {
-                    display.append("─────────┼────────┼─────────────────────────────┼─────────\n");
+                try {
+                    AlertRule rule = AlertRule.parse(line);
+                    if (alerts.add(rule)) {
+                        alertRulesModel.addElement(rule);
+                    }
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Error in alert rule, skipping: " + line);
                 }
-                
-                startPos = condEnd;
-                hourCount++;
             }
-            
-            hourlyDisplay.setText(display.toString());
-            
-        } catch (Exception e) {
-            hourlyDisplay.setText("Error parsing hourly forecast: " + e.getMessage());
+        } catch (IOException e) {
+            System.err.println("Error loading alert rules: " + e.getMessage());
         }
     }
     
-    private void displayWeeklyForecast(String jsonResponse) {
+    private void saveAlertRules() {
+        List<String> lines = new ArrayList<>();
+        for (AlertRule rule : alerts.rules()) {
+            lines.add(rule.text());
+        }
         try {
-            // Extract city name
-            String cityName = extractValue(jsonResponse, "\"name\":\"", "\"");
-            
-            StringBuilder display = new StringBuilder();
-            display.append("╔════════════════════════════════════════════════════════╗\n");
-            display.append("                  7-DAY WEATHER FORECAST\n");
-            display.append("  📍 ").append(cityName).append("\n");
-            display.append("╚════════════════════════════════════════════════════════╝\n\n");
-            
-            // Find the forecastday array
-            int forecastIndex = jsonResponse.indexOf("\"forecastday\":[");
-            if (forecastIndex == -1) {
-                weeklyDisplay.setText("No forecast data available.");
-                return;
+            Files.write(Paths.get(ALERT_RULES_FILE), lines, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            System.err.println("Error saving alert rules: " + e.getMessage());
+        }
+    }
+    
+    // Repaints just the city's dashboard tile and favorites row; cities that are not favorites are ignored.
+    // The favorites list and the dashboard share one order, so the tile's row is the favorite's too
+    private void updateDashboard(String city, WeatherReport report) {
+        int row = dashboardModel.update(city, report);
+        if (row >= 0 && row < favoritesModel.size()) {
+            favoritesModel.set(row, favoritesModel.get(row));
+        }
+    }
+    
+    // Fills tiles that have no data yet from the memory cache or the disk snapshots; the refresher does the rest
+    private void seedDashboard() {
+        for (String city : favorites.names()) {
+            if (dashboardModel.hasTile(city)) {
+                continue;
             }
-            
-            String forecastData = jsonResponse.substring(forecastIndex);
-            
-            // Parse each day
-            int startPos = 0;
-            int dayCount = 0;
-            
-            while (dayCount < 7) {
-                // Get date
-                int dateStart = forecastData.indexOf("\"date\":\"", startPos);
-                if (dateStart == -1) break;
-                dateStart += 8;
-                int dateEnd = forecastData.indexOf("\"", dateStart);
-                String date = forecastData.substring(dateStart, dateEnd);
-                
-                // Get max temp
-                int maxTempStart = forecastData.indexOf("\"maxtemp_c\":", dateEnd);
-                if (maxTempStart == -1) break;
-                maxTempStart += 12;
-                int maxTempEnd = forecastData.indexOf(",", maxTempStart);
-                String maxTemp = forecastData.substring(maxTempStart, maxTempEnd).trim();
-                
-                // Get min temp
-                int minTempStart = forecastData.indexOf("\"mintemp_c\":", maxTempEnd);
-                if (minTempStart == -1) break;
-                minTempStart += 12;
-                int minTempEnd = forecastData.indexOf(",", minTempStart);
-                String minTemp = forecastData.substring(minTempStart, minTempEnd).trim();
-                
-                // Get condition
-                int condStart = forecastData.indexOf("\"text\":\"", minTempEnd);
-                if (condStart == -1) break;
-                condStart += 8;
-                int condEnd = forecastData.indexOf("\"", condStart);
-                String condition = forecastData.substring(condStart, condEnd);
-                
-                // Get chance of rain
-                int rainStart = forecastData.indexOf("\"daily_chance_of_rain\":", condEnd);
-                String chanceRain = "0";
-                if (rainStart != -1) {
-                    rainStart += 23;
-                    int rainEnd = forecastData.indexOf(",", rainStart);
-                    if (rainEnd == -1) rainEnd = forecastData.indexOf("}", rainStart);
-                    chanceRain = forecastData.substring(rainStart, rainEnd).trim();
+            WeatherReport cached = SERVICE.cached(city, FORECAST_DAYS);
+            if (cached != null) {
+                updateDashboard(city, cached);
+                continue;
+            }
+            SERVICE.snapshot(city).thenAccept(snapshot -> SwingUtilities.invokeLater(() -> {
+                if (snapshot != null && !dashboardModel.hasTile(city)) {
+                    updateDashboard(city, snapshot.report());
+                }
+            }));
+        }
+    }
+    
+    private void backgroundFailed(String city, Throwable error, long retryInMillis) {
+        if (isShown(city) && searchButton.isEnabled()) {
+            long retrySeconds = Math.max(1, retryInMillis / 1000);
+            setStatus("Refresh failed: " + error.getMessage() + " - retrying in "
+                + (retrySeconds < 120 ? retrySeconds + " s" : retrySeconds / 60 + " min"));
+        }
+    }
+    
+    private void setStatus(String message) {
+        statusMessage = message;
+        updateStatus();
+    }
+    
+    private void updateStatus() {
+        String status = statusMessage;
+        if (shownReport != null && shownReport.current().lastUpdatedEpoch() > 0) {
+            status += "  ·  observed " + WeatherFormatter.age(shownReport.current().lastUpdatedEpoch() * 1000);
+        }
+        // Raised alerts stay in the status line until a later report clears them
+        if (latestAlert != null) {
+            int count = alertsModel.getSize();
+            status += "  ·  🔔 " + (count > 1 ? count + " alerts, latest " : "") + latestAlert.message();
+        }
+        statusLabel.setText(status);
+    }
+    
+    private void displayReport(WeatherReport report) {
+        // Only the visible tab is rendered now; the others when they are selected
+        shownReport = report;
+        Arrays.fill(staleTabs, true);
+        renderTab(tabbedPane.getSelectedIndex());
+        if (tabbedPane.getSelectedIndex() == HISTORY_TAB) {
+            loadHistory();
+        }
+    }
+    
+    // Daily min/max/avg of the shown city's recorded history; the query runs on the history thread
+    private void loadHistory() {
+        long generation = ++historyGeneration;
+        String city = shownCity;
+        if (city == null) {
+            historyTitle.setText("Search for a city to see its recorded history");
+            historyModel.clear();
+            return;
+        }
+        HistoryMetric metric = (HistoryMetric) historyMetric.getSelectedItem();
+        int days = HISTORY_DAYS[historyRange.getSelectedIndex()];
+        ZoneId zone = shownReport != null ? shownReport.location().zone() : ZoneId.systemDefault();
+        String place = shownReport != null ? shownReport.location().name() : city;
+        long now = System.currentTimeMillis() / 1000;
+        // Forecast metrics also show the hours still ahead, as last forecast
+        long end = metric.isForecast() ? now + 14 * 86_400L : now;
+        long start = System.nanoTime();
+        SERVICE.history(city, metric, now - days * 86_400L, end).whenComplete((series, error) -> {
+            double millis = (System.nanoTime() - start) / 1e6;
+            SwingUtilities.invokeLater(() -> {
+                if (generation != historyGeneration) {
+                    return;
                 }
-                
-                // Format output
-                display.append(String.format("%-12s │ %s %-18s\n", 
-                    date, 
-                    getWeatherIcon(condition),
-                    condition.length() > 18 ? condition.substring(0, 15) + "..." : condition));
-                display.append(String.format("             │ 🌡️  %s°C - %s°C  │  💧 %s%%\n\n",
-                    minTemp, maxTemp, chanceRain));
-                
-                if (dayCount < 6) {
-                    display.append("─────────────┴────────────────────────────────────────\n\n");
+                if (error != null) {
+                    historyTitle.setText("Failed to read history: " + Futures.unwrap(error).getMessage());
+                    historyModel.clear();
+                    return;
                 }
-                
-                startPos = condEnd;
-                dayCount++;
+                TimeSeries shown = metric.isForecast() ? series.latestIssue() : series;
+                historyModel.update(shown.daily(zone));
+                historyTitle.setText(shown.isEmpty()
+                    ? "No " + metric.label() + " recorded for " + place + " yet"
+                    : metric.label() + "  📍 " + place + "  ·  " + shown.size() + " samples  ·  "
+                        + String.format(Locale.ROOT, "%.1f ms", millis));
+            });
+        });
+    }
+    
+    private void renderTab(int tab) {
+        if (shownReport == null || tab < 0 || tab >= staleTabs.length || !staleTabs[tab]) {
+            return;
+        }
+        staleTabs[tab] = false;
+        WeatherMetrics.Timing timing = METRICS.time(WeatherMetrics.Stage.RENDER);
+        try {
+            renderReport(tab, shownReport);
+        } finally {
+            timing.close();
+        }
+    }
+    
+    private void renderReport(int tab, WeatherReport report) {
+        if (tab == 0) {
+            String text;
+            WeatherMetrics.Timing timing = METRICS.time(WeatherMetrics.Stage.FORMAT);
+            try {
+                text = WeatherFormatter.current(report);
+            } finally {
+                timing.close();
             }
-            
-            weeklyDisplay.setText(display.toString());
-            
-        } catch (Exception e) {
-            weeklyDisplay.setText("Error parsing weekly forecast: " + e.getMessage());
+            if (!text.equals(weatherDisplay.getText())) {
+                weatherDisplay.setText(text);
+            }
+        } else if (report.days().isEmpty()) {
+            if (tab == 1) {
+                hourlyTitle.setText("Failed to fetch hourly forecast.");
+                hourlyModel.clear();
+            } else {
+                weeklyTitle.setText("Failed to fetch " + FORECAST_DAYS + "-day forecast.");
+                weeklyModel.clear();
+            }
+        } else if (tab == 1) {
+            List<ForecastDay> days = report.days();
+            hourlyTitle.setText("Hourly Weather Forecast  📍 " + report.location().name()
+                + "  📅 " + days.get(0).date() + " – " + days.get(days.size() - 1).date());
+            hourlyModel.update(report);
+        } else {
+            weeklyTitle.setText(report.days().size() + "-Day Weather Forecast  📍 " + report.location().name());
+            weeklyModel.update(report);
         }
     }
     
+    private void showMessage(String current, String hourly, String weekly) {
+        shownReport = null;
+        weatherDisplay.setText(current);
+        hourlyTitle.setText(hourly);
+        hourlyModel.clear();
+        weeklyTitle.setText(weekly);
+        weeklyModel.clear();
+    }
+    
+    // Joins what was recorded since the last update; earlier hours are already summed up
+    private void updateAccuracy() {
+        List<String> cities = new ArrayList<>(favorites.names());
+        if (shownCity != null && !favorites.contains(shownCity)) {
+            cities.add(shownCity);
+        }
+        if (cities.isEmpty()) {
+            accuracyTitle.setText("Add favorites to compare their forecasts with what was observed");
+            return;
+        }
+        accuracyTitle.setText("Forecast Accuracy  ·  updating…");
+        accuracy.update(cities).whenComplete((report, error) -> SwingUtilities.invokeLater(() -> {
+            if (error != null) {
+                accuracyTitle.setText("Failed to compute accuracy: " + Futures.unwrap(error).getMessage());
+                return;
+            }
+            accuracyReport = report;
+            accuracyModel.update(report);
+            exportAccuracyButton.setEnabled(!report.rows().isEmpty());
+            accuracyTitle.setText(report.rows().isEmpty()
+                ? "Forecast Accuracy  ·  nothing to compare yet; forecasts are scored once their hour has been observed"
+                : "Forecast Accuracy  ·  " + report.samples() + " forecast hours scored  ·  "
+                    + String.format(Locale.ROOT, "%.1f ms", report.elapsedMillis()));
+        }));
+    }
+    
+    private void exportAccuracy() {
+        AccuracyReport report = accuracyReport;
+        JFileChooser chooser = new JFileChooser();
+        chooser.setSelectedFile(new File("forecast_accuracy.csv"));
+        if (report == null || chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        Path file = chooser.getSelectedFile().toPath();
+        StringBuilder csv = new StringBuilder(WeatherFormatter.ACCURACY_CSV_HEADER).append('\n');
+        WeatherFormatter.appendAccuracyCsv(csv, report);
+        CompletableFuture.runAsync(() -> {
+            try {
+                Files.write(file, csv.toString().getBytes(StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }).whenComplete((done, error) -> SwingUtilities.invokeLater(() -> setStatus(error == null
+            ? "Exported " + report.rows().size() + " rows to " + file.getFileName()
+            : "Export failed: " + Futures.unwrap(error).getMessage())));
+    }
+    
+    private JTable createForecastTable(TableModel model, int conditionColumn) {
+        JTable table = new JTable(model);
+        table.setFont(new Font("Arial", Font.PLAIN, 13));
+        table.setRowHeight(24);
+        table.setFillsViewportHeight(true);
+        table.setShowVerticalLines(false);
+        table.setFocusable(false);
+        table.setRowSelectionAllowed(false);
+        table.getTableHeader().setReorderingAllowed(false);
+        table.getTableHeader().setFont(new Font("Arial", Font.BOLD, 12));
+        
+        // Everything but the condition text is short and centered
+        DefaultTableCellRenderer centered = new DefaultTableCellRenderer();
+        centered.setHorizontalAlignment(SwingConstants.CENTER);
+        for (int column = 0; column < model.getColumnCount(); column++) {
+            if (column != conditionColumn) {
+                table.getColumnModel().getColumn(column).setCellRenderer(centered);
+            }
+        }
+        table.getColumnModel().getColumn(conditionColumn).setPreferredWidth(260);
+        return table;
+    }
+    
+    private JPanel createForecastPanel(JLabel title, JTable table) {
+        title.setFont(new Font("Arial", Font.BOLD, 13));
+        title.setBorder(BorderFactory.createEmptyBorder(8, 10, 8, 10));
+        
+        JScrollPane tableScrollPane = new JScrollPane(table);
+        tableScrollPane.setBorder(BorderFactory.createLineBorder(new Color(176, 196, 222), 2));
+        
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.setBackground(Color.WHITE);
+        panel.add(title, BorderLayout.NORTH);
+        panel.add(tableScrollPane, BorderLayout.CENTER);
+        return panel;
+    }
+    
+    private void applyTableColors(JTable table, JLabel title, Color background, Color foreground) {
+        table.setBackground(background);
+        table.setForeground(foreground);
+        table.setGridColor(background.darker());
+        table.getTableHeader().setBackground(background.darker());
+        table.getTableHeader().setForeground(foreground);
+        title.setForeground(foreground);
+        title.getParent().setBackground(background);
+    }
+    
     private void toggleDarkMode() {
         isDarkMode = !isDarkMode;
         
@@ -547,14 +1170,27 @@ public class WeatherAppGUI extends JFrame {
         // Text areas
         weatherDisplay.setBackground(darkTextArea);
         weatherDisplay.setForeground(darkText);
-        hourlyDisplay.setBackground(darkTextArea);
-        hourlyDisplay.setForeground(darkText);
-        weeklyDisplay.setBackground(darkTextArea);
-        weeklyDisplay.setForeground(darkText);
+        applyTableColors(hourlyTable, hourlyTitle, darkTextArea, darkText);
+        applyTableColors(weeklyTable, weeklyTitle, darkTextArea, darkText);
+        applyTableColors(historyTable, historyTitle, darkTextArea, darkText);
+        applyTableColors(accuracyTable, accuracyTitle, darkTextArea, darkText);
         
-        // Favorites list
+        // Favorites list and suggestions
         favoritesList.setBackground(darkTextArea);
         favoritesList.setForeground(darkText);
+        dashboardList.setBackground(darkBg);
+        alertsPanel.setBackground(darkTextArea);
+        alertRulesList.setBackground(darkTextArea);
+        alertRulesList.setForeground(darkText);
+        alertsList.setBackground(darkTextArea);
+        alertsList.setForeground(darkText);
+        alertRuleField.setBackground(darkTextArea);
+        alertRuleField.setForeground(darkText);
+        alertRuleField.setCaretColor(darkText);
+        dashboardRenderer.setColors(darkBg, darkTextArea, darkText, new Color(150, 150, 150));
+        dashboardList.repaint();
+        suggestionList.setBackground(darkTextArea);
+        suggestionList.setForeground(darkText);
         
         // City field
         cityField.setBackground(darkTextArea);
@@ -581,14 +1217,27 @@ public class WeatherAppGUI extends JFrame {
         // Text areas
         weatherDisplay.setBackground(lightTextArea);
         weatherDisplay.setForeground(lightText);
-        hourlyDisplay.setBackground(lightTextArea);
-        hourlyDisplay.setForeground(lightText);
-        weeklyDisplay.setBackground(lightTextArea);
-        weeklyDisplay.setForeground(lightText);
+        applyTableColors(hourlyTable, hourlyTitle, lightTextArea, lightText);
+        applyTableColors(weeklyTable, weeklyTitle, lightTextArea, lightText);
+        applyTableColors(historyTable, historyTitle, lightTextArea, lightText);
+        applyTableColors(accuracyTable, accuracyTitle, lightTextArea, lightText);
         
-        // Favorites list
+        // Favorites list and suggestions
         favoritesList.setBackground(lightTextArea);
         favoritesList.setForeground(lightText);
+        dashboardList.setBackground(lightBg);
+        alertsPanel.setBackground(lightTextArea);
+        alertRulesList.setBackground(lightTextArea);
+        alertRulesList.setForeground(lightText);
+        alertsList.setBackground(lightTextArea);
+        alertsList.setForeground(lightText);
+        alertRuleField.setBackground(Color.WHITE);
+        alertRuleField.setForeground(lightText);
+        alertRuleField.setCaretColor(lightText);
+        dashboardRenderer.setColors(lightBg, lightTextArea, lightText, new Color(110, 110, 110));
+        dashboardList.repaint();
+        suggestionList.setBackground(lightTextArea);
+        suggestionList.setForeground(lightText);
         
         // City field
         cityField.setBackground(Color.WHITE);
@@ -625,66 +1274,6 @@ public class WeatherAppGUI extends JFrame {
         }
     }
     
-    private String extractValue(String json, String startKey, String endChar) {
-        int startIndex = json.indexOf(startKey);
-        if (startIndex == -1) return "N/A";
-        
-        startIndex += startKey.length();
-        int endIndex = json.indexOf(endChar, startIndex);
-        
-        if (endIndex == -1) return "N/A";
-        
-        return json.substring(startIndex, endIndex).trim();
-    }
-    
-    private String getWeatherIcon(String condition) {
-        String lower = condition.toLowerCase();
-        
-        // Sunny/Clear
-        if (lower.contains("sunny") || lower.contains("clear")) {
-            return "☀️";
-        }
-        // Partly cloudy
-        else if (lower.contains("partly cloudy")) {
-            return "⛅";
-        }
-        // Cloudy/Overcast
-        else if (lower.contains("cloudy") || lower.contains("overcast")) {
-            return "☁️";
-        }
-        // Rain
-        else if (lower.contains("rain") || lower.contains("drizzle")) {
-            if (lower.contains("heavy")) {
-                return "🌧️";
-            }
-            return "🌦️";
-        }
-        // Thunderstorm
-        else if (lower.contains("thunder") || lower.contains("storm")) {
-            return "⛈️";
-        }
-        // Snow
-        else if (lower.contains("snow") || lower.contains("blizzard")) {
-            return "🌨️";
-        }
-        // Fog/Mist
-        else if (lower.contains("fog") || lower.contains("mist") || lower.contains("haze")) {
-            return "🌫️";
-        }
-        // Wind
-        else if (lower.contains("wind")) {
-            return "💨";
-        }
-        // Night
-        else if (lower.contains("night")) {
-            return "🌙";
-        }
-        // Default
-        else {
-            return "🌤️";
-        }
-    }
-    
     private void addToFavorites() {
         String city = cityField.getText().trim();
         
@@ -703,12 +1292,18 @@ public class WeatherAppGUI extends JFrame {
         
         favorites.add(city);
         favoritesModel.addElement(city);
-        saveFavorites();
-        statusLabel.setText("Added " + city + " to favorites");
+        dashboardModel.add(city);
+        if (shownReport != null && isShown(city)) {
+            updateDashboard(city, shownReport);
+        }
+        SUGGESTER.addFavorite(city);
+        refresher.track(city);
+        setStatus("Added " + city + " to favorites");
     }
     
     private void removeFromFavorites() {
         String selected = favoritesList.getSelectedValue();
+        int selectedIndex = favoritesList.getSelectedIndex();
         
         if (selected == null) {
             JOptionPane.showMessageDialog(this, "Please select a city to remove!", 
@@ -723,39 +1318,31 @@ public class WeatherAppGUI extends JFrame {
         
         if (confirm == JOptionPane.YES_OPTION) {
             favorites.remove(selected);
-            favoritesModel.removeElement(selected);
-            saveFavorites();
-            statusLabel.setText("Removed " + selected + " from favorites");
-        }
-    }
-    
-    private void saveFavorites() {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(FAVORITES_FILE))) {
-            for (String city : favorites) {
-                writer.write(city);
-                writer.newLine();
+            favoritesModel.remove(selectedIndex);
+            dashboardModel.remove(selected);
+            SUGGESTER.removeFavorite(selected);
+            if (!isShown(selected)) {
+                refresher.untrack(selected);
+                alerts.forget(selected);
+                showAlerts();
             }
-        } catch (IOException e) {
-            System.err.println("Error saving favorites: " + e.getMessage());
+            setStatus("Removed " + selected + " from favorites");
         }
     }
     
-    private void loadFavorites() {
-        File file = new File(FAVORITES_FILE);
-        if (!file.exists()) {
-            return;
-        }
+    // Favorite name plus the latest refreshed temperature and condition icon
+    private class FavoriteCellRenderer extends DefaultListCellRenderer {
+        private static final long serialVersionUID = 1L;
         
-        try (BufferedReader reader = new BufferedReader(new FileReader(FAVORITES_FILE))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                line = line.trim();
-                if (!line.isEmpty()) {
-                    favorites.add(line);
-                }
+        @Override
+        public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                      boolean isSelected, boolean cellHasFocus) {
+            super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
+            DashboardModel.Tile tile = dashboardModel.tile((String) value);
+            if (tile != null) {
+                setText(value + "  " + tile.icon() + " " + tile.temperature());
             }
-        } catch (IOException e) {
-            System.err.println("Error loading favorites: " + e.getMessage());
+            return this;
         }
     }
     
@@ -0,0 +1,156 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.UnaryOperator;
+import weather.FavoritesStore;
+import weather.Futures;
+import weather.WeatherFormatter;
+import weather.WeatherMetrics;
+import weather.WeatherReport;
+import weather.WeatherService;
+
+// Headless batch mode: fetches every city concurrently and prints the results in input order
+public class WeatherCli {
+    private static final String USAGE =
+        "Usage: java WeatherCli [--format text|csv|jsonl] [--days N] [--file path] [--metrics] [city ... | -]\n"
+        + "Cities come from the arguments, from --file (one per line, or the GUI's weather_favorites.journal)\n"
+        + "or from stdin when no city is given or the only argument is \"-\".\n"
+        + "--metrics prints per-stage timings and counters to stderr in Prometheus text format.";
+
+    public static void main(String[] args) throws IOException {
+        String format = "text";
+        int days = 7;
+        List<String> cities = new ArrayList<>();
+        boolean readStdin = false;
+        boolean printMetrics = false;
+
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if ((arg.equals("--format") || arg.equals("--days") || arg.equals("--file")) && i + 1 >= args.length) {
+                usage("Missing value for " + arg);
+            }
+            switch (arg) {
+                case "--format":
+                    format = args[++i];
+                    if (!format.equals("text") && !format.equals("csv") && !format.equals("jsonl")) {
+                        usage("Unknown format: " + format);
+                    }
+                    break;
+                case "--days":
+                    try {
+                        days = Integer.parseInt(args[++i]);
+                    } catch (NumberFormatException e) {
+                        usage("Not a number: " + args[i]);
+                    }
+                    if (days < 1 || days > 14) {
+                        usage("--days must be between 1 and 14");
+                    }
+                    break;
+                case "--file":
+                    Path file = Paths.get(args[++i]);
+                    if (FavoritesStore.isJournal(file)) {
+                        cities.addAll(FavoritesStore.open(file, null, UnaryOperator.identity()).names());
+                    } else {
+                        readCities(Files.newBufferedReader(file, StandardCharsets.UTF_8), cities);
+                    }
+                    break;
+                case "-":
+                    readStdin = true;
+                    break;
+                case "--metrics":
+                    printMetrics = true;
+                    break;
+                case "-h":
+                case "--help":
+                    System.out.println(USAGE);
+                    return;
+                default:
+                    cities.add(arg);
+                    break;
+            }
+        }
+        if (readStdin || (cities.isEmpty() && System.console() == null)) {
+            readCities(new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)), cities);
+        }
+        if (cities.isEmpty()) {
+            usage("No cities given");
+        }
+
+        // No disk snapshots here: batch runs always want fresh data
+        WeatherService service = WeatherService.fromSystemProperties(false);
+
+        // Start every fetch up front; the client caps how many are actually in flight
+        List<CompletableFuture<WeatherReport>> results = new ArrayList<>();
+        for (String city : cities) {
+            results.add(service.load(city, days));
+        }
+
+        PrintStream out = new PrintStream(System.out, false, StandardCharsets.UTF_8);
+        if (format.equals("csv")) {
+            out.println(WeatherFormatter.CSV_HEADER);
+        }
+        int failures = 0;
+        for (int i = 0; i < cities.size(); i++) {
+            String city = cities.get(i);
+            WeatherReport report;
+            try {
+                report = results.get(i).join();
+            } catch (RuntimeException e) {
+                Throwable cause = Futures.unwrap(e);
+                System.err.println(city + ": " + (cause.getMessage() != null ? cause.getMessage() : cause.toString()));
+                failures++;
+                continue;
+            }
+
+            StringBuilder line = new StringBuilder();
+            WeatherMetrics.Timing timing = WeatherMetrics.global().time(WeatherMetrics.Stage.FORMAT);
+            try {
+                switch (format) {
+                    case "csv":
+                        WeatherFormatter.appendCsv(line, city, report);
+                        break;
+                    case "jsonl":
+                        WeatherFormatter.appendJsonLine(line, city, report);
+                        break;
+                    default:
+                        line.append(WeatherFormatter.text(report)).append('\n');
+                        break;
+                }
+            } finally {
+                timing.close();
+            }
+            out.print(line);
+            out.flush();
+        }
+        if (printMetrics) {
+            System.err.print(WeatherMetrics.global().prometheusText());
+        }
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    private static void readCities(BufferedReader reader, List<String> cities) throws IOException {
+        try (BufferedReader in = reader) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty()) {
+                    cities.add(line);
+                }
+            }
+        }
+    }
+
+    private static void usage(String message) {
+        System.err.println(message);
+        System.err.println(USAGE);
+        System.exit(2);
+    }
+}
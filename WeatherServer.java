@@ -0,0 +1,24 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import weather.WeatherHttpService;
+import weather.WeatherMetrics;
+import weather.WeatherService;
+
+// Runs the fetch-and-cache core as a local HTTP service (see "Service mode" in the README)
+public class WeatherServer {
+    public static void main(String[] args) throws IOException {
+        String host = System.getProperty("weather.server.host", "127.0.0.1");
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : Integer.getInteger("weather.server.port", 8080);
+
+        WeatherService service = WeatherService.fromSystemProperties(false);
+        WeatherMetrics.global().registerMBean();
+        WeatherHttpService server = new WeatherHttpService(service, new InetSocketAddress(host, port),
+            Integer.getInteger("weather.server.threads", 8));
+        server.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> server.stop(1)));
+
+        InetSocketAddress address = server.address();
+        System.out.println("Weather service listening on http://" + address.getHostString() + ":" + address.getPort()
+            + " (/current, /forecast, /hourly, /stats, /metrics)");
+    }
+}
@@ -0,0 +1,34 @@
+package weather.bench;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import weather.WeatherJsonParser;
+import weather.WeatherReport;
+
+// Recorded forecast.json payloads bundled from the project's fixtures/ directory
+final class Fixtures {
+    private Fixtures() {
+    }
+
+    static byte[] forecast(int days) {
+        String name = "/fixtures/forecast-" + days + "d.json";
+        try (InputStream in = Fixtures.class.getResourceAsStream(name)) {
+            if (in == null) {
+                throw new IllegalArgumentException("Missing fixture " + name);
+            }
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static WeatherReport report(int days) {
+        try {
+            return WeatherJsonParser.parse(new ByteArrayInputStream(forecast(days)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package weather.bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import weather.WeatherFormatter;
+import weather.WeatherReport;
+
+// The String.format-heavy panel rendering and the CSV / JSON writers over an already parsed report
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormatterBenchmark {
+    @Param({"1", "3", "7", "14"})
+    public int days;
+
+    private WeatherReport report;
+
+    @Setup
+    public void load() {
+        report = Fixtures.report(days);
+    }
+
+    @Benchmark
+    public String current() {
+        return WeatherFormatter.current(report);
+    }
+
+    @Benchmark
+    public String hourly() {
+        return WeatherFormatter.hourly(report);
+    }
+
+    @Benchmark
+    public String weekly() {
+        return WeatherFormatter.weekly(report);
+    }
+
+    @Benchmark
+    public StringBuilder csv() {
+        StringBuilder out = new StringBuilder();
+        WeatherFormatter.appendCsv(out, "London", report);
+        return out;
+    }
+
+    @Benchmark
+    public StringBuilder jsonLine() {
+        StringBuilder out = new StringBuilder();
+        WeatherFormatter.appendJsonLine(out, "London", report);
+        return out;
+    }
+}
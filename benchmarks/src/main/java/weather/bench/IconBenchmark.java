@@ -0,0 +1,50 @@
+package weather.bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import weather.ConditionIcons;
+
+// Condition to emoji, once per rendered hour and day: the code table and the memoized text fallback
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IconBenchmark {
+    private final int[] codes = {
+        1000, 1000, 1003, 1006, 1009, 1030, 1063, 1153, 1189, 1195, 1087,
+        1276, 1213, 1117, 1135, 1147, 1204, 1237, 1246, 1279
+    };
+
+    // The same conditions as text, from early to late matches in the fallback
+    private final String[] conditions = {
+        "Sunny", "Clear", "Partly cloudy", "Cloudy", "Overcast", "Mist", "Patchy rain nearby",
+        "Light drizzle", "Moderate rain", "Heavy rain", "Thundery outbreaks in nearby",
+        "Moderate or heavy rain with thunder", "Light snow", "Blizzard", "Fog", "Freezing fog",
+        "Light sleet", "Ice pellets", "Torrential rain shower", "Patchy light snow with thunder"
+    };
+
+    @Benchmark
+    public void byCode(Blackhole blackhole) {
+        for (int i = 0; i < codes.length; i++) {
+            blackhole.consume(ConditionIcons.forCode(codes[i], conditions[i]));
+        }
+    }
+
+    @Benchmark
+    public void byText(Blackhole blackhole) {
+        for (String condition : conditions) {
+            blackhole.consume(ConditionIcons.forText(condition));
+        }
+    }
+}
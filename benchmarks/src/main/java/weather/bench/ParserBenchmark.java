@@ -0,0 +1,53 @@
+package weather.bench;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import weather.ForecastDay;
+import weather.WeatherJsonParser;
+import weather.WeatherReport;
+
+// Streaming a whole forecast.json body into a WeatherReport, as the client does off the wire
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+    @Param({"1", "3", "7", "14"})
+    public int days;
+
+    private byte[] payload;
+
+    @Setup
+    public void load() {
+        payload = Fixtures.forecast(days);
+    }
+
+    @Benchmark
+    public WeatherReport parse() throws IOException {
+        return WeatherJsonParser.parse(new ByteArrayInputStream(payload));
+    }
+
+    // Hours are decoded per day on first use; this is the cost once the whole timeline has been viewed
+    @Benchmark
+    public int parseAllHours() throws IOException {
+        int hours = 0;
+        for (ForecastDay day : WeatherJsonParser.parse(new ByteArrayInputStream(payload)).days()) {
+            hours += day.hours().size();
+        }
+        return hours;
+    }
+}
@@ -0,0 +1,95 @@
+package weather;
+
+import java.util.Collections;
+import java.util.List;
+
+// Result of ForecastAccuracy.update: one row per city and lead day that has matched samples
+public final class AccuracyReport {
+    private final List<Row> rows;
+    private final long samples;
+    private final double elapsedMillis;
+
+    AccuracyReport(List<Row> rows, long samples, double elapsedMillis) {
+        this.rows = Collections.unmodifiableList(rows);
+        this.samples = samples;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    // Cities in the order they were asked for, lead days ascending
+    public List<Row> rows() {
+        return rows;
+    }
+
+    // Forecast hours joined with an observation, over all rows
+    public long samples() {
+        return samples;
+    }
+
+    // Time the update took, most of it reading what was recorded since the previous one
+    public double elapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * Errors are forecast minus observed. For rain the observation counts as
+     * 100% if any precipitation was reported, so bias is in percentage points
+     * and MAE is the mean distance from what happened.
+     */
+    public static final class Row {
+        private final String city;
+        private final int leadDays;
+        private final long tempSamples;
+        private final double tempBias;
+        private final double tempMae;
+        private final long rainSamples;
+        private final double rainBias;
+        private final double rainMae;
+
+        public Row(String city, int leadDays, long tempSamples, double tempBias, double tempMae,
+                   long rainSamples, double rainBias, double rainMae) {
+            this.city = city;
+            this.leadDays = leadDays;
+            this.tempSamples = tempSamples;
+            this.tempBias = tempBias;
+            this.tempMae = tempMae;
+            this.rainSamples = rainSamples;
+            this.rainBias = rainBias;
+            this.rainMae = rainMae;
+        }
+
+        public String city() {
+            return city;
+        }
+
+        // 1 for forecasts of the first 24 hours after they were issued, up to ForecastAccuracy.MAX_LEAD_DAYS
+        public int leadDays() {
+            return leadDays;
+        }
+
+        public long tempSamples() {
+            return tempSamples;
+        }
+
+        // °C; NaN without samples
+        public double tempBias() {
+            return tempBias;
+        }
+
+        public double tempMae() {
+            return tempMae;
+        }
+
+        public long rainSamples() {
+            return rainSamples;
+        }
+
+        // Percentage points; NaN without samples
+        public double rainBias() {
+            return rainBias;
+        }
+
+        public double rainMae() {
+            return rainMae;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package weather;
+
+import java.util.Locale;
+
+// A rule that fired for a city, with the value that made it fire
+public final class Alert {
+    private final String city;
+    private final AlertRule rule;
+    private final double value;
+    private final long triggeredMillis;
+
+    public Alert(String city, AlertRule rule, double value, long triggeredMillis) {
+        this.city = city;
+        this.rule = rule;
+        this.value = value;
+        this.triggeredMillis = triggeredMillis;
+    }
+
+    // As passed to AlertEngine.evaluate
+    public String city() {
+        return city;
+    }
+
+    public AlertRule rule() {
+        return rule;
+    }
+
+    // The window's minimum or maximum the rule was tested against
+    public double value() {
+        return value;
+    }
+
+    public long triggeredMillis() {
+        return triggeredMillis;
+    }
+
+    // E.g. "Oslo: rain chance > 70% in the next 6h (85% next 6h)"
+    public String message() {
+        String scoped = rule.city() != null ? rule.text().substring(rule.text().indexOf(':') + 1).trim() : rule.text();
+        return city + ": " + scoped + " (" + String.format(Locale.ROOT, value == Math.rint(value) ? "%.0f" : "%.1f", value)
+            + rule.input().field().unit() + " " + rule.input().window() + ")";
+    }
+
+    @Override
+    public String toString() {
+        return message();
+    }
+}
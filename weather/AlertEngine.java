@@ -0,0 +1,238 @@
+package weather;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * Tests AlertRules against each city's reports as they arrive.
+ *
+ * Rules are grouped by their Input, so however many rules there are, a
+ * report costs one extraction per distinct input (a few dozen at most).
+ * A group is only tested when its input's value differs from the one the
+ * city's last report gave, and then only the rules whose threshold lies
+ * between the old and the new value, the only ones whose outcome can flip.
+ * Groups keep their rules sorted by threshold to find those.
+ *
+ * Not thread-safe; the GUI uses it on the EDT only.
+ */
+public final class AlertEngine {
+    private final UnaryOperator<String> canonical;
+    private final List<AlertRule> rules = new ArrayList<>();
+    // Rules for every city, by input
+    private final Map<AlertRule.Input, Group> shared = new LinkedHashMap<>();
+    // Canonical city -> rules for that city only, by input
+    private final Map<String, Map<AlertRule.Input, Group>> scoped = new HashMap<>();
+    // The groups each rule was put in; the canonical name of its city may change later
+    private final Map<AlertRule, Map<AlertRule.Input, Group>> groupsOf = new HashMap<>();
+    // Canonical city -> what its last report gave and which alerts are up
+    private final Map<String, CityState> states = new HashMap<>();
+
+    /**
+     * canonical maps a city name to its query, e.g. CitySuggester::resolve,
+     * so a rule for "Oslo" matches reports fetched under any spelling.
+     */
+    public AlertEngine(UnaryOperator<String> canonical) {
+        this.canonical = canonical;
+    }
+
+    // In the order they were added
+    public List<AlertRule> rules() {
+        return Collections.unmodifiableList(rules);
+    }
+
+    // False if an equal rule is already there. The rule is tested with each city's next report
+    public boolean add(AlertRule rule) {
+        if (rules.contains(rule)) {
+            return false;
+        }
+        rules.add(rule);
+        Map<AlertRule.Input, Group> groups = rule.city() == null
+            ? shared
+            : scoped.computeIfAbsent(key(rule.city()), k -> new LinkedHashMap<>());
+        groups.computeIfAbsent(rule.input(), input -> new Group()).add(rule);
+        groupsOf.put(rule, groups);
+        // Forgetting the input's last value makes the next report test the whole group, new rule included
+        for (CityState state : states.values()) {
+            state.values.remove(rule.input());
+        }
+        return true;
+    }
+
+    // Also clears the alerts the rule raised
+    public boolean remove(AlertRule rule) {
+        if (!rules.remove(rule)) {
+            return false;
+        }
+        Map<AlertRule.Input, Group> groups = groupsOf.remove(rule);
+        Group group = groups.get(rule.input());
+        group.rules.remove(rule);
+        if (group.rules.isEmpty()) {
+            groups.remove(rule.input());
+        }
+        for (CityState state : states.values()) {
+            state.active.remove(rule);
+        }
+        return true;
+    }
+
+    // Drops the city's state and alerts, e.g. when it is no longer a favorite
+    public void forget(String city) {
+        states.remove(key(city));
+    }
+
+    // Every alert that is up, most recent first
+    public List<Alert> active() {
+        List<Alert> alerts = new ArrayList<>();
+        for (CityState state : states.values()) {
+            alerts.addAll(state.active.values());
+        }
+        alerts.sort((a, b) -> Long.compare(b.triggeredMillis(), a.triggeredMillis()));
+        return alerts;
+    }
+
+    public Update evaluate(String city, WeatherReport report, long nowEpochSecond) {
+        String key = key(city);
+        CityState state = states.computeIfAbsent(key, k -> new CityState());
+        Update update = new Update();
+        long now = System.currentTimeMillis();
+        // An input shared by both kinds of rules is extracted once
+        Map<AlertRule.Input, Change> extracted = new HashMap<>();
+        evaluate(city, report, nowEpochSecond, shared, state, extracted, update, now);
+        Map<AlertRule.Input, Group> own = scoped.get(key);
+        if (own != null) {
+            evaluate(city, report, nowEpochSecond, own, state, extracted, update, now);
+        }
+        return update;
+    }
+
+    private void evaluate(String city, WeatherReport report, long nowEpochSecond,
+                          Map<AlertRule.Input, Group> groups, CityState state,
+                          Map<AlertRule.Input, Change> extracted, Update update, long now) {
+        for (Map.Entry<AlertRule.Input, Group> entry : groups.entrySet()) {
+            AlertRule.Input input = entry.getKey();
+            Change change = extracted.get(input);
+            if (change == null) {
+                double value = input.extract(report, nowEpochSecond);
+                update.inputs++;
+                change = new Change(state.values.put(input, value), value);
+                extracted.put(input, change);
+            }
+            if (change.unchanged()) {
+                continue;
+            }
+
+            Group group = entry.getValue();
+            double value = change.value;
+            int from = 0;
+            int to = group.rules.size();
+            if (change.bounded()) {
+                from = group.firstAtLeast(Math.min(change.previous, value));
+                to = group.firstAtLeast(Math.nextUp(Math.max(change.previous, value)));
+            }
+            for (int i = from; i < to; i++) {
+                AlertRule rule = group.rules.get(i);
+                update.tested++;
+                boolean firing = rule.test(value);
+                Alert active = state.active.get(rule);
+                if (firing && active == null) {
+                    Alert alert = new Alert(city, rule, value, now);
+                    state.active.put(rule, alert);
+                    update.triggered.add(alert);
+                } else if (!firing && active != null) {
+                    state.active.remove(rule);
+                    update.cleared.add(active);
+                }
+            }
+        }
+    }
+
+    // Rules sharing one input, sorted by threshold
+    private static final class Group {
+        private final List<AlertRule> rules = new ArrayList<>();
+
+        void add(AlertRule rule) {
+            rules.add(firstAtLeast(rule.threshold()), rule);
+        }
+
+        // Index of the first rule whose threshold is >= threshold
+        int firstAtLeast(double threshold) {
+            int low = 0;
+            int high = rules.size();
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (rules.get(middle).threshold() < threshold) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+
+    // An input's value in the city's previous report and in this one
+    private static final class Change {
+        private final Double previous;
+        private final double value;
+
+        Change(Double previous, double value) {
+            this.previous = previous;
+            this.value = value;
+        }
+
+        boolean unchanged() {
+            return previous != null && Double.compare(previous, value) == 0;
+        }
+
+        // Only rules with a threshold between the two values can flip; without a numeric
+        // previous value, or when the window is no longer covered, every rule is tested
+        boolean bounded() {
+            return previous != null && !Double.isNaN(previous) && !Double.isNaN(value);
+        }
+    }
+
+    private String key(String city) {
+        return WeatherCache.normalizeKey(canonical.apply(city.trim()));
+    }
+
+    private static final class CityState {
+        // The value each input had in the city's last report
+        private final Map<AlertRule.Input, Double> values = new HashMap<>();
+        private final Map<AlertRule, Alert> active = new LinkedHashMap<>();
+    }
+
+    // What one evaluate call changed
+    public static final class Update {
+        private final List<Alert> triggered = new ArrayList<>();
+        private final List<Alert> cleared = new ArrayList<>();
+        private int inputs;
+        private int tested;
+
+        public List<Alert> triggered() {
+            return triggered;
+        }
+
+        public List<Alert> cleared() {
+            return cleared;
+        }
+
+        public boolean isEmpty() {
+            return triggered.isEmpty() && cleared.isEmpty();
+        }
+
+        // Distinct inputs extracted from the report
+        public int inputs() {
+            return inputs;
+        }
+
+        // Rules compared, i.e. those a changed input could flip
+        public int tested() {
+            return tested;
+        }
+    }
+}
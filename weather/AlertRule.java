@@ -0,0 +1,374 @@
+package weather;
+
+import java.util.Locale;
+import java.util.Objects;
+import java.util.function.DoublePredicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A user-defined alert, parsed once from text such as "rain chance > 70%
+ * in the next 6h", "temp_c < 0 tomorrow", "UV ≥ 8" or, for one city only,
+ * "Oslo: wind > 50".
+ *
+ * Parsing compiles the rule into an Input (what to read from a report and
+ * whether its minimum or maximum over the window counts) and a predicate
+ * on that one number. A rule fires if any hour or day in its window
+ * matches; without a window it looks at the current conditions, or at the
+ * next 24 hours for metrics only forecasts have.
+ */
+public final class AlertRule {
+    private static final Pattern RULE = Pattern.compile(
+        "(?:([^:]+):)?\\s*([a-z_ ]+?)\\s*(>=|<=|>|<)\\s*(-?\\d+(?:\\.\\d+)?)\\s*(%|°c|°|c|kph|km/h|km|mm)?\\s*(.*)");
+    private static final Pattern NEXT_HOURS = Pattern.compile(
+        "(?:in\\s+)?(?:the\\s+)?(?:next|within)\\s+(\\d+)\\s*h(?:ours?|rs?)?");
+    private static final Pattern IN_DAYS = Pattern.compile("in\\s+(\\d+)\\s+days?");
+    private static final int MAX_HOURS = 14 * 24;
+
+    public enum Field {
+        TEMP_C("temp_c", "°C", true, true, true),
+        FEELSLIKE_C("feelslike_c", "°C", true, false, false),
+        HUMIDITY("humidity", "%", true, false, false),
+        WIND_KPH("wind_kph", " km/h", true, false, false),
+        UV("uv", "", true, false, true),
+        VIS_KM("vis_km", " km", true, false, false),
+        PRECIP_MM("precip_mm", " mm", true, false, false),
+        CHANCE_OF_RAIN("chance_of_rain", "%", false, true, true);
+
+        private final String column;
+        private final String unit;
+        private final boolean current;
+        private final boolean hourly;
+        private final boolean daily;
+
+        Field(String column, String unit, boolean current, boolean hourly, boolean daily) {
+            this.column = column;
+            this.unit = unit;
+            this.current = current;
+            this.hourly = hourly;
+            this.daily = daily;
+        }
+
+        public String column() {
+            return column;
+        }
+
+        public String unit() {
+            return unit;
+        }
+
+        static Field parse(String name) {
+            switch (name.replace(' ', '_')) {
+                case "temp": case "temp_c": case "temperature":
+                    return TEMP_C;
+                case "feels_like": case "feelslike": case "feelslike_c":
+                    return FEELSLIKE_C;
+                case "humidity":
+                    return HUMIDITY;
+                case "wind": case "wind_kph": case "wind_speed":
+                    return WIND_KPH;
+                case "uv": case "uv_index":
+                    return UV;
+                case "vis_km": case "visibility":
+                    return VIS_KM;
+                case "precip_mm": case "precip": case "precipitation":
+                    return PRECIP_MM;
+                case "rain": case "rain_chance": case "chance_of_rain":
+                    return CHANCE_OF_RAIN;
+                default:
+                    throw new IllegalArgumentException("Unknown metric \"" + name
+                        + "\"; use temp_c, feelslike_c, humidity, wind_kph, uv, vis_km, precip_mm or rain chance");
+            }
+        }
+    }
+
+    private final String text;
+    private final String city;
+    private final Input input;
+    private final String operator;
+    private final double threshold;
+    private final DoublePredicate predicate;
+
+    private AlertRule(String text, String city, Input input, String operator, double threshold) {
+        this.text = text;
+        this.city = city;
+        this.input = input;
+        this.operator = operator;
+        this.threshold = threshold;
+        this.predicate = compile(operator, threshold);
+    }
+
+    // Throws IllegalArgumentException with a message fit for the user if the text is not a rule
+    public static AlertRule parse(String text) {
+        String clean = text.trim();
+        String lower = clean.toLowerCase(Locale.ROOT).replace("≥", ">=").replace("≤", "<=");
+        Matcher matcher = RULE.matcher(lower);
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Expected a rule like \"rain chance > 70% in the next 6h\", "
+                + "\"temp_c < 0 tomorrow\" or \"Oslo: uv >= 8\"");
+        }
+        String city = matcher.group(1) != null ? WeatherCache.normalizeKey(matcher.group(1)) : null;
+        Field field = Field.parse(matcher.group(2).trim());
+        String unit = matcher.group(5) != null ? unit(matcher.group(5)) : field.unit;
+        if (!unit.equals(field.unit)) {
+            throw new IllegalArgumentException(field.column + (field.unit.isEmpty()
+                ? " has no unit; leave out \"" + matcher.group(5) + "\""
+                : " is measured in " + field.unit.trim() + ", not " + unit.trim()));
+        }
+        String operator = matcher.group(3);
+        double threshold = Double.parseDouble(matcher.group(4));
+        // Above a threshold, the window's highest value decides; below one, its lowest
+        boolean max = operator.startsWith(">");
+        Input input = parseWindow(field, max, matcher.group(6).trim());
+        return new AlertRule(clean, city, input, operator, threshold);
+    }
+
+    // The Field.unit a unit as typed stands for
+    private static String unit(String typed) {
+        switch (typed) {
+            case "%":
+                return "%";
+            case "kph": case "km/h":
+                return " km/h";
+            case "km":
+                return " km";
+            case "mm":
+                return " mm";
+            default:
+                return "°C";
+        }
+    }
+
+    private static Input parseWindow(Field field, boolean max, String window) {
+        if (window.isEmpty()) {
+            return field.current ? new Input(field, Input.NOW, 0, max) : new Input(field, Input.HOURS, 24, max);
+        }
+        if (window.equals("now")) {
+            if (!field.current) {
+                throw new IllegalArgumentException(field.column + " is only forecast; use e.g. \"in the next 6h\" or \"today\"");
+            }
+            return new Input(field, Input.NOW, 0, max);
+        }
+        Matcher hours = NEXT_HOURS.matcher(window);
+        if (hours.matches()) {
+            int count = Integer.parseInt(hours.group(1));
+            if (!field.hourly) {
+                throw new IllegalArgumentException(field.column + " is not forecast by the hour; use \"now\", \"today\" or \"tomorrow\"");
+            }
+            if (count < 1 || count > MAX_HOURS) {
+                throw new IllegalArgumentException("The window must be 1 to " + MAX_HOURS + " hours");
+            }
+            return new Input(field, Input.HOURS, count, max);
+        }
+        int day;
+        Matcher days = IN_DAYS.matcher(window);
+        if (window.equals("today")) {
+            day = 0;
+        } else if (window.equals("tomorrow")) {
+            day = 1;
+        } else if (days.matches()) {
+            day = Integer.parseInt(days.group(1));
+        } else {
+            throw new IllegalArgumentException("Unknown window \"" + window
+                + "\"; use \"now\", \"in the next 6h\", \"today\", \"tomorrow\" or \"in 3 days\"");
+        }
+        if (!field.daily) {
+            throw new IllegalArgumentException(field.column + " is not forecast per day; use \"now\"");
+        }
+        if (day > 13) {
+            throw new IllegalArgumentException("Forecasts reach 13 days ahead at most");
+        }
+        return new Input(field, Input.DAY, day, max);
+    }
+
+    private static DoublePredicate compile(String operator, double threshold) {
+        switch (operator) {
+            case ">":
+                return value -> value > threshold;
+            case ">=":
+                return value -> value >= threshold;
+            case "<":
+                return value -> value < threshold;
+            default:
+                return value -> value <= threshold;
+        }
+    }
+
+    // As entered
+    public String text() {
+        return text;
+    }
+
+    // Normalized city the rule is limited to, or null if it applies to every city
+    public String city() {
+        return city;
+    }
+
+    public Input input() {
+        return input;
+    }
+
+    public double threshold() {
+        return threshold;
+    }
+
+    // False for NaN, i.e. when the report does not cover the window
+    public boolean test(double value) {
+        return predicate.test(value);
+    }
+
+    // The same rule written differently, e.g. "UV ≥ 8" and "uv >= 8 now", compares equal
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof AlertRule)) {
+            return false;
+        }
+        AlertRule rule = (AlertRule) other;
+        return Objects.equals(city, rule.city) && input.equals(rule.input)
+            && operator.equals(rule.operator) && Double.compare(threshold, rule.threshold) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(city, input, operator, threshold);
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+
+    /**
+     * The single number a rule is tested against: a field's minimum or
+     * maximum over a window. Rules with equal inputs share one extraction
+     * per report, and are only tested again once that number changes.
+     */
+    public static final class Input {
+        static final int NOW = 0;
+        static final int HOURS = 1;
+        static final int DAY = 2;
+
+        private interface Extractor {
+            double extract(WeatherReport report, long nowEpochSecond);
+        }
+
+        private final Field field;
+        private final int window;
+        private final int size;
+        private final boolean max;
+        private final Extractor extractor;
+
+        Input(Field field, int window, int size, boolean max) {
+            this.field = field;
+            this.window = window;
+            this.size = size;
+            this.max = max;
+            this.extractor = window == NOW ? current(field)
+                : window == HOURS ? hourly(field, size, max)
+                : daily(field, size, max);
+        }
+
+        public Field field() {
+            return field;
+        }
+
+        // The value to test, or NaN if the report does not cover the window
+        public double extract(WeatherReport report, long nowEpochSecond) {
+            if (window == NOW && report.current() == null) {
+                return Double.NaN;
+            }
+            return extractor.extract(report, nowEpochSecond);
+        }
+
+        // E.g. "now", "next 6h", "tomorrow"
+        public String window() {
+            switch (window) {
+                case NOW:
+                    return "now";
+                case HOURS:
+                    return "next " + size + "h";
+                default:
+                    return size == 0 ? "today" : size == 1 ? "tomorrow" : "in " + size + " days";
+            }
+        }
+
+        private static Extractor current(Field field) {
+            switch (field) {
+                case TEMP_C:
+                    return (report, now) -> report.current().tempC();
+                case FEELSLIKE_C:
+                    return (report, now) -> report.current().feelsLikeC();
+                case HUMIDITY:
+                    return (report, now) -> report.current().humidity();
+                case WIND_KPH:
+                    return (report, now) -> report.current().windKph();
+                case UV:
+                    return (report, now) -> report.current().uv();
+                case VIS_KM:
+                    return (report, now) -> report.current().visKm();
+                default:
+                    return (report, now) -> report.current().precipMm();
+            }
+        }
+
+        // Hours that have started by now + hours; the current hour included. Only the days the window touches are decoded
+        private static Extractor hourly(Field field, int hours, boolean max) {
+            boolean temp = field == Field.TEMP_C;
+            return (report, now) -> {
+                long from = now - 3600;
+                long to = now + hours * 3600L;
+                double result = Double.NaN;
+                for (ForecastDay day : report.days()) {
+                    // dateEpoch is the date's UTC midnight; a day away either side covers every UTC offset
+                    if (day.dateEpoch() - 86_400 >= to) {
+                        break;
+                    }
+                    if (day.dateEpoch() + 2 * 86_400 <= from) {
+                        continue;
+                    }
+                    HourlySeries series = day.hours();
+                    for (int i = 0; i < series.size(); i++) {
+                        long hour = series.epochSecond(i);
+                        if (hour > from && hour < to) {
+                            double value = temp ? series.tempC(i) : series.chanceOfRain(i);
+                            result = Double.isNaN(result) ? value : max ? Math.max(result, value) : Math.min(result, value);
+                        }
+                    }
+                }
+                return result;
+            };
+        }
+
+        // Day 0 is the city's today, the first forecast day
+        private static Extractor daily(Field field, int day, boolean max) {
+            return (report, now) -> {
+                if (day >= report.days().size()) {
+                    return Double.NaN;
+                }
+                ForecastDay forecast = report.days().get(day);
+                switch (field) {
+                    case TEMP_C:
+                        return max ? forecast.maxTempC() : forecast.minTempC();
+                    case UV:
+                        return forecast.uv();
+                    default:
+                        return forecast.chanceOfRain();
+                }
+            };
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Input)) {
+                return false;
+            }
+            Input input = (Input) other;
+            return field == input.field && window == input.window && size == input.size && max == input.max;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(field, window, size, max);
+        }
+    }
+}
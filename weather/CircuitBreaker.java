@@ -0,0 +1,71 @@
+package weather;
+
+/**
+ * Consecutive-failure circuit breaker. After the threshold of unhealthy
+ * failures in a row it opens and rejects calls for the open period, then lets
+ * a single probe through; the probe's outcome closes or re-opens it. Bad
+ * requests count as healthy answers, cancellations do not count at all.
+ */
+public final class CircuitBreaker {
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openNanos;
+
+    // Guarded by this
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probeInFlight;
+
+    public CircuitBreaker(int failureThreshold, long openMillis) {
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openMillis * 1_000_000;
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    // Throws instead of letting the call through while open
+    public synchronized void acquire() throws CircuitOpenException {
+        switch (state) {
+            case CLOSED:
+                return;
+            case OPEN:
+                long waited = System.nanoTime() - openedAt;
+                if (waited < openNanos) {
+                    throw new CircuitOpenException((openNanos - waited) / 1_000_000);
+                }
+                state = State.HALF_OPEN;
+                probeInFlight = true;
+                return;
+            default:
+                if (probeInFlight) {
+                    throw new CircuitOpenException(0);
+                }
+                probeInFlight = true;
+        }
+    }
+
+    public synchronized void record(FailureKind failure) {
+        if (failure == null || !failure.unhealthy()) {
+            if (failure != FailureKind.CANCELLED && failure != FailureKind.CIRCUIT_OPEN) {
+                consecutiveFailures = 0;
+                state = State.CLOSED;
+            }
+            probeInFlight = false;
+            return;
+        }
+
+        consecutiveFailures++;
+        probeInFlight = false;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            if (state == State.CLOSED) {
+                WeatherMetrics.global().recordCircuitOpened();
+            }
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+        }
+    }
+}
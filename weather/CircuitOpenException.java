@@ -0,0 +1,19 @@
+package weather;
+
+import java.io.IOException;
+
+// Thrown without calling upstream while the circuit breaker considers it unhealthy
+public class CircuitOpenException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfterMillis;
+
+    public CircuitOpenException(long retryAfterMillis) {
+        super("Weather service unavailable, retrying in " + Math.max(1, retryAfterMillis / 1000) + " s");
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    public long retryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
@@ -0,0 +1,199 @@
+package weather;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * City autocomplete and query canonicalization.
+ *
+ * local() answers from memory only (favorites, the bundled gazetteer and
+ * earlier search.json results), so it is cheap enough to run on every
+ * keystroke on the EDT. remote() asks search.json once typing pauses; each
+ * call cancels the previous one, and answers are cached per prefix.
+ * resolve() maps any known spelling of a place to its "lat,lon" query so
+ * caches see one key per city.
+ */
+public final class CitySuggester {
+    private static final String GAZETTEER = "cities.tsv";
+    private static final int MIN_REMOTE_LENGTH = 3;
+    private static final int MAX_CACHED_PREFIXES = 256;
+    private static final int MAX_LEARNED = 1024;
+    private static final Pattern COORDINATES = Pattern.compile("\\s*-?\\d+(\\.\\d+)?\\s*,\\s*-?\\d+(\\.\\d+)?\\s*");
+
+    private final WeatherProvider provider;
+    private final long debounceMillis;
+    private final PlaceIndex gazetteer;
+    private final ScheduledExecutorService timer;
+    private volatile PlaceIndex favorites = new PlaceIndex(new ArrayList<>());
+
+    // Folded prefix -> search.json answer
+    private final Map<String, List<Place>> remoteCache = Collections.synchronizedMap(
+        new LinkedHashMap<String, List<Place>>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<Place>> eldest) {
+                return size() > MAX_CACHED_PREFIXES;
+            }
+        });
+
+    // Folded label -> place, for every place search.json has returned
+    private final Map<String, Place> learned = new ConcurrentHashMap<>();
+
+    // Folded favorite name -> its place in the favorites index; only used on the suggest thread
+    private final Map<String, Place> favoritePlaces = new HashMap<>();
+
+    // Guarded by this
+    private CompletableFuture<List<Place>> pendingRemote;
+
+    public CitySuggester(WeatherProvider provider, Duration debounce) {
+        this.provider = provider;
+        this.debounceMillis = debounce.toMillis();
+        this.gazetteer = loadGazetteer();
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "weather-suggest");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Favorites are suggested first; those the gazetteer knows carry its coordinates.
+    // The index is rebuilt on the suggest thread, so long favorites lists do not hold up the caller
+    public void setFavorites(Collection<String> names) {
+        List<String> snapshot = new ArrayList<>(names);
+        timer.execute(() -> {
+            List<Place> places = new ArrayList<>(snapshot.size());
+            favoritePlaces.clear();
+            for (String name : snapshot) {
+                places.add(favoritePlace(name));
+            }
+            favorites = new PlaceIndex(places);
+        });
+    }
+
+    // Updates the index in place, after any setFavorites still pending, so single edits cost the same on any list
+    public void addFavorite(String name) {
+        timer.execute(() -> favorites.add(favoritePlace(name)));
+    }
+
+    public void removeFavorite(String name) {
+        timer.execute(() -> {
+            Place place = favoritePlaces.remove(PlaceIndex.fold(name));
+            if (place != null) {
+                favorites.remove(place);
+            }
+        });
+    }
+
+    public List<Place> local(String text, int limit) {
+        String key = PlaceIndex.fold(text);
+        List<Place> matches = new ArrayList<>(favorites.search(key, limit));
+        // Results for a shorter prefix already narrow down as the user keeps typing
+        for (int length = key.length(); length >= MIN_REMOTE_LENGTH; length--) {
+            List<Place> cached = remoteCache.get(key.substring(0, length));
+            if (cached != null) {
+                for (Place place : cached) {
+                    if (PlaceIndex.fold(place.name()).startsWith(key) || PlaceIndex.fold(place.label()).startsWith(key)) {
+                        matches.add(place);
+                    }
+                }
+                break;
+            }
+        }
+        matches.addAll(gazetteer.search(key, limit));
+        return PlaceIndex.distinct(matches, limit);
+    }
+
+    // search.json after the debounce delay; superseded calls are cancelled, and short prefixes are never sent
+    public CompletableFuture<List<Place>> remote(String text) {
+        String key = PlaceIndex.fold(text);
+        synchronized (this) {
+            cancel();
+            if (key.length() < MIN_REMOTE_LENGTH) {
+                return CompletableFuture.completedFuture(Collections.emptyList());
+            }
+            List<Place> cached = remoteCache.get(key);
+            if (cached != null) {
+                return CompletableFuture.completedFuture(cached);
+            }
+
+            CompletableFuture<List<Place>> result = new CompletableFuture<>();
+            ScheduledFuture<?> debounce = timer.schedule(() -> {
+                if (result.isDone()) {
+                    return;
+                }
+                CompletableFuture<List<Place>> request = provider.search(key);
+                Futures.propagateCancel(result, request);
+                request.whenComplete((places, error) -> {
+                    if (error != null) {
+                        result.completeExceptionally(Futures.unwrap(error));
+                        return;
+                    }
+                    remoteCache.put(key, places);
+                    for (Place place : places) {
+                        if (learned.size() < MAX_LEARNED) {
+                            learned.put(PlaceIndex.fold(place.label()), place);
+                        }
+                    }
+                    result.complete(places);
+                });
+            }, debounceMillis, TimeUnit.MILLISECONDS);
+            result.whenComplete((places, error) -> debounce.cancel(false));
+            pendingRemote = result;
+            return result;
+        }
+    }
+
+    // Drops a pending remote() call, e.g. once the user has picked a suggestion or searched
+    public synchronized void cancel() {
+        if (pendingRemote != null) {
+            pendingRemote.cancel(true);
+            pendingRemote = null;
+        }
+    }
+
+    // The "lat,lon" query for a known place name or label; anything else is passed through unchanged
+    public String resolve(String text) {
+        if (COORDINATES.matcher(text).matches()) {
+            return text;
+        }
+        Place place = find(text);
+        return place != null ? place.query() : text;
+    }
+
+    // Remembered, so removeFavorite takes out the place that was added even if find() now answers differently
+    private Place favoritePlace(String name) {
+        Place known = find(name);
+        Place place = known != null ? known : Place.named(name);
+        favoritePlaces.put(PlaceIndex.fold(name), place);
+        return place;
+    }
+
+    private Place find(String text) {
+        Place place = learned.get(PlaceIndex.fold(text));
+        return place != null ? place : gazetteer.find(text);
+    }
+
+    private static PlaceIndex loadGazetteer() {
+        try (InputStream in = CitySuggester.class.getResourceAsStream(GAZETTEER)) {
+            return in != null ? PlaceIndex.read(in) : PlaceIndex.EMPTY;
+        } catch (IOException e) {
+            // Suggestions then only come from favorites and search.json
+            System.err.println("Error reading city gazetteer: " + e.getMessage());
+            return PlaceIndex.EMPTY;
+        }
+    }
+}
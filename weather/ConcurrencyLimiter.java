@@ -0,0 +1,52 @@
+package weather;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking permit pool: acquire() returns a future that completes once a
+ * slot is free. A waiter that gives up cancels its future and is skipped.
+ */
+public final class ConcurrencyLimiter {
+    private final ArrayDeque<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+
+    // Guarded by this
+    private int available;
+
+    public ConcurrencyLimiter(int permits) {
+        this.available = permits;
+    }
+
+    public CompletableFuture<Void> acquire() {
+        synchronized (this) {
+            if (available > 0) {
+                available--;
+                return CompletableFuture.completedFuture(null);
+            }
+            CompletableFuture<Void> waiter = new CompletableFuture<>();
+            waiters.add(waiter);
+            return waiter;
+        }
+    }
+
+    // Give back the slot held by a permit future, or withdraw it if it never got one
+    public void release(CompletableFuture<Void> permit) {
+        if (permit.cancel(false)) {
+            return;
+        }
+        while (true) {
+            CompletableFuture<Void> next;
+            synchronized (this) {
+                next = waiters.poll();
+                if (next == null) {
+                    available++;
+                    return;
+                }
+            }
+            // Completed outside the lock; cancelled waiters refuse it and we try the next one
+            if (next.complete(null)) {
+                return;
+            }
+        }
+    }
+}
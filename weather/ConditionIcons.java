@@ -0,0 +1,123 @@
+package weather;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps WeatherAPI condition codes (1000-1282) to an icon with one array
+ * lookup. Condition text is only matched when a code is missing or unknown,
+ * and those results are memoized.
+ */
+public final class ConditionIcons {
+    private static final int FIRST_CODE = 1000;
+    private static final int LAST_CODE = 1282;
+    private static final int MAX_MEMOIZED = 256;
+
+    private static final String SUN = "☀️";
+    private static final String PARTLY_CLOUDY = "⛅";
+    private static final String CLOUD = "☁️";
+    private static final String SHOWERS = "🌦️";
+    private static final String HEAVY_RAIN = "🌧️";
+    private static final String THUNDER = "⛈️";
+    private static final String SNOW = "🌨️";
+    private static final String FOG = "🌫️";
+    private static final String WIND = "💨";
+    private static final String NIGHT = "🌙";
+    private static final String DEFAULT = "🌤️";
+
+    private static final String[] BY_CODE = new String[LAST_CODE - FIRST_CODE + 1];
+
+    // Fallback matches; capped rather than evicted since the set of texts is small in practice
+    private static final Map<String, String> BY_TEXT = new ConcurrentHashMap<>();
+
+    static {
+        code(SUN, 1000);
+        code(PARTLY_CLOUDY, 1003);
+        code(CLOUD, 1006, 1009);
+        code(FOG, 1030, 1135, 1147);
+        code(SHOWERS, 1063, 1072, 1150, 1153, 1168, 1180, 1183, 1186, 1189, 1198, 1240);
+        code(HEAVY_RAIN, 1171, 1192, 1195, 1201, 1243, 1246);
+        code(SNOW, 1066, 1069, 1114, 1117, 1204, 1207, 1210, 1213, 1216, 1219, 1222, 1225,
+            1237, 1249, 1252, 1255, 1258, 1261, 1264);
+        code(THUNDER, 1087, 1273, 1276, 1279, 1282);
+    }
+
+    private ConditionIcons() {
+    }
+
+    public static String forCode(int code, String text) {
+        if (code >= FIRST_CODE && code <= LAST_CODE) {
+            String icon = BY_CODE[code - FIRST_CODE];
+            if (icon != null) {
+                return icon;
+            }
+        }
+        return forText(text);
+    }
+
+    public static String forText(String text) {
+        String icon = BY_TEXT.get(text);
+        if (icon == null) {
+            icon = match(text);
+            if (BY_TEXT.size() < MAX_MEMOIZED) {
+                BY_TEXT.put(text, icon);
+            }
+        }
+        return icon;
+    }
+
+    private static void code(String icon, int... codes) {
+        for (int code : codes) {
+            BY_CODE[code - FIRST_CODE] = icon;
+        }
+    }
+
+    private static String match(String condition) {
+        String lower = condition.toLowerCase(Locale.ROOT);
+
+        // Thunder first: "Moderate or heavy rain with thunder" also mentions rain
+        if (lower.contains("thunder") || lower.contains("storm")) {
+            return THUNDER;
+        }
+        // Sunny/Clear
+        else if (lower.contains("sunny") || lower.contains("clear")) {
+            return SUN;
+        }
+        // Partly cloudy
+        else if (lower.contains("partly cloudy")) {
+            return PARTLY_CLOUDY;
+        }
+        // Cloudy/Overcast
+        else if (lower.contains("cloudy") || lower.contains("overcast")) {
+            return CLOUD;
+        }
+        // Rain
+        else if (lower.contains("rain") || lower.contains("drizzle")) {
+            if (lower.contains("heavy") || lower.contains("torrential")) {
+                return HEAVY_RAIN;
+            }
+            return SHOWERS;
+        }
+        // Snow, sleet and ice
+        else if (lower.contains("snow") || lower.contains("blizzard") || lower.contains("sleet") || lower.contains("ice")) {
+            return SNOW;
+        }
+        // Fog/Mist
+        else if (lower.contains("fog") || lower.contains("mist") || lower.contains("haze")) {
+            return FOG;
+        }
+        // Wind
+        else if (lower.contains("wind")) {
+            return WIND;
+        }
+        // Night
+        else if (lower.contains("night")) {
+            return NIGHT;
+        }
+        // Default
+        else {
+            return DEFAULT;
+        }
+    }
+}
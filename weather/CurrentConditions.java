@@ -0,0 +1,76 @@
+package weather;
+
+// Current block of a WeatherAPI response
+public final class CurrentConditions {
+    private final long lastUpdatedEpoch;
+    private final double tempC;
+    private final double feelsLikeC;
+    private final String conditionText;
+    private final int conditionCode;
+    private final int humidity;
+    private final double windKph;
+    private final double precipMm;
+    private final double visKm;
+    private final double uv;
+    private final boolean isDay;
+
+    public CurrentConditions(long lastUpdatedEpoch, double tempC, double feelsLikeC,
+                             String conditionText, int conditionCode, int humidity,
+                             double windKph, double precipMm, double visKm, double uv, boolean isDay) {
+        this.lastUpdatedEpoch = lastUpdatedEpoch;
+        this.tempC = tempC;
+        this.feelsLikeC = feelsLikeC;
+        this.conditionText = conditionText;
+        this.conditionCode = conditionCode;
+        this.humidity = humidity;
+        this.windKph = windKph;
+        this.precipMm = precipMm;
+        this.visKm = visKm;
+        this.uv = uv;
+        this.isDay = isDay;
+    }
+
+    public long lastUpdatedEpoch() {
+        return lastUpdatedEpoch;
+    }
+
+    public double tempC() {
+        return tempC;
+    }
+
+    public double feelsLikeC() {
+        return feelsLikeC;
+    }
+
+    public String conditionText() {
+        return conditionText;
+    }
+
+    public int conditionCode() {
+        return conditionCode;
+    }
+
+    public int humidity() {
+        return humidity;
+    }
+
+    public double windKph() {
+        return windKph;
+    }
+
+    public double precipMm() {
+        return precipMm;
+    }
+
+    public double visKm() {
+        return visKm;
+    }
+
+    public double uv() {
+        return uv;
+    }
+
+    public boolean isDay() {
+        return isDay;
+    }
+}
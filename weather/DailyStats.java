@@ -0,0 +1,41 @@
+package weather;
+
+import java.time.LocalDate;
+
+// One local calendar day of a TimeSeries: min, max and mean of its samples
+public final class DailyStats {
+    private final LocalDate date;
+    private final double min;
+    private final double max;
+    private final double avg;
+    private final int count;
+
+    public DailyStats(LocalDate date, double min, double max, double avg, int count) {
+        this.date = date;
+        this.min = min;
+        this.max = max;
+        this.avg = avg;
+        this.count = count;
+    }
+
+    public LocalDate date() {
+        return date;
+    }
+
+    public double min() {
+        return min;
+    }
+
+    public double max() {
+        return max;
+    }
+
+    public double avg() {
+        return avg;
+    }
+
+    // Number of samples the day was computed from
+    public int count() {
+        return count;
+    }
+}
@@ -0,0 +1,33 @@
+package weather;
+
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+
+/**
+ * Overall time budget for one fetch. Each stage asks for its own slice, which
+ * is capped by whatever is left, so a slow connect eats into the body budget
+ * instead of every stage getting a fresh timeout.
+ */
+public final class Deadline {
+    private final long deadlineNanos;
+
+    private Deadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    public static Deadline after(Duration budget) {
+        return new Deadline(System.nanoTime() + budget.toNanos());
+    }
+
+    public Duration remaining() {
+        return Duration.ofNanos(Math.max(0, deadlineNanos - System.nanoTime()));
+    }
+
+    public Duration stage(Duration stageBudget) throws HttpTimeoutException {
+        Duration remaining = remaining();
+        if (remaining.isZero()) {
+            throw new HttpTimeoutException("Deadline exceeded");
+        }
+        return remaining.compareTo(stageBudget) < 0 ? remaining : stageBudget;
+    }
+}
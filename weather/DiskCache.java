@@ -0,0 +1,118 @@
+package weather;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Last successful report per city, persisted as one small binary file each so
+ * the UI can paint immediately on startup or when offline. Files are written
+ * to a temp name and renamed, so a crash never leaves a half-written entry.
+ */
+public final class DiskCache {
+    private final Path directory;
+
+    public DiskCache(Path directory) {
+        this.directory = directory;
+    }
+
+    public Snapshot load(String query) {
+        String key = WeatherCache.normalizeKey(query);
+        Path file = fileFor(key);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            // The key is stored too, so a file-name hash collision reads as a miss
+            if (!in.readUTF().equals(key)) {
+                return null;
+            }
+            long savedAt = in.readLong();
+            return new Snapshot(ReportCodec.read(in), savedAt);
+        } catch (IOException e) {
+            System.err.println("Error reading cached forecast: " + e.getMessage());
+            return null;
+        }
+    }
+
+    public void save(String query, WeatherReport report) {
+        String key = WeatherCache.normalizeKey(query);
+        try {
+            writeAtomically(fileFor(key), "entry", stream -> {
+                DataOutputStream out = new DataOutputStream(stream);
+                out.writeUTF(key);
+                out.writeLong(System.currentTimeMillis());
+                ReportCodec.write(out, report);
+            });
+        } catch (IOException e) {
+            System.err.println("Error saving cached forecast: " + e.getMessage());
+        }
+    }
+
+    interface Contents {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    // Writes a temp file next to file and renames it over file, so a crash leaves the old file or the new one.
+    // The temp file is deleted if anything fails
+    static void writeAtomically(Path file, String tempPrefix, Contents contents) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, tempPrefix, ".tmp");
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+                contents.writeTo(out);
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException | RuntimeException e) {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+    }
+
+    private Path fileFor(String key) {
+        String readable = key.replaceAll("[^a-z0-9.,-]", "_");
+        if (readable.length() > 48) {
+            readable = readable.substring(0, 48);
+        }
+        return directory.resolve(readable + "-" + Integer.toHexString(key.hashCode()) + ".bin");
+    }
+
+    public static final class Snapshot {
+        private final WeatherReport report;
+        private final long savedAtMillis;
+
+        Snapshot(WeatherReport report, long savedAtMillis) {
+            this.report = report;
+            this.savedAtMillis = savedAtMillis;
+        }
+
+        public WeatherReport report() {
+            return report;
+        }
+
+        public long savedAtMillis() {
+            return savedAtMillis;
+        }
+
+        public String ageText() {
+            return WeatherFormatter.age(savedAtMillis);
+        }
+    }
+}
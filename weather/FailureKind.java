@@ -0,0 +1,66 @@
+package weather;
+
+import java.io.IOException;
+import java.net.http.HttpTimeoutException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeoutException;
+
+// What went wrong with an upstream call, which decides whether it is retried and whether it counts against upstream health
+public enum FailureKind {
+    TIMEOUT(true, true),
+    // The request itself is wrong (unknown city, bad key): retrying cannot help, and upstream did answer
+    BAD_REQUEST(false, false),
+    RATE_LIMITED(true, true),
+    SERVER(true, true),
+    NETWORK(true, true),
+    // Upstream answered with a body that does not parse, or handling it failed; a retry would get the same
+    BAD_RESPONSE(false, false),
+    CIRCUIT_OPEN(false, false),
+    CANCELLED(false, false);
+
+    // WeatherAPI reports its own internal errors as HTTP 400 with this code
+    private static final int INTERNAL_ERROR_CODE = 9999;
+
+    private final boolean retryable;
+    private final boolean unhealthy;
+
+    FailureKind(boolean retryable, boolean unhealthy) {
+        this.retryable = retryable;
+        this.unhealthy = unhealthy;
+    }
+
+    public boolean retryable() {
+        return retryable;
+    }
+
+    public boolean unhealthy() {
+        return unhealthy;
+    }
+
+    public static FailureKind classify(Throwable error) {
+        Throwable cause = Futures.unwrap(error);
+        if (cause instanceof CancellationException) {
+            return CANCELLED;
+        }
+        if (cause instanceof CircuitOpenException) {
+            return CIRCUIT_OPEN;
+        }
+        if (cause instanceof HttpTimeoutException || cause instanceof TimeoutException) {
+            return TIMEOUT;
+        }
+        if (cause instanceof WeatherApiException) {
+            WeatherApiException apiError = (WeatherApiException) cause;
+            if (apiError.statusCode() == 429) {
+                return RATE_LIMITED;
+            }
+            if (apiError.statusCode() >= 500 || apiError.errorCode() == INTERNAL_ERROR_CODE) {
+                return SERVER;
+            }
+            return BAD_REQUEST;
+        }
+        if (cause instanceof MalformedJsonException || !(cause instanceof IOException)) {
+            return BAD_RESPONSE;
+        }
+        return NETWORK;
+    }
+}
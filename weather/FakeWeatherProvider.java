@@ -0,0 +1,95 @@
+package weather;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * In-process provider that makes up plausible reports without touching the
+ * network or the JSON parser. The same query always yields the same report,
+ * anchored at a fixed date, so render and cache benchmarks are reproducible.
+ */
+public final class FakeWeatherProvider implements WeatherProvider {
+    private static final long START_EPOCH = 1_700_006_400L; // 2023-11-15T00:00Z
+    private static final int[] CONDITION_CODES = {1000, 1003, 1006, 1009, 1063, 1183, 1195, 1273, 1213, 1135};
+    private static final String[] CONDITION_TEXTS = {
+        "Sunny", "Partly cloudy", "Cloudy", "Overcast", "Patchy rain nearby", "Light rain",
+        "Heavy rain", "Patchy light rain with thunder", "Light snow", "Fog"
+    };
+
+    private final long latencyNanos;
+
+    public FakeWeatherProvider(Duration latency) {
+        this.latencyNanos = latency.toNanos();
+    }
+
+    @Override
+    public CompletableFuture<WeatherReport> current(String query) {
+        return respond(() -> generate(query, 0));
+    }
+
+    @Override
+    public CompletableFuture<WeatherReport> forecast(String query, int days) {
+        return respond(() -> generate(query, days));
+    }
+
+    private CompletableFuture<WeatherReport> respond(Supplier<WeatherReport> report) {
+        if (latencyNanos <= 0) {
+            return CompletableFuture.completedFuture(report.get());
+        }
+        return CompletableFuture.supplyAsync(report, CompletableFuture.delayedExecutor(latencyNanos, TimeUnit.NANOSECONDS));
+    }
+
+    public static WeatherReport generate(String query, int days) {
+        String name = query.trim();
+        Random random = new Random(WeatherCache.normalizeKey(name).hashCode());
+        double lat = Math.round((random.nextDouble() * 140 - 70) * 100) / 100.0;
+        double lon = Math.round((random.nextDouble() * 360 - 180) * 100) / 100.0;
+        double baseTemp = 25 - Math.abs(lat) / 2;
+
+        Location location = new Location(name, "", "Fakeland", "UTC",
+            "2023-11-15 12:00", START_EPOCH + 12 * 3600, lat, lon);
+        int currentCondition = random.nextInt(CONDITION_CODES.length);
+        double currentTemp = round1(baseTemp + random.nextGaussian() * 3);
+        CurrentConditions current = new CurrentConditions(START_EPOCH + 11 * 3600 + 45 * 60, currentTemp,
+            round1(currentTemp - random.nextDouble() * 3), CONDITION_TEXTS[currentCondition], CONDITION_CODES[currentCondition],
+            40 + random.nextInt(60), round1(random.nextDouble() * 40), round1(random.nextDouble() * 5),
+            10, round1(random.nextDouble() * 8), true);
+
+        List<ForecastDay> forecast = new ArrayList<>(days);
+        for (int d = 0; d < days; d++) {
+            long dayEpoch = START_EPOCH + d * 86_400L;
+            double dayBase = baseTemp + random.nextGaussian() * 2;
+            HourlySeries.Builder hours = new HourlySeries.Builder();
+            double min = Double.MAX_VALUE;
+            double max = -Double.MAX_VALUE;
+            int maxRain = 0;
+            int dominant = random.nextInt(CONDITION_CODES.length);
+            for (int h = 0; h < 24; h++) {
+                // Coldest just before dawn, warmest mid-afternoon
+                double temp = round1(dayBase + 5 * Math.sin((h - 9) * Math.PI / 12) + random.nextGaussian());
+                int condition = random.nextInt(4) == 0 ? random.nextInt(CONDITION_CODES.length) : dominant;
+                int rain = CONDITION_CODES[condition] >= 1063 && CONDITION_CODES[condition] != 1135 ? 30 + random.nextInt(70) : random.nextInt(10);
+                hours.add(dayEpoch + h * 3600L, temp, rain, CONDITION_CODES[condition], CONDITION_TEXTS[condition]);
+                min = Math.min(min, temp);
+                max = Math.max(max, temp);
+                maxRain = Math.max(maxRain, rain);
+            }
+            String date = LocalDate.ofInstant(Instant.ofEpochSecond(dayEpoch), ZoneOffset.UTC).toString();
+            forecast.add(new ForecastDay(date, dayEpoch, max, min, CONDITION_TEXTS[dominant], CONDITION_CODES[dominant],
+                maxRain, round1(random.nextDouble() * 8), hours.build()));
+        }
+        return new WeatherReport(location, current, forecast);
+    }
+
+    private static double round1(double value) {
+        return Math.round(value * 10) / 10.0;
+    }
+}
@@ -0,0 +1,52 @@
+package weather;
+
+// A saved city: the name as entered, its canonical id, and what was learned about it since
+public final class Favorite {
+    private final String id;
+    private final String name;
+    private final long order;
+    private final double lat;
+    private final double lon;
+    private final long lastFetchedMillis;
+
+    public Favorite(String id, String name, long order, double lat, double lon, long lastFetchedMillis) {
+        this.id = id;
+        this.name = name;
+        this.order = order;
+        this.lat = lat;
+        this.lon = lon;
+        this.lastFetchedMillis = lastFetchedMillis;
+    }
+
+    // Normalized canonical query, e.g. "51.52,-0.11" for a city the gazetteer knows; unique per store
+    public String id() {
+        return id;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    // Position in the favorites list; increases with every add
+    public long order() {
+        return order;
+    }
+
+    // NaN until a report for the city has been fetched
+    public double lat() {
+        return lat;
+    }
+
+    public double lon() {
+        return lon;
+    }
+
+    // Epoch millis of the last successful fetch, 0 if never
+    public long lastFetchedMillis() {
+        return lastFetchedMillis;
+    }
+
+    public Favorite withFetch(double lat, double lon, long fetchedMillis) {
+        return new Favorite(id, name, order, lat, lon, fetchedMillis);
+    }
+}
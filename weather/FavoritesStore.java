@@ -0,0 +1,340 @@
+package weather;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+/**
+ * Favorite cities, kept in memory by canonical id and persisted as an
+ * append-only journal.
+ *
+ * Every edit is applied to a hash map at once (so lookups and dedupe are
+ * O(1) on the EDT) and queued as one journal line; a single writer thread
+ * appends the queued lines in batches. Once the journal holds more than
+ * twice as many records as needed, the writer rewrites it as a minimal
+ * snapshot in a temp file and renames that over the old one. Replaying a
+ * journal is idempotent, and a torn last line is skipped.
+ *
+ * Records are tab-separated: "+ id name order" adds, "- id" removes and
+ * "@ id lat lon millis" records a fetch.
+ */
+public final class FavoritesStore implements Closeable {
+    private static final String HEADER = "# weather favorites journal 1";
+    private static final int MIN_COMPACT_RECORDS = 256;
+
+    private final Path journal;
+    private final UnaryOperator<String> canonical;
+    private final ExecutorService writer;
+
+    // Guarded by this
+    private final Map<String, Favorite> favorites = new LinkedHashMap<>();
+    // Normalized name -> id, so a favorite is found by its saved name even if the name resolves differently now
+    private final Map<String, String> ids = new HashMap<>();
+    private final StringBuilder pending = new StringBuilder();
+    private boolean flushScheduled;
+    private boolean compactNext;
+    private int records;
+    private long nextOrder;
+    private Writer out;
+
+    private FavoritesStore(Path journal, UnaryOperator<String> canonical) {
+        this.journal = journal;
+        this.canonical = canonical;
+        this.writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "weather-favorites");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Loads the journal, or imports a legacy one-city-per-line file (left
+     * untouched) when there is no journal yet. canonical maps a name to the
+     * query it stands for, e.g. CitySuggester::resolve, so different
+     * spellings of one city dedupe to one favorite.
+     */
+    public static FavoritesStore open(Path journal, Path legacy, UnaryOperator<String> canonical) {
+        FavoritesStore store = new FavoritesStore(journal, canonical);
+        try (BufferedReader reader = Files.newBufferedReader(journal, StandardCharsets.UTF_8)) {
+            store.replay(reader);
+        } catch (NoSuchFileException e) {
+            if (legacy != null) {
+                store.importLegacy(legacy);
+            }
+        } catch (IOException e) {
+            System.err.println("Error loading favorites: " + e.getMessage());
+        }
+        return store;
+    }
+
+    // True if the file starts like a journal written by this class
+    public static boolean isJournal(Path file) {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return HEADER.equals(reader.readLine());
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public synchronized int size() {
+        return favorites.size();
+    }
+
+    public synchronized boolean isEmpty() {
+        return favorites.isEmpty();
+    }
+
+    public synchronized boolean contains(String name) {
+        return favorites.containsKey(idOf(name));
+    }
+
+    public synchronized List<String> names() {
+        List<String> names = new ArrayList<>(favorites.size());
+        for (Favorite favorite : favorites.values()) {
+            names.add(favorite.name());
+        }
+        return names;
+    }
+
+    // False if the city, under any spelling that resolves the same way, is already a favorite
+    public synchronized boolean add(String name) {
+        String clean = name.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ').trim();
+        String id = idOf(clean);
+        if (clean.isEmpty() || favorites.containsKey(id)) {
+            return false;
+        }
+        long order = nextOrder++;
+        put(new Favorite(id, clean, order, Double.NaN, Double.NaN, 0));
+        append("+\t" + id + "\t" + clean + "\t" + order);
+        return true;
+    }
+
+    public synchronized boolean remove(String name) {
+        String id = idOf(name);
+        Favorite removed = favorites.remove(id);
+        if (removed == null) {
+            return false;
+        }
+        ids.remove(WeatherCache.normalizeKey(removed.name()));
+        append("-\t" + id);
+        return true;
+    }
+
+    // Remembers where the city is and when it was last fetched; ignored for cities that are not favorites
+    public synchronized void markFetched(String name, WeatherReport report) {
+        String id = idOf(name);
+        Favorite favorite = favorites.get(id);
+        if (favorite == null) {
+            return;
+        }
+        Favorite fetched = favorite.withFetch(report.location().lat(), report.location().lon(), System.currentTimeMillis());
+        favorites.put(id, fetched);
+        append(fetchRecord(fetched));
+    }
+
+    // Writes whatever is still queued and stops the writer; used on shutdown
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (writer.isShutdown()) {
+                return;
+            }
+            writer.execute(this::flush);
+            writer.shutdown();
+        }
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            closeJournal();
+        }
+    }
+
+    private String idOf(String name) {
+        String id = ids.get(WeatherCache.normalizeKey(name));
+        return id != null ? id : WeatherCache.normalizeKey(canonical.apply(name.trim()));
+    }
+
+    private void put(Favorite favorite) {
+        favorites.put(favorite.id(), favorite);
+        ids.put(WeatherCache.normalizeKey(favorite.name()), favorite.id());
+    }
+
+    // Queues one journal line and makes sure a flush is coming
+    private void append(String record) {
+        pending.append(record).append('\n');
+        records++;
+        if (!flushScheduled && !writer.isShutdown()) {
+            flushScheduled = true;
+            writer.execute(this::flush);
+        }
+    }
+
+    // Runs on the writer thread only, so journal IO is never concurrent
+    private void flush() {
+        String lines = null;
+        StringBuilder snapshot = null;
+        synchronized (this) {
+            flushScheduled = false;
+            if (compactNext || records > Math.max(MIN_COMPACT_RECORDS, 2 * favorites.size())) {
+                snapshot = new StringBuilder(HEADER).append('\n');
+                compactNext = false;
+                records = 0;
+                for (Favorite favorite : favorites.values()) {
+                    snapshot.append("+\t").append(favorite.id()).append('\t').append(favorite.name())
+                        .append('\t').append(favorite.order()).append('\n');
+                    records++;
+                    if (favorite.lastFetchedMillis() > 0) {
+                        snapshot.append(fetchRecord(favorite)).append('\n');
+                        records++;
+                    }
+                }
+            } else if (pending.length() > 0) {
+                lines = pending.toString();
+            }
+            pending.setLength(0);
+        }
+
+        try {
+            if (snapshot != null) {
+                compact(snapshot);
+            } else if (lines != null) {
+                journalWriter().write(lines);
+                out.flush();
+            }
+        } catch (IOException e) {
+            System.err.println("Error saving favorites: " + e.getMessage());
+            closeJournal();
+            // The lost lines are recovered by rewriting everything on the next flush
+            synchronized (this) {
+                compactNext = true;
+            }
+        }
+    }
+
+    // Snapshot to a temp file, then an atomic rename, so a crash leaves either the old journal or the new one
+    private void compact(CharSequence snapshot) throws IOException {
+        closeJournal();
+        DiskCache.writeAtomically(journal, "favorites", out -> {
+            Writer compacted = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            compacted.append(snapshot);
+            compacted.flush();
+        });
+    }
+
+    private Writer journalWriter() throws IOException {
+        if (out == null) {
+            boolean fresh = Files.notExists(journal) || Files.size(journal) == 0;
+            boolean torn = !fresh && !endsWithNewline();
+            out = Files.newBufferedWriter(journal, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            if (fresh) {
+                out.write(HEADER + "\n");
+            } else if (torn) {
+                // Ends the half-written line a crash left behind, so the next record stays readable
+                out.write("\n");
+            }
+        }
+        return out;
+    }
+
+    private boolean endsWithNewline() throws IOException {
+        try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.READ)) {
+            ByteBuffer last = ByteBuffer.allocate(1);
+            channel.read(last, channel.size() - 1);
+            return last.get(0) == '\n';
+        }
+    }
+
+    private void closeJournal() {
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException e) {
+                System.err.println("Error closing favorites journal: " + e.getMessage());
+            }
+            out = null;
+        }
+    }
+
+    private synchronized void replay(BufferedReader reader) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            records++;
+            String[] fields = line.split("\t", -1);
+            try {
+                switch (fields[0]) {
+                    case "+":
+                        long order = Long.parseLong(fields[3]);
+                        if (!favorites.containsKey(fields[1])) {
+                            put(new Favorite(fields[1], fields[2], order, Double.NaN, Double.NaN, 0));
+                        }
+                        nextOrder = Math.max(nextOrder, order + 1);
+                        break;
+                    case "-":
+                        Favorite removed = favorites.remove(fields[1]);
+                        if (removed != null) {
+                            ids.remove(WeatherCache.normalizeKey(removed.name()));
+                        }
+                        break;
+                    case "@":
+                        Favorite favorite = favorites.get(fields[1]);
+                        if (favorite != null) {
+                            favorites.put(fields[1], favorite.withFetch(Double.parseDouble(fields[2]),
+                                Double.parseDouble(fields[3]), Long.parseLong(fields[4])));
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            } catch (RuntimeException e) {
+                // A line cut short by a crash mid-append; everything before it is intact
+                System.err.println("Error in favorites journal, skipping: " + line);
+            }
+        }
+    }
+
+    private void importLegacy(Path legacy) {
+        try (BufferedReader reader = Files.newBufferedReader(legacy, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.trim().isEmpty()) {
+                    add(line);
+                }
+            }
+        } catch (NoSuchFileException e) {
+            // Nothing saved yet
+        } catch (IOException e) {
+            System.err.println("Error importing favorites: " + e.getMessage());
+        }
+    }
+
+    private static String fetchRecord(Favorite favorite) {
+        return String.format(Locale.ROOT, "@\t%s\t%.4f\t%.4f\t%d",
+            favorite.id(), favorite.lat(), favorite.lon(), favorite.lastFetchedMillis());
+    }
+}
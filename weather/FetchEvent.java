@@ -0,0 +1,52 @@
+package weather;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event for one upstream request, from queueing for a slot to the parsed
+ * report. Recorded with e.g. java -XX:StartFlightRecording ... and shown
+ * under "Weather" in JDK Mission Control.
+ */
+@Name("weather.Fetch")
+@Label("Weather Fetch")
+@Category("Weather")
+@Description("One WeatherAPI request with its per-stage timings")
+final class FetchEvent extends jdk.jfr.Event {
+    @Label("Endpoint")
+    String endpoint;
+
+    @Label("Query")
+    String query;
+
+    @Label("HTTP Status")
+    int status;
+
+    @Label("Outcome")
+    @Description("ok, timeout, cancelled or the failure's exception class")
+    String outcome;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    @Label("Queued")
+    @Timespan(Timespan.NANOSECONDS)
+    long queueNanos;
+
+    @Label("Connect and First Byte")
+    @Timespan(Timespan.NANOSECONDS)
+    long headersNanos;
+
+    @Label("Body Transfer")
+    @Timespan(Timespan.NANOSECONDS)
+    long bodyNanos;
+
+    @Label("Parse")
+    @Timespan(Timespan.NANOSECONDS)
+    long parseNanos;
+}
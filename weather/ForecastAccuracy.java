@@ -0,0 +1,271 @@
+package weather;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.UnaryOperator;
+
+/**
+ * Forecast accuracy per city and lead time, from what HistoryStore
+ * recorded: every forecast hour is joined with the observation closest to
+ * it (at most half an hour off), and the errors are summed per lead day.
+ * Day+1 covers the first 24 hours after the forecast was issued.
+ *
+ * Only sums are kept, plus a watermark per city: the last hour already
+ * joined. An update reads just the hours after it, so years of history
+ * are read once in total. Sums and watermarks are saved to a small state
+ * file after each update. Cities are updated in parallel on the common
+ * fork/join pool; each reads its own series.
+ */
+public final class ForecastAccuracy {
+    public static final int MAX_LEAD_DAYS = 7;
+
+    private static final String MAGIC = "WXA1";
+    // An hour is joined once its observations are in; they are published within minutes
+    private static final long SETTLE_SECONDS = 3600;
+    private static final long MATCH_SECONDS = 1800;
+    // History read per step, so a first update over years of data stays small in memory
+    private static final long CHUNK_SECONDS = 30 * 86_400L;
+    private static final int CITIES_PER_TASK = 4;
+
+    private final HistoryStore history;
+    private final Path stateFile;
+    private final UnaryOperator<String> canonical;
+
+    // Guarded by this; loaded by the first update, so construction does no IO
+    private Map<String, CityState> states;
+
+    /**
+     * canonical maps a city name to the query it was recorded under, e.g.
+     * CitySuggester::resolve, as WeatherService does before recording.
+     */
+    public ForecastAccuracy(HistoryStore history, Path stateFile, UnaryOperator<String> canonical) {
+        this.history = history;
+        this.stateFile = stateFile;
+        this.canonical = canonical;
+    }
+
+    // Joins whatever was recorded for the cities since the last update and reports on them
+    public CompletableFuture<AccuracyReport> update(List<String> cities) {
+        return CompletableFuture.supplyAsync(() -> update(cities, System.currentTimeMillis() / 1000),
+            ForkJoinPool.commonPool());
+    }
+
+    // Updates run one at a time; the cities within one run in parallel
+    public synchronized AccuracyReport update(List<String> cities, long nowEpochSecond) {
+        long start = System.nanoTime();
+        if (states == null) {
+            states = load();
+        }
+        // Spellings that resolve the same way share one state and one row
+        Map<String, String> names = new LinkedHashMap<>();
+        for (String city : cities) {
+            names.putIfAbsent(WeatherCache.normalizeKey(canonical.apply(city.trim())), city);
+        }
+        List<CityState> work = new ArrayList<>(names.size());
+        for (String key : names.keySet()) {
+            work.add(states.computeIfAbsent(key, CityState::new));
+        }
+
+        long settled = nowEpochSecond - SETTLE_SECONDS;
+        ForkJoinPool.commonPool().invoke(new UpdateTask(work, 0, work.size(), settled - settled % 3600));
+        save();
+
+        List<AccuracyReport.Row> rows = new ArrayList<>();
+        long samples = 0;
+        for (CityState state : work) {
+            String city = names.get(state.key);
+            for (int lead = 1; lead <= MAX_LEAD_DAYS; lead++) {
+                ErrorSums temp = state.temp[lead];
+                ErrorSums rain = state.rain[lead];
+                if (temp.count == 0 && rain.count == 0) {
+                    continue;
+                }
+                rows.add(new AccuracyReport.Row(city, lead, temp.count, temp.bias(), temp.mae(),
+                    rain.count, rain.bias(), rain.mae()));
+                samples += temp.count;
+            }
+        }
+        return new AccuracyReport(rows, samples, (System.nanoTime() - start) / 1e6);
+    }
+
+    private final class UpdateTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final List<CityState> states;
+        private final int from;
+        private final int to;
+        private final long until;
+
+        UpdateTask(List<CityState> states, int from, int to, long until) {
+            this.states = states;
+            this.from = from;
+            this.to = to;
+            this.until = until;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= CITIES_PER_TASK) {
+                for (int i = from; i < to; i++) {
+                    states.get(i).advance(until);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new UpdateTask(states, from, middle, until), new UpdateTask(states, middle, to, until));
+        }
+    }
+
+    // Error sums of one city; touched by one fork/join task at a time
+    private final class CityState {
+        private final String key;
+        // Last hour joined, or Long.MIN_VALUE before anything was recorded
+        private long watermark = Long.MIN_VALUE;
+        // Indexed by lead day; index 0 is unused
+        private final ErrorSums[] temp = newSums();
+        private final ErrorSums[] rain = newSums();
+
+        CityState(String key) {
+            this.key = key;
+        }
+
+        void advance(long until) {
+            long from = watermark != Long.MIN_VALUE
+                ? watermark + 1
+                : history.firstEpochSecond(key, HistoryMetric.FORECAST_TEMP_C);
+            if (from == Long.MAX_VALUE || from > until) {
+                return;
+            }
+            for (long start = from; start <= until; start += CHUNK_SECONDS) {
+                join(start, Math.min(until, start + CHUNK_SECONDS - 1));
+            }
+            watermark = until;
+        }
+
+        private void join(long from, long to) {
+            TimeSeries observedTemp = history.read(key, HistoryMetric.TEMP_C, from - MATCH_SECONDS, to + MATCH_SECONDS);
+            if (observedTemp.isEmpty()) {
+                // Nothing observed, e.g. the app was not running; there is nothing to compare with
+                return;
+            }
+            TimeSeries observedRain = history.read(key, HistoryMetric.PRECIP_MM, from - MATCH_SECONDS, to + MATCH_SECONDS);
+            accumulate(history.read(key, HistoryMetric.FORECAST_TEMP_C, from, to), observedTemp, temp, false);
+            accumulate(history.read(key, HistoryMetric.CHANCE_OF_RAIN, from, to), observedRain, rain, true);
+        }
+    }
+
+    private static void accumulate(TimeSeries forecast, TimeSeries observed, ErrorSums[] sums, boolean rain) {
+        for (int i = 0; i < forecast.size(); i++) {
+            long target = forecast.epochSecond(i);
+            // The hour the forecast was issued in counts as day+1 too
+            int lead = (int) (Math.max(0, target - forecast.issuedEpochSecond(i)) / 86_400) + 1;
+            if (lead > MAX_LEAD_DAYS) {
+                continue;
+            }
+            int match = observed.nearest(target, MATCH_SECONDS);
+            if (match < 0) {
+                continue;
+            }
+            double actual = rain ? (observed.value(match) > 0 ? 100 : 0) : observed.value(match);
+            sums[lead].add(forecast.value(i) - actual);
+        }
+    }
+
+    private static ErrorSums[] newSums() {
+        ErrorSums[] sums = new ErrorSums[MAX_LEAD_DAYS + 1];
+        for (int i = 0; i < sums.length; i++) {
+            sums[i] = new ErrorSums();
+        }
+        return sums;
+    }
+
+    private static final class ErrorSums {
+        private long count;
+        private double sum;
+        private double absoluteSum;
+
+        void add(double error) {
+            count++;
+            sum += error;
+            absoluteSum += Math.abs(error);
+        }
+
+        double bias() {
+            return count > 0 ? sum / count : Double.NaN;
+        }
+
+        double mae() {
+            return count > 0 ? absoluteSum / count : Double.NaN;
+        }
+
+        void read(DataInputStream in) throws IOException {
+            count = in.readLong();
+            sum = in.readDouble();
+            absoluteSum = in.readDouble();
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeLong(count);
+            out.writeDouble(sum);
+            out.writeDouble(absoluteSum);
+        }
+    }
+
+    private Map<String, CityState> load() {
+        Map<String, CityState> loaded = new HashMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(stateFile)))) {
+            if (!in.readUTF().equals(MAGIC)) {
+                throw new IOException("unknown format");
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                CityState state = new CityState(in.readUTF());
+                state.watermark = in.readLong();
+                for (int lead = 1; lead <= MAX_LEAD_DAYS; lead++) {
+                    state.temp[lead].read(in);
+                    state.rain[lead].read(in);
+                }
+                loaded.put(state.key, state);
+            }
+        } catch (NoSuchFileException e) {
+            // First update; everything recorded so far is read once
+        } catch (IOException e) {
+            System.err.println("Error loading forecast accuracy, starting over: " + e.getMessage());
+            loaded.clear();
+        }
+        return loaded;
+    }
+
+    // A crash leaves the old state or the new one
+    private void save() {
+        try {
+            DiskCache.writeAtomically(stateFile, "accuracy", stream -> {
+                DataOutputStream out = new DataOutputStream(stream);
+                out.writeUTF(MAGIC);
+                out.writeInt(states.size());
+                for (CityState state : states.values()) {
+                    out.writeUTF(state.key);
+                    out.writeLong(state.watermark);
+                    for (int lead = 1; lead <= MAX_LEAD_DAYS; lead++) {
+                        state.temp[lead].write(out);
+                        state.rain[lead].write(out);
+                    }
+                }
+            });
+        } catch (IOException e) {
+            System.err.println("Error saving forecast accuracy: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package weather;
+
+/**
+ * One entry of forecast.forecastday, including its hourly breakdown.
+ *
+ * Days built by WeatherJsonParser keep their "hour" array as JSON cut down
+ * to the members the app reads (about a sixth of the original) and decode
+ * it on the first hours() call, so a 14-day response only pays for the
+ * days that are actually looked at.
+ */
+public final class ForecastDay {
+    private final String date;
+    private final long dateEpoch;
+    private final double maxTempC;
+    private final double minTempC;
+    private final String conditionText;
+    private final int conditionCode;
+    private final int chanceOfRain;
+    private final double uv;
+    private final int hourCount;
+    private volatile HourlySeries hours;
+
+    // Guarded by this; null once decoded
+    private JsonReader.RawValue rawHours;
+
+    public ForecastDay(String date, long dateEpoch, double maxTempC, double minTempC,
+                       String conditionText, int conditionCode, int chanceOfRain, double uv,
+                       HourlySeries hours) {
+        this.date = date;
+        this.dateEpoch = dateEpoch;
+        this.maxTempC = maxTempC;
+        this.minTempC = minTempC;
+        this.conditionText = conditionText;
+        this.conditionCode = conditionCode;
+        this.chanceOfRain = chanceOfRain;
+        this.uv = uv;
+        this.hourCount = hours.size();
+        this.hours = hours;
+    }
+
+    ForecastDay(String date, long dateEpoch, double maxTempC, double minTempC,
+                String conditionText, int conditionCode, int chanceOfRain, double uv,
+                JsonReader.RawValue rawHours) {
+        this.date = date;
+        this.dateEpoch = dateEpoch;
+        this.maxTempC = maxTempC;
+        this.minTempC = minTempC;
+        this.conditionText = conditionText;
+        this.conditionCode = conditionCode;
+        this.chanceOfRain = chanceOfRain;
+        this.uv = uv;
+        this.hourCount = rawHours.elements();
+        this.rawHours = rawHours;
+    }
+
+    public String date() {
+        return date;
+    }
+
+    public long dateEpoch() {
+        return dateEpoch;
+    }
+
+    public double maxTempC() {
+        return maxTempC;
+    }
+
+    public double minTempC() {
+        return minTempC;
+    }
+
+    public String conditionText() {
+        return conditionText;
+    }
+
+    public int conditionCode() {
+        return conditionCode;
+    }
+
+    public int chanceOfRain() {
+        return chanceOfRain;
+    }
+
+    public double uv() {
+        return uv;
+    }
+
+    public HourlySeries hours() {
+        HourlySeries decoded = hours;
+        if (decoded == null) {
+            synchronized (this) {
+                decoded = hours;
+                if (decoded == null) {
+                    decoded = WeatherJsonParser.parseHours(rawHours);
+                    hours = decoded;
+                    rawHours = null;
+                }
+            }
+        }
+        return decoded;
+    }
+
+    // Number of hourly entries, known without decoding them
+    public int hourCount() {
+        return hourCount;
+    }
+
+    // The still undecoded "hour" array, or null; lets ReportCodec store it as is
+    synchronized JsonReader.RawValue rawHours() {
+        return rawHours;
+    }
+}
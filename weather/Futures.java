@@ -0,0 +1,32 @@
+package weather;
+
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+// Small CompletableFuture helpers shared by the fetch pipeline
+public final class Futures {
+    private Futures() {
+    }
+
+    // CompletableFuture does not cancel upstream stages on its own; wire it explicitly
+    public static <T> CompletableFuture<T> propagateCancel(CompletableFuture<T> dependent, CompletableFuture<?>... upstream) {
+        dependent.whenComplete((value, error) -> {
+            if (dependent.isCancelled()) {
+                for (CompletableFuture<?> future : upstream) {
+                    future.cancel(true);
+                }
+            }
+        });
+        return dependent;
+    }
+
+    public static Throwable unwrap(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException
+                || error instanceof UncheckedIOException) && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+}
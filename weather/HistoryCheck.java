@@ -0,0 +1,141 @@
+package weather;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Self-check of the history format: SeriesBlock encode/decode round trips
+ * and a HistoryStore reload after a torn write. There is no test runner in
+ * this build, so run it after any change to SeriesBlock or HistoryStore:
+ *
+ *   java -cp target/classes weather.HistoryCheck
+ *
+ * Exits with an AssertionError on the first mismatch.
+ */
+final class HistoryCheck {
+    private static final long START = 1_700_006_400L; // 2023-11-15T00:00Z
+
+    private HistoryCheck() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        roundTrip();
+        reloadAfterTornWrite();
+        System.out.println("History checks passed");
+    }
+
+    // Irregular gaps, out-of-order points and extreme values must all decode to what was encoded
+    private static void roundTrip() {
+        long[] epochSeconds = {START, START + 3600, START + 7200, START + 7260, START + 90_000, START + 30,
+            START + 90_000 + 86_400 * 365L};
+        int[] values = {215, -40, -40, Integer.MAX_VALUE, Integer.MIN_VALUE, 0, 1};
+        int count = epochSeconds.length;
+        long issued = START - 600;
+
+        ByteBuffer block = SeriesBlock.encode(epochSeconds, values, count, issued);
+        int length = block.remaining();
+        check(SeriesBlock.length(block, 0) == length, "length header");
+        check(SeriesBlock.count(block, 0) == count, "count header");
+        check(SeriesBlock.minTs(block, 0) == START, "minTs header");
+        check(SeriesBlock.maxTs(block, 0) == epochSeconds[count - 1], "maxTs header");
+        check(SeriesBlock.issued(block, 0) == issued, "issued header");
+        check(SeriesBlock.valid(block, 0, length), "whole block is valid");
+        check(!SeriesBlock.valid(block, 0, length - 1), "cut-off block is invalid");
+
+        List<long[]> points = decode(block, 0, Long.MIN_VALUE, Long.MAX_VALUE);
+        check(points.size() == count, "decoded " + points.size() + " of " + count + " points");
+        for (int i = 0; i < count; i++) {
+            long[] point = points.get(i);
+            check(point[0] == epochSeconds[i] && point[1] == values[i] && point[2] == issued,
+                "point " + i + " decoded as " + point[0] + "=" + point[1] + " issued " + point[2]);
+        }
+
+        // Same block behind another one, with a range that keeps only the middle points
+        ByteBuffer segment = ByteBuffer.allocate(length + 16);
+        segment.position(16);
+        segment.put(block.duplicate());
+        List<long[]> ranged = decode(segment, 16, START + 3600, START + 7260);
+        check(ranged.size() == 3 && ranged.get(0)[0] == START + 3600 && ranged.get(2)[0] == START + 7260,
+            "range decoded " + ranged.size() + " points");
+    }
+
+    // A block cut off at the end of a segment is dropped on load, and the next write replaces it
+    private static void reloadAfterTornWrite() throws IOException {
+        Path directory = Files.createTempDirectory("history-check");
+        try {
+            HistoryStore store = new HistoryStore(directory, Duration.ofHours(12));
+            for (int i = 0; i < 10; i++) {
+                store.record("Check", observation(START + i * 900L, 10 + i * 0.5));
+            }
+            store.close();
+            Path segment = segment(directory);
+            long whole = Files.size(segment);
+
+            // A second block that died halfway through its body
+            ByteBuffer torn = SeriesBlock.encode(new long[] {START + 10 * 900L}, new int[] {999}, 1, 0);
+            torn.limit(SeriesBlock.HEADER_BYTES + 1);
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.APPEND)) {
+                channel.write(torn);
+            }
+
+            store = new HistoryStore(directory, Duration.ofHours(12));
+            TimeSeries reloaded = store.read("Check", HistoryMetric.TEMP_C, Long.MIN_VALUE, Long.MAX_VALUE);
+            check(reloaded.size() == 10, "reloaded " + reloaded.size() + " of 10 points");
+            for (int i = 0; i < 10; i++) {
+                check(reloaded.epochSecond(i) == START + i * 900L && reloaded.value(i) == 10 + i * 0.5,
+                    "reloaded point " + i + " as " + reloaded.epochSecond(i) + "=" + reloaded.value(i));
+            }
+            store.record("Check", observation(START + 10 * 900L, 15.5));
+            store.close();
+            check(Files.size(segment) > whole && Files.size(segment) < whole + SeriesBlock.HEADER_BYTES,
+                "torn bytes left in the segment: " + Files.size(segment) + " bytes");
+
+            store = new HistoryStore(directory, Duration.ofHours(12));
+            TimeSeries appended = store.read("Check", HistoryMetric.TEMP_C, Long.MIN_VALUE, Long.MAX_VALUE);
+            store.close();
+            check(appended.size() == 11 && appended.epochSecond(10) == START + 10 * 900L && appended.value(10) == 15.5,
+                "appended after reload: " + appended.size() + " points");
+        } finally {
+            try (Stream<Path> paths = Files.walk(directory)) {
+                paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    private static List<long[]> decode(ByteBuffer buffer, int offset, long from, long to) {
+        List<long[]> points = new ArrayList<>();
+        SeriesBlock.decode(buffer, offset, from, to,
+            (epochSecond, value, issued) -> points.add(new long[] {epochSecond, value, issued}));
+        return points;
+    }
+
+    private static WeatherReport observation(long epochSecond, double tempC) {
+        CurrentConditions current = new CurrentConditions(epochSecond, tempC, tempC, "Sunny", 1000, 50,
+            10, 0, 10, 1, true);
+        return new WeatherReport(null, current, Collections.emptyList());
+    }
+
+    private static Path segment(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            return paths.filter(path -> path.getFileName().toString().equals("temp_c-000000.seg"))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("no temp_c segment written"));
+        }
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
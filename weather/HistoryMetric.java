@@ -0,0 +1,53 @@
+package weather;
+
+/**
+ * The series HistoryStore keeps per city. Observed metrics come from the
+ * current conditions of each fetch; forecast metrics from every hour of the
+ * forecast, tagged with when the forecast was issued.
+ *
+ * Values are stored as integers in units of 1/scale, e.g. tenths of a degree.
+ */
+public enum HistoryMetric {
+    TEMP_C("temp_c", "Temperature (°C)", 10, false),
+    HUMIDITY("humidity", "Humidity (%)", 1, false),
+    UV("uv", "UV index", 10, false),
+    VIS_KM("vis_km", "Visibility (km)", 10, false),
+    PRECIP_MM("precip_mm", "Precipitation (mm)", 100, false),
+    FORECAST_TEMP_C("forecast_temp_c", "Forecast temperature (°C)", 10, true),
+    CHANCE_OF_RAIN("chance_of_rain", "Chance of rain (%)", 1, true);
+
+    private final String column;
+    private final String label;
+    private final int scale;
+    private final boolean forecast;
+
+    HistoryMetric(String column, String label, int scale, boolean forecast) {
+        this.column = column;
+        this.label = label;
+        this.scale = scale;
+        this.forecast = forecast;
+    }
+
+    // File-name prefix of the metric's segments
+    public String column() {
+        return column;
+    }
+
+    public String label() {
+        return label;
+    }
+
+    public int scale() {
+        return scale;
+    }
+
+    // True if recorded from forecast hours rather than observations
+    public boolean isForecast() {
+        return forecast;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
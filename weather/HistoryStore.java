@@ -0,0 +1,563 @@
+package weather;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local time-series history of every fetch: one directory per city and,
+ * in it, append-only segment files per metric ("temp_c-000000.seg", ...)
+ * made of SeriesBlocks.
+ *
+ * Observations are collected into an open block of up to 256 points that
+ * is rewritten in place at the end of its segment whenever it is flushed
+ * (every few minutes and on close), so a regular series costs about two
+ * bytes a point. Each recorded forecast becomes a closed block of its own,
+ * stamped with its issue time. Segments are read through memory mappings,
+ * and an in-memory index of each block's time range lets range queries
+ * skip every block outside the range without touching it.
+ *
+ * All writes and all state live on one "weather-history" thread;
+ * record() only queues, range() completes from that thread and read()
+ * decodes the blocks it finds there on the caller's thread.
+ */
+public final class HistoryStore implements Closeable {
+    private static final int BLOCK_POINTS = 256;
+    private static final long SEGMENT_BYTES = 4L << 20;
+    private static final int MAX_OPEN_SERIES = 4096;
+    private static final long FLUSH_MINUTES = 5;
+    private static final long[] NO_POINTS = new long[0];
+    private static final int[] NO_VALUES = new int[0];
+
+    private final Path directory;
+    private final long forecastEverySeconds;
+    private final ScheduledExecutorService executor;
+
+    // Series whose index is loaded, least recently used first; history thread only
+    private final Map<String, Series> series = new LinkedHashMap<String, Series>(64, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Series> eldest) {
+            if (size() <= MAX_OPEN_SERIES) {
+                return false;
+            }
+            eldest.getValue().flush();
+            return true;
+        }
+    };
+
+    /**
+     * forecastEvery limits how often a city's forecast is recorded; hourly
+     * forecasts barely change between refreshes, and each recorded one costs
+     * a block per forecast metric.
+     */
+    public HistoryStore(Path directory, Duration forecastEvery) {
+        this.directory = directory;
+        this.forecastEverySeconds = forecastEvery.getSeconds();
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "weather-history");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::flushAll, FLUSH_MINUTES, FLUSH_MINUTES, TimeUnit.MINUTES);
+    }
+
+    public static HistoryStore fromSystemProperties() {
+        return new HistoryStore(Paths.get(System.getProperty("weather.history.dir", "weather_history")),
+            Duration.ofHours(Integer.getInteger("weather.history.forecastEvery", 12)));
+    }
+
+    public Path directory() {
+        return directory;
+    }
+
+    // Queues the report's observation and, if the city's last recorded one is old enough, its forecast hours
+    public void record(String city, WeatherReport report) {
+        long issued = System.currentTimeMillis() / 1000;
+        String key = WeatherCache.normalizeKey(city);
+        try {
+            executor.execute(() -> append(key, report, issued));
+        } catch (RejectedExecutionException e) {
+            // Closed; the app is shutting down
+        }
+    }
+
+    // Points with from <= epochSecond <= to, including ones not flushed yet
+    public CompletableFuture<TimeSeries> range(String city, HistoryMetric metric, long fromEpochSecond, long toEpochSecond) {
+        String key = WeatherCache.normalizeKey(city);
+        CompletableFuture<TimeSeries> result = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    result.complete(series(key, metric).capture(fromEpochSecond, toEpochSecond).decode());
+                } catch (RuntimeException e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.complete(TimeSeries.empty(metric));
+        }
+        return result;
+    }
+
+    /**
+     * Like range, but blocks and decodes on the calling thread; only the
+     * lookup of the blocks to read goes through the history thread, so
+     * several threads can read at once. Not for use on the history thread.
+     */
+    public TimeSeries read(String city, HistoryMetric metric, long fromEpochSecond, long toEpochSecond) {
+        String key = WeatherCache.normalizeKey(city);
+        Extent extent = onHistoryThread(() -> series(key, metric).capture(fromEpochSecond, toEpochSecond));
+        return extent != null ? extent.decode() : TimeSeries.empty(metric);
+    }
+
+    // Earliest recorded timestamp of the city's metric, or Long.MAX_VALUE if there is none
+    public long firstEpochSecond(String city, HistoryMetric metric) {
+        String key = WeatherCache.normalizeKey(city);
+        Long first = onHistoryThread(() -> series(key, metric).firstTs());
+        return first != null ? first : Long.MAX_VALUE;
+    }
+
+    // Writes the open blocks and stops the history thread; used on shutdown
+    @Override
+    public void close() {
+        if (executor.isShutdown()) {
+            return;
+        }
+        executor.execute(this::flushAll);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Runs the lookup on the history thread and waits for it; null once the store is closed
+    private <T> T onHistoryThread(Callable<T> lookup) {
+        try {
+            return executor.submit(lookup).get();
+        } catch (RejectedExecutionException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("History lookup failed", e.getCause());
+        }
+    }
+
+    private void append(String key, WeatherReport report, long issued) {
+        CurrentConditions current = report.current();
+        if (current != null && current.lastUpdatedEpoch() > 0) {
+            long observed = current.lastUpdatedEpoch();
+            series(key, HistoryMetric.TEMP_C).observe(observed, current.tempC());
+            series(key, HistoryMetric.HUMIDITY).observe(observed, current.humidity());
+            series(key, HistoryMetric.UV).observe(observed, current.uv());
+            series(key, HistoryMetric.VIS_KM).observe(observed, current.visKm());
+            series(key, HistoryMetric.PRECIP_MM).observe(observed, current.precipMm());
+        }
+
+        Series temps = series(key, HistoryMetric.FORECAST_TEMP_C);
+        if (report.days().isEmpty() || issued - temps.lastIssued < forecastEverySeconds) {
+            return;
+        }
+        int capacity = 0;
+        for (ForecastDay day : report.days()) {
+            capacity += day.hourCount();
+        }
+        long[] epochSeconds = new long[capacity];
+        int[] tempValues = new int[capacity];
+        int[] rainValues = new int[capacity];
+        int count = 0;
+        for (ForecastDay day : report.days()) {
+            // Decoded here without caching the result on the day, so recording does not grow the cached report
+            JsonReader.RawValue raw = day.rawHours();
+            HourlySeries hours = raw != null ? WeatherJsonParser.parseHours(raw) : day.hours();
+            for (int i = 0; i < hours.size() && count < capacity; i++) {
+                // Hours already past when the forecast was issued are not forecasts
+                if (hours.epochSecond(i) + 3600 <= issued) {
+                    continue;
+                }
+                epochSeconds[count] = hours.epochSecond(i);
+                tempValues[count] = scaled(HistoryMetric.FORECAST_TEMP_C, hours.tempC(i));
+                rainValues[count] = hours.chanceOfRain(i);
+                count++;
+            }
+        }
+        if (count > 0) {
+            temps.appendForecast(epochSeconds, tempValues, count, issued);
+            series(key, HistoryMetric.CHANCE_OF_RAIN).appendForecast(epochSeconds, rainValues, count, issued);
+        }
+    }
+
+    private Series series(String key, HistoryMetric metric) {
+        String seriesKey = key + "|" + metric.column();
+        Series loaded = series.get(seriesKey);
+        if (loaded == null) {
+            loaded = new Series(cityDirectory(key), metric);
+            loaded.load();
+            series.put(seriesKey, loaded);
+        }
+        return loaded;
+    }
+
+    private void flushAll() {
+        for (Series loaded : series.values()) {
+            loaded.flush();
+        }
+    }
+
+    // Same naming as DiskCache files: readable prefix plus the key's hash
+    private Path cityDirectory(String key) {
+        String readable = key.replaceAll("[^a-z0-9.,-]", "_");
+        if (readable.length() > 48) {
+            readable = readable.substring(0, 48);
+        }
+        return directory.resolve(readable + "-" + Integer.toHexString(key.hashCode()));
+    }
+
+    private static int scaled(HistoryMetric metric, double value) {
+        return (int) Math.round(value * metric.scale());
+    }
+
+    private static ByteBuffer map(Path file, long length) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+        } catch (IOException e) {
+            System.err.println("Error reading history: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * The blocks a query has to read, captured on the history thread. Blocks
+     * other than the open one are never written again, and segments only
+     * grow, so the blocks can then be decoded on any thread.
+     */
+    private static final class Extent {
+        private final HistoryMetric metric;
+        private final long from;
+        private final long to;
+        // Per block: its segment, the segment's length when captured and the block's offset
+        private final Path[] files;
+        private final long[] lengths;
+        private final int[] offsets;
+        private final long[] openTs;
+        private final int[] openValues;
+
+        Extent(HistoryMetric metric, long from, long to, Path[] files, long[] lengths, int[] offsets,
+               long[] openTs, int[] openValues) {
+            this.metric = metric;
+            this.from = from;
+            this.to = to;
+            this.files = files;
+            this.lengths = lengths;
+            this.offsets = offsets;
+            this.openTs = openTs;
+            this.openValues = openValues;
+        }
+
+        TimeSeries decode() {
+            TimeSeries.Builder result = new TimeSeries.Builder(metric);
+            ByteBuffer mapped = null;
+            for (int b = 0; b < files.length; b++) {
+                // Each segment is mapped once; a series' blocks are grouped by segment
+                if (b == 0 || !files[b].equals(files[b - 1])) {
+                    mapped = map(files[b], lengths[b]);
+                }
+                if (mapped != null) {
+                    SeriesBlock.decode(mapped, offsets[b], from, to, result);
+                }
+            }
+            for (int i = 0; i < openTs.length; i++) {
+                if (openTs[i] >= from && openTs[i] <= to) {
+                    result.accept(openTs[i], openValues[i], 0);
+                }
+            }
+            return result.build();
+        }
+    }
+
+    // One city's metric: its segments, the block index and the open block; history thread only
+    private static final class Series {
+        private final Path directory;
+        private final HistoryMetric metric;
+
+        // Segment files, oldest first, and how many bytes of each hold whole blocks
+        private final List<Path> segments = new ArrayList<>();
+        private long[] segmentLengths = new long[1];
+        // A torn block after the last segment's length, cut off before the next write
+        private boolean truncate;
+
+        // Where each block is and the time range it covers
+        private int blocks;
+        private int[] blockSegment = new int[16];
+        private int[] blockOffset = new int[16];
+        private long[] blockMinTs = new long[16];
+        private long[] blockMaxTs = new long[16];
+
+        private long lastTs = Long.MIN_VALUE;
+        private long lastIssued;
+
+        // Observations of the last, not yet full block; written at openOffset (or appended if -1)
+        // Allocated by the first observation, so forecast series and series only read stay small
+        private long[] openTs = NO_POINTS;
+        private int[] openValues = NO_VALUES;
+        private int openCount;
+        private int openOffset = -1;
+        private boolean dirty;
+
+        Series(Path directory, HistoryMetric metric) {
+            this.directory = directory;
+            this.metric = metric;
+        }
+
+        void observe(long epochSecond, double value) {
+            // Refetches within the same observation period repeat the last point
+            if (epochSecond <= lastTs) {
+                return;
+            }
+            allocateOpenBlock();
+            openTs[openCount] = epochSecond;
+            openValues[openCount] = scaled(metric, value);
+            openCount++;
+            lastTs = epochSecond;
+            dirty = true;
+            if (openCount == BLOCK_POINTS) {
+                flush();
+            }
+        }
+
+        void appendForecast(long[] epochSeconds, int[] values, int count, long issued) {
+            ByteBuffer block = SeriesBlock.encode(epochSeconds, values, count, issued);
+            if (write(block, -1)) {
+                lastIssued = issued;
+            }
+        }
+
+        private void allocateOpenBlock() {
+            if (openTs == NO_POINTS) {
+                openTs = new long[BLOCK_POINTS];
+                openValues = new int[BLOCK_POINTS];
+            }
+        }
+
+        // Writes the open block in place; once full, the next observation starts a new one
+        void flush() {
+            if (!dirty) {
+                return;
+            }
+            ByteBuffer block = SeriesBlock.encode(openTs, openValues, openCount, 0);
+            if (!write(block, openOffset)) {
+                return;
+            }
+            dirty = false;
+            if (openCount == BLOCK_POINTS) {
+                openCount = 0;
+                openOffset = -1;
+            } else {
+                openOffset = blockOffset[blocks - 1];
+            }
+        }
+
+        // Appends the block, or rewrites the last block of the last segment if offset >= 0
+        private boolean write(ByteBuffer block, int offset) {
+            int length = block.remaining();
+            try {
+                Files.createDirectories(directory);
+                boolean rewrite = offset >= 0;
+                if (!rewrite && (segments.isEmpty() || segmentLengths[segments.size() - 1] + length > SEGMENT_BYTES)) {
+                    addSegment(directory.resolve(String.format("%s-%06d.seg", metric.column(), segments.size())), 0);
+                }
+                int segment = segments.size() - 1;
+                int position = rewrite ? offset : (int) segmentLengths[segment];
+                try (FileChannel channel = FileChannel.open(segments.get(segment),
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                    if (truncate) {
+                        channel.truncate(segmentLengths[segment]);
+                        truncate = false;
+                    }
+                    // Body before header. A grown open block's body starts with the bytes of the old one,
+                    // so if the process dies in between, the old header still describes a whole block
+                    ByteBuffer body = block.duplicate();
+                    body.position(SeriesBlock.HEADER_BYTES);
+                    writeFully(channel, body, position + SeriesBlock.HEADER_BYTES);
+                    ByteBuffer header = block.duplicate();
+                    header.limit(SeriesBlock.HEADER_BYTES);
+                    writeFully(channel, header, position);
+                }
+                segmentLengths[segment] = position + length;
+                if (!rewrite) {
+                    addBlock(segment, position, block);
+                } else {
+                    blockMinTs[blocks - 1] = SeriesBlock.minTs(block, 0);
+                    blockMaxTs[blocks - 1] = SeriesBlock.maxTs(block, 0);
+                }
+                return true;
+            } catch (IOException e) {
+                System.err.println("Error saving history: " + e.getMessage());
+                // Whatever part of the block made it to disk is cut off before the next write
+                truncate = !segments.isEmpty();
+                return false;
+            }
+        }
+
+        private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+        }
+
+        private void addSegment(Path file, long length) {
+            if (segments.size() == segmentLengths.length) {
+                segmentLengths = Arrays.copyOf(segmentLengths, segments.size() * 2);
+            }
+            segmentLengths[segments.size()] = length;
+            segments.add(file);
+        }
+
+        private void addBlock(int segment, int offset, ByteBuffer buffer) {
+            if (blocks == blockSegment.length) {
+                int capacity = blocks * 2;
+                blockSegment = Arrays.copyOf(blockSegment, capacity);
+                blockOffset = Arrays.copyOf(blockOffset, capacity);
+                blockMinTs = Arrays.copyOf(blockMinTs, capacity);
+                blockMaxTs = Arrays.copyOf(blockMaxTs, capacity);
+            }
+            blockSegment[blocks] = segment;
+            blockOffset[blocks] = offset;
+            blockMinTs[blocks] = SeriesBlock.minTs(buffer, 0);
+            blockMaxTs[blocks] = SeriesBlock.maxTs(buffer, 0);
+            blocks++;
+        }
+
+        // Builds the block index from the segment headers, reopening a last observation block that is not full
+        void load() {
+            List<Path> files = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, metric.column() + "-*.seg")) {
+                for (Path file : stream) {
+                    files.add(file);
+                }
+            } catch (NoSuchFileException e) {
+                return;
+            } catch (IOException e) {
+                System.err.println("Error reading history: " + e.getMessage());
+                return;
+            }
+            // Zero-padded numbers, so name order is write order
+            Collections.sort(files);
+
+            for (int f = 0; f < files.size(); f++) {
+                Path file = files.get(f);
+                addSegment(file, 0);
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    int size = (int) channel.size();
+                    if (size == 0) {
+                        continue;
+                    }
+                    MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                    int offset = 0;
+                    while (SeriesBlock.valid(mapped, offset, size)) {
+                        addBlock(f, offset, sliceAt(mapped, offset));
+                        lastTs = Math.max(lastTs, SeriesBlock.maxTs(mapped, offset));
+                        lastIssued = Math.max(lastIssued, SeriesBlock.issued(mapped, offset));
+                        offset += SeriesBlock.length(mapped, offset);
+                    }
+                    segmentLengths[f] = offset;
+                    if (offset < size) {
+                        System.err.println("Error in history segment, ignoring " + (size - offset) + " bytes: " + file);
+                        truncate = f == files.size() - 1;
+                    }
+                } catch (IOException e) {
+                    System.err.println("Error reading history: " + e.getMessage());
+                }
+            }
+
+            if (!metric.isForecast() && blocks > 0 && blockSegment[blocks - 1] == segments.size() - 1) {
+                reopenLastBlock();
+            }
+        }
+
+        private void reopenLastBlock() {
+            ByteBuffer mapped = map(segments.size() - 1);
+            if (mapped == null || SeriesBlock.count(mapped, blockOffset[blocks - 1]) >= BLOCK_POINTS) {
+                return;
+            }
+            SeriesBlock.decode(mapped, blockOffset[blocks - 1], Long.MIN_VALUE, Long.MAX_VALUE, (ts, value, issued) -> {
+                allocateOpenBlock();
+                openTs[openCount] = ts;
+                openValues[openCount] = value;
+                openCount++;
+            });
+            openOffset = blockOffset[blocks - 1];
+        }
+
+        // Earliest recorded timestamp, or Long.MAX_VALUE if nothing is recorded
+        long firstTs() {
+            long first = openCount > 0 ? openTs[0] : Long.MAX_VALUE;
+            for (int b = 0; b < blocks; b++) {
+                first = Math.min(first, blockMinTs[b]);
+            }
+            return first;
+        }
+
+        Extent capture(long from, long to) {
+            // The open block is read from memory, which may be ahead of its copy on disk
+            int closedBlocks = openOffset >= 0 ? blocks - 1 : blocks;
+            int matching = 0;
+            for (int b = 0; b < closedBlocks; b++) {
+                if (blockMaxTs[b] >= from && blockMinTs[b] <= to) {
+                    matching++;
+                }
+            }
+            Path[] files = new Path[matching];
+            long[] lengths = new long[matching];
+            int[] offsets = new int[matching];
+            int next = 0;
+            for (int b = 0; b < closedBlocks; b++) {
+                if (blockMaxTs[b] >= from && blockMinTs[b] <= to) {
+                    files[next] = segments.get(blockSegment[b]);
+                    lengths[next] = segmentLengths[blockSegment[b]];
+                    offsets[next] = blockOffset[b];
+                    next++;
+                }
+            }
+            return new Extent(metric, from, to, files, lengths, offsets,
+                Arrays.copyOf(openTs, openCount), Arrays.copyOf(openValues, openCount));
+        }
+
+        private ByteBuffer map(int segment) {
+            return HistoryStore.map(segments.get(segment), segmentLengths[segment]);
+        }
+
+        private static ByteBuffer sliceAt(ByteBuffer buffer, int offset) {
+            ByteBuffer slice = buffer.duplicate();
+            slice.position(offset);
+            return slice.slice();
+        }
+    }
+}
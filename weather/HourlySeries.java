@@ -0,0 +1,114 @@
+package weather;
+
+import java.util.Arrays;
+
+/**
+ * Hourly forecast stored column-wise in parallel primitive arrays instead of
+ * one object per hour. Temperatures are kept in tenths of a degree (the API
+ * reports one decimal) and condition texts go through a small per-series
+ * palette, so a full day costs a few hundred bytes.
+ */
+public final class HourlySeries {
+    private static final HourlySeries EMPTY = new Builder().build();
+
+    private final int[] epochMinutes;
+    private final short[] tempTenths;
+    private final byte[] chanceOfRain;
+    private final short[] conditionCodes;
+    private final byte[] conditionIndex;
+    private final String[] conditionPalette;
+
+    private HourlySeries(int[] epochMinutes, short[] tempTenths, byte[] chanceOfRain,
+                         short[] conditionCodes, byte[] conditionIndex, String[] conditionPalette) {
+        this.epochMinutes = epochMinutes;
+        this.tempTenths = tempTenths;
+        this.chanceOfRain = chanceOfRain;
+        this.conditionCodes = conditionCodes;
+        this.conditionIndex = conditionIndex;
+        this.conditionPalette = conditionPalette;
+    }
+
+    public static HourlySeries empty() {
+        return EMPTY;
+    }
+
+    public int size() {
+        return epochMinutes.length;
+    }
+
+    public boolean isEmpty() {
+        return epochMinutes.length == 0;
+    }
+
+    public long epochSecond(int hour) {
+        return epochMinutes[hour] * 60L;
+    }
+
+    public double tempC(int hour) {
+        return tempTenths[hour] / 10.0;
+    }
+
+    public int chanceOfRain(int hour) {
+        return chanceOfRain[hour];
+    }
+
+    public int conditionCode(int hour) {
+        return conditionCodes[hour];
+    }
+
+    public String conditionText(int hour) {
+        return conditionPalette[conditionIndex[hour] & 0xFF];
+    }
+
+    public static final class Builder {
+        private int size;
+        private int[] epochMinutes = new int[24];
+        private short[] tempTenths = new short[24];
+        private byte[] chanceOfRain = new byte[24];
+        private short[] conditionCodes = new short[24];
+        private byte[] conditionIndex = new byte[24];
+        private String[] palette = new String[8];
+        private int paletteSize;
+
+        public Builder add(long epochSecond, double tempC, int rainChance, int conditionCode, String conditionText) {
+            if (size == epochMinutes.length) {
+                int capacity = size * 2;
+                epochMinutes = Arrays.copyOf(epochMinutes, capacity);
+                tempTenths = Arrays.copyOf(tempTenths, capacity);
+                chanceOfRain = Arrays.copyOf(chanceOfRain, capacity);
+                conditionCodes = Arrays.copyOf(conditionCodes, capacity);
+                conditionIndex = Arrays.copyOf(conditionIndex, capacity);
+            }
+            epochMinutes[size] = (int) (epochSecond / 60);
+            tempTenths[size] = (short) Math.round(tempC * 10);
+            chanceOfRain[size] = (byte) rainChance;
+            conditionCodes[size] = (short) conditionCode;
+            conditionIndex[size] = (byte) paletteIndex(conditionText);
+            size++;
+            return this;
+        }
+
+        private int paletteIndex(String text) {
+            for (int i = 0; i < paletteSize; i++) {
+                if (palette[i].equals(text)) {
+                    return i;
+                }
+            }
+            if (paletteSize == palette.length) {
+                palette = Arrays.copyOf(palette, paletteSize * 2);
+            }
+            palette[paletteSize] = text;
+            return paletteSize++;
+        }
+
+        public HourlySeries build() {
+            return new HourlySeries(
+                Arrays.copyOf(epochMinutes, size),
+                Arrays.copyOf(tempTenths, size),
+                Arrays.copyOf(chanceOfRain, size),
+                Arrays.copyOf(conditionCodes, size),
+                Arrays.copyOf(conditionIndex, size),
+                Arrays.copyOf(palette, paletteSize));
+        }
+    }
+}
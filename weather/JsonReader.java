@@ -0,0 +1,709 @@
+package weather;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Single-pass pull tokenizer that reads UTF-8 JSON straight from a stream.
+ *
+ * The whole body is never materialized: bytes are consumed through a small
+ * fixed buffer, numbers are decoded without going through a String, and short
+ * strings (keys, condition texts) are served from a cache so repeated values
+ * do not allocate. Separators are treated as whitespace, so callers drive the
+ * structure with beginObject/nextName/endObject and friends.
+ */
+public final class JsonReader implements Closeable {
+    public enum Token { BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, STRING, NUMBER, BOOLEAN, NULL, END_DOCUMENT }
+
+    private static final int STRING_CACHE_SIZE = 512;
+    private static final int MAX_CACHED_LENGTH = 32;
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final InputStream in;
+    private final byte[] buffer;
+    private int pos;
+    private int limit;
+
+    // Decoded bytes of the string currently being read
+    private byte[] scratch = new byte[64];
+    private int scratchLength;
+
+    // Bytes copied so far by nextRawValue
+    private byte[] raw = new byte[0];
+    private int rawLength;
+
+    // What nextRawValue(Members) keeps of raw
+    private byte[] compact = new byte[0];
+    private int compactLength;
+
+    private final byte[][] cachedBytes = new byte[STRING_CACHE_SIZE][];
+    private final String[] cachedStrings = new String[STRING_CACHE_SIZE];
+
+    public JsonReader(InputStream in) {
+        this(in, 8192);
+    }
+
+    public JsonReader(InputStream in, int bufferSize) {
+        this.in = in;
+        this.buffer = new byte[bufferSize];
+    }
+
+    // Reads a document that is already in memory, using the array itself as the buffer
+    public JsonReader(byte[] document) {
+        this.in = InputStream.nullInputStream();
+        this.buffer = document;
+        this.limit = document.length;
+    }
+
+    public Token peek() throws IOException {
+        int c = peekByte();
+        switch (c) {
+            case -1: return Token.END_DOCUMENT;
+            case '{': return Token.BEGIN_OBJECT;
+            case '}': return Token.END_OBJECT;
+            case '[': return Token.BEGIN_ARRAY;
+            case ']': return Token.END_ARRAY;
+            case '"': return Token.STRING;
+            case 't':
+            case 'f': return Token.BOOLEAN;
+            case 'n': return Token.NULL;
+            default: return Token.NUMBER;
+        }
+    }
+
+    public void beginObject() throws IOException {
+        expect('{');
+    }
+
+    public void endObject() throws IOException {
+        expect('}');
+    }
+
+    public void beginArray() throws IOException {
+        expect('[');
+    }
+
+    public void endArray() throws IOException {
+        expect(']');
+    }
+
+    public boolean hasNext() throws IOException {
+        int c = peekByte();
+        return c != '}' && c != ']' && c != -1;
+    }
+
+    public String nextName() throws IOException {
+        return nextString();
+    }
+
+    public String nextString() throws IOException {
+        int c = peekByte();
+        if (c == 'n') {
+            skipLiteral();
+            return null;
+        }
+        if (c != '"') {
+            // Lenient: numbers and booleans read as their literal text
+            return readLiteralText();
+        }
+        pos++;
+        readStringBytes();
+        return toStringCached();
+    }
+
+    public double nextDouble() throws IOException {
+        int c = peekByte();
+        if (c == '"') {
+            String text = nextString();
+            return text.isEmpty() ? Double.NaN : Double.parseDouble(text);
+        }
+        if (c == 'n') {
+            skipLiteral();
+            return Double.NaN;
+        }
+        return readNumber();
+    }
+
+    public int nextInt() throws IOException {
+        double value = nextDouble();
+        return Double.isNaN(value) ? 0 : (int) value;
+    }
+
+    public long nextLong() throws IOException {
+        double value = nextDouble();
+        return Double.isNaN(value) ? 0 : (long) value;
+    }
+
+    public boolean nextBoolean() throws IOException {
+        int c = peekByte();
+        if (c == 't' || c == 'f' || c == 'n') {
+            boolean result = c == 't';
+            skipLiteral();
+            return result;
+        }
+        return nextDouble() != 0;
+    }
+
+    public void skipValue() throws IOException {
+        int depth = 0;
+        do {
+            int c = peekByte();
+            switch (c) {
+                case -1:
+                    throw new MalformedJsonException("Unexpected end of JSON");
+                case '{':
+                case '[':
+                    pos++;
+                    depth++;
+                    break;
+                case '}':
+                case ']':
+                    pos++;
+                    depth--;
+                    break;
+                case '"':
+                    pos++;
+                    skipStringBytes();
+                    break;
+                default:
+                    skipLiteral();
+                    break;
+            }
+        } while (depth > 0);
+    }
+
+    /**
+     * Copies the next value verbatim instead of decoding it, for parts of a
+     * document that may be parsed later or not at all. Costs about as much as
+     * skipValue plus the copy; the elements of a top-level array or object
+     * are counted on the way.
+     */
+    public RawValue nextRawValue() throws IOException {
+        int elements = copyRaw();
+        return new RawValue(Arrays.copyOf(raw, rawLength), elements);
+    }
+
+    /**
+     * Like nextRawValue, but drops every object member, at any depth, whose
+     * name keep does not list, as well as whitespace. Array elements are all
+     * kept, so elements() is the same.
+     */
+    public RawValue nextRawValue(Members keep) throws IOException {
+        int elements = copyRaw();
+        // Only a malformed value can come out longer than it went in
+        if (compact.length < 2 * rawLength + 2) {
+            compact = new byte[2 * rawLength + 2];
+        }
+        compactLength = 0;
+        copyMembers(skipRawSpace(0), keep);
+        return new RawValue(Arrays.copyOf(compact, compactLength), elements);
+    }
+
+    // Copies the next value into raw; returns the member count of an array or object, 0 otherwise
+    private int copyRaw() throws IOException {
+        int c = peekByte();
+        if (c == -1) {
+            throw new MalformedJsonException("Unexpected end of JSON");
+        }
+        rawLength = 0;
+        if (c != '{' && c != '[' && c != '"') {
+            int start = pos;
+            while (true) {
+                if (pos == limit) {
+                    appendRaw(start, pos);
+                    if (!fill()) {
+                        break;
+                    }
+                    start = pos;
+                }
+                if (isDelimiter(buffer[pos])) {
+                    appendRaw(start, pos);
+                    break;
+                }
+                pos++;
+            }
+            return 0;
+        }
+
+        int depth = 0;
+        int separators = 0;
+        boolean empty = true;
+        boolean inString = false;
+        boolean escaped = false;
+        int start = pos;
+        while (true) {
+            if (pos == limit) {
+                appendRaw(start, pos);
+                if (!fill()) {
+                    throw new MalformedJsonException("Unexpected end of JSON");
+                }
+                start = pos;
+            }
+            byte b = buffer[pos++];
+            if (inString) {
+                if (escaped) {
+                    escaped = false;
+                } else if (b == '\\') {
+                    escaped = true;
+                } else if (b == '"') {
+                    inString = false;
+                    if (depth == 0) {
+                        break;
+                    }
+                }
+                continue;
+            }
+            if (depth == 1 && b != ']' && b != '}' && b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+                if (b == ',') {
+                    separators++;
+                } else {
+                    empty = false;
+                }
+            }
+            if (b == '"') {
+                inString = true;
+            } else if (b == '{' || b == '[') {
+                depth++;
+            } else if ((b == '}' || b == ']') && --depth == 0) {
+                break;
+            }
+        }
+        appendRaw(start, pos);
+        return empty ? 0 : separators + 1;
+    }
+
+    // Copies the value at raw[i] to compact without the members keep does not list; returns the index after it
+    private int copyMembers(int i, Members keep) {
+        if (i >= rawLength) {
+            return i;
+        }
+        byte c = raw[i];
+        if (c != '{' && c != '[') {
+            // A stray '}' or ']' in a malformed value is copied too, so every call moves on
+            int end = Math.max(skipRawValue(i), i + 1);
+            System.arraycopy(raw, i, compact, compactLength, end - i);
+            compactLength += end - i;
+            return end;
+        }
+
+        byte close = c == '{' ? (byte) '}' : (byte) ']';
+        compact[compactLength++] = c;
+        boolean first = true;
+        i = skipRawSpace(i + 1);
+        while (i < rawLength && raw[i] != close) {
+            if (c == '{') {
+                int nameEnd = Math.max(skipRawValue(i), i + 1);
+                int value = skipRawSpace(nameEnd);
+                if (raw[i] != '"' || nameEnd - i < 2 || !keep.contains(raw, i + 1, nameEnd - 1)) {
+                    i = skipRawSpace(skipRawValue(value));
+                    continue;
+                }
+                if (!first) {
+                    compact[compactLength++] = ',';
+                }
+                System.arraycopy(raw, i, compact, compactLength, nameEnd - i);
+                compactLength += nameEnd - i;
+                compact[compactLength++] = ':';
+                i = copyMembers(value, keep);
+            } else {
+                if (!first) {
+                    compact[compactLength++] = ',';
+                }
+                i = copyMembers(i, keep);
+            }
+            first = false;
+            i = skipRawSpace(i);
+        }
+        compact[compactLength++] = close;
+        return i + 1;
+    }
+
+    // Index of the next byte of raw that is not whitespace, ',' or ':'
+    private int skipRawSpace(int i) {
+        while (i < rawLength) {
+            byte b = raw[i];
+            if (b != ' ' && b != ',' && b != ':' && b != '\n' && b != '\r' && b != '\t') {
+                break;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    // Index just past the value that starts at raw[i]
+    private int skipRawValue(int i) {
+        int depth = 0;
+        boolean inString = false;
+        boolean escaped = false;
+        while (i < rawLength) {
+            byte b = raw[i];
+            if (inString) {
+                i++;
+                if (escaped) {
+                    escaped = false;
+                } else if (b == '\\') {
+                    escaped = true;
+                } else if (b == '"') {
+                    inString = false;
+                    if (depth == 0) {
+                        return i;
+                    }
+                }
+            } else if (b == '"') {
+                inString = true;
+                i++;
+            } else if (b == '{' || b == '[') {
+                depth++;
+                i++;
+            } else if (b == '}' || b == ']') {
+                if (depth == 0) {
+                    return i;
+                }
+                i++;
+                if (--depth == 0) {
+                    return i;
+                }
+            } else if (depth == 0 && isDelimiter(b)) {
+                return i;
+            } else {
+                i++;
+            }
+        }
+        return i;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    // Next significant byte, treating ',' and ':' as whitespace; -1 at end of input
+    private int peekByte() throws IOException {
+        while (true) {
+            if (pos == limit && !fill()) {
+                return -1;
+            }
+            byte b = buffer[pos];
+            if (b == ' ' || b == ',' || b == ':' || b == '\n' || b == '\r' || b == '\t') {
+                pos++;
+            } else {
+                return b & 0xFF;
+            }
+        }
+    }
+
+    private int read() throws IOException {
+        if (pos == limit && !fill()) {
+            return -1;
+        }
+        return buffer[pos++] & 0xFF;
+    }
+
+    private boolean fill() throws IOException {
+        int n = in.read(buffer, 0, buffer.length);
+        if (n <= 0) {
+            pos = 0;
+            limit = 0;
+            return false;
+        }
+        pos = 0;
+        limit = n;
+        return true;
+    }
+
+    private void expect(char expected) throws IOException {
+        int c = peekByte();
+        if (c != expected) {
+            throw new MalformedJsonException("Expected '" + expected + "' but found " + describe(c));
+        }
+        pos++;
+    }
+
+    private static String describe(int c) {
+        return c == -1 ? "end of input" : "'" + (char) c + "'";
+    }
+
+    private void readStringBytes() throws IOException {
+        scratchLength = 0;
+        while (true) {
+            int b = read();
+            if (b == -1) {
+                throw new MalformedJsonException("Unterminated string");
+            }
+            if (b == '"') {
+                return;
+            }
+            if (b == '\\') {
+                readEscape();
+            } else {
+                appendScratch(b);
+            }
+        }
+    }
+
+    private void readEscape() throws IOException {
+        int c = read();
+        switch (c) {
+            case 'n': appendScratch('\n'); break;
+            case 't': appendScratch('\t'); break;
+            case 'r': appendScratch('\r'); break;
+            case 'b': appendScratch('\b'); break;
+            case 'f': appendScratch('\f'); break;
+            case 'u': appendCodePoint(readUnicodeEscape()); break;
+            case -1: throw new MalformedJsonException("Unterminated escape");
+            default: appendScratch(c); break;
+        }
+    }
+
+    private int readUnicodeEscape() throws IOException {
+        int ch = readHex4();
+        if (Character.isHighSurrogate((char) ch)) {
+            // Low surrogate must follow as another \\u escape
+            if (read() == '\\' && read() == 'u') {
+                int low = readHex4();
+                if (Character.isLowSurrogate((char) low)) {
+                    return Character.toCodePoint((char) ch, (char) low);
+                }
+            }
+            return 0xFFFD;
+        }
+        return ch;
+    }
+
+    private int readHex4() throws IOException {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            int digit = Character.digit(read(), 16);
+            if (digit < 0) {
+                throw new MalformedJsonException("Malformed \\u escape");
+            }
+            value = (value << 4) | digit;
+        }
+        return value;
+    }
+
+    private void appendCodePoint(int codePoint) {
+        if (codePoint < 0x80) {
+            appendScratch(codePoint);
+        } else if (codePoint < 0x800) {
+            appendScratch(0xC0 | (codePoint >> 6));
+            appendScratch(0x80 | (codePoint & 0x3F));
+        } else if (codePoint < 0x10000) {
+            appendScratch(0xE0 | (codePoint >> 12));
+            appendScratch(0x80 | ((codePoint >> 6) & 0x3F));
+            appendScratch(0x80 | (codePoint & 0x3F));
+        } else {
+            appendScratch(0xF0 | (codePoint >> 18));
+            appendScratch(0x80 | ((codePoint >> 12) & 0x3F));
+            appendScratch(0x80 | ((codePoint >> 6) & 0x3F));
+            appendScratch(0x80 | (codePoint & 0x3F));
+        }
+    }
+
+    private void appendRaw(int from, int to) {
+        int length = to - from;
+        if (rawLength + length > raw.length) {
+            raw = Arrays.copyOf(raw, Math.max(rawLength + length, Math.max(1024, raw.length * 2)));
+        }
+        System.arraycopy(buffer, from, raw, rawLength, length);
+        rawLength += length;
+    }
+
+    private void appendScratch(int b) {
+        if (scratchLength == scratch.length) {
+            byte[] grown = new byte[scratch.length * 2];
+            System.arraycopy(scratch, 0, grown, 0, scratchLength);
+            scratch = grown;
+        }
+        scratch[scratchLength++] = (byte) b;
+    }
+
+    private String toStringCached() {
+        if (scratchLength > MAX_CACHED_LENGTH) {
+            return new String(scratch, 0, scratchLength, StandardCharsets.UTF_8);
+        }
+
+        int hash = 1;
+        for (int i = 0; i < scratchLength; i++) {
+            hash = 31 * hash + scratch[i];
+        }
+        int slot = (hash ^ (hash >>> 16)) & (STRING_CACHE_SIZE - 1);
+
+        byte[] cached = cachedBytes[slot];
+        if (cached != null && cached.length == scratchLength && regionMatches(cached)) {
+            return cachedStrings[slot];
+        }
+
+        byte[] copy = new byte[scratchLength];
+        System.arraycopy(scratch, 0, copy, 0, scratchLength);
+        String value = new String(copy, StandardCharsets.UTF_8);
+        cachedBytes[slot] = copy;
+        cachedStrings[slot] = value;
+        return value;
+    }
+
+    private boolean regionMatches(byte[] cached) {
+        for (int i = 0; i < scratchLength; i++) {
+            if (cached[i] != scratch[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void skipStringBytes() throws IOException {
+        while (true) {
+            int b = read();
+            if (b == -1) {
+                throw new MalformedJsonException("Unterminated string");
+            }
+            if (b == '"') {
+                return;
+            }
+            if (b == '\\') {
+                read();
+            }
+        }
+    }
+
+    private void skipLiteral() throws IOException {
+        while (true) {
+            if (pos == limit && !fill()) {
+                return;
+            }
+            if (isDelimiter(buffer[pos])) {
+                return;
+            }
+            pos++;
+        }
+    }
+
+    private String readLiteralText() throws IOException {
+        scratchLength = 0;
+        while (true) {
+            if (pos == limit && !fill()) {
+                break;
+            }
+            byte b = buffer[pos];
+            if (isDelimiter(b)) {
+                break;
+            }
+            appendScratch(b);
+            pos++;
+        }
+        return toStringCached();
+    }
+
+    private static boolean isDelimiter(byte b) {
+        return b == ',' || b == '}' || b == ']' || b == ':' || b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    private double readNumber() throws IOException {
+        scratchLength = 0;
+        boolean negative = false;
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean inFraction = false;
+        boolean simple = true;
+
+        while (true) {
+            if (pos == limit && !fill()) {
+                break;
+            }
+            byte b = buffer[pos];
+            if (isDelimiter(b)) {
+                break;
+            }
+            appendScratch(b);
+            pos++;
+
+            if (b >= '0' && b <= '9') {
+                if (digits < 18) {
+                    mantissa = mantissa * 10 + (b - '0');
+                    if (mantissa != 0) {
+                        digits++;
+                    }
+                    if (inFraction) {
+                        fractionDigits++;
+                    }
+                } else {
+                    simple = false;
+                }
+            } else if (b == '.' && !inFraction) {
+                inFraction = true;
+            } else if (b == '-' && scratchLength == 1) {
+                negative = true;
+            } else {
+                // Exponents and anything unusual take the slow path
+                simple = false;
+            }
+        }
+
+        if (scratchLength == 0) {
+            throw new MalformedJsonException("Expected a number");
+        }
+
+        // Exact when both operands are exactly representable doubles
+        if (simple && mantissa < (1L << 53) && fractionDigits < POWERS_OF_TEN.length) {
+            double value = mantissa / POWERS_OF_TEN[fractionDigits];
+            return negative ? -value : value;
+        }
+        return Double.parseDouble(new String(scratch, 0, scratchLength, StandardCharsets.US_ASCII));
+    }
+
+    // Object member names for nextRawValue(Members); compared as bytes, so names with escapes never match
+    public static final class Members {
+        private final byte[][] names;
+
+        public Members(String... names) {
+            this.names = new byte[names.length][];
+            for (int i = 0; i < names.length; i++) {
+                this.names[i] = names[i].getBytes(StandardCharsets.UTF_8);
+            }
+        }
+
+        boolean contains(byte[] bytes, int from, int to) {
+            for (byte[] name : names) {
+                if (Arrays.equals(name, 0, name.length, bytes, from, to)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    // A JSON value kept as bytes; elements is the member count of an array or object, 0 otherwise
+    public static final class RawValue {
+        private final byte[] bytes;
+        private final int elements;
+
+        RawValue(byte[] bytes, int elements) {
+            this.bytes = bytes;
+            this.elements = elements;
+        }
+
+        public int elements() {
+            return elements;
+        }
+
+        public int length() {
+            return bytes.length;
+        }
+
+        public JsonReader reader() {
+            return new JsonReader(bytes);
+        }
+
+        // Shared, not copied; callers must not modify it
+        byte[] bytes() {
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package weather;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with power-of-two microsecond buckets
+ * (bucket i holds samples below 2^i µs). Percentiles are reported as the
+ * upper bound of the bucket they fall in, which is accurate to within 2x
+ * and good enough to tell a cache hit from an upstream round trip.
+ */
+public final class LatencyHistogram {
+    private static final int BUCKETS = 32;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalMicros = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    public void record(long elapsedNanos) {
+        long micros = Math.max(0, elapsedNanos / 1_000);
+        int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+        buckets.incrementAndGet(bucket);
+        count.incrementAndGet();
+        totalMicros.addAndGet(micros);
+        maxMicros.accumulateAndGet(micros, Math::max);
+    }
+
+    public long count() {
+        return count.get();
+    }
+
+    public long maxMicros() {
+        return maxMicros.get();
+    }
+
+    public long meanMicros() {
+        long samples = count.get();
+        return samples == 0 ? 0 : totalMicros.get() / samples;
+    }
+
+    // Upper bound of the bucket holding the given quantile (0.5 = median)
+    public long percentileMicros(double quantile) {
+        long samples = count.get();
+        if (samples == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(quantile * samples);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return Math.min(1L << i, maxMicros.get());
+            }
+        }
+        return maxMicros.get();
+    }
+
+    // Prometheus histogram lines (cumulative buckets, sum and count in seconds); labels like stage="parse" or ""
+    public void appendPrometheus(StringBuilder out, String name, String labels) {
+        String prefix = labels.isEmpty() ? "" : labels + ",";
+        long cumulative = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            cumulative += buckets.get(i);
+            out.append(name).append("_bucket{").append(prefix).append("le=\"")
+                .append(String.format(Locale.ROOT, "%.6f", (1L << i) / 1e6)).append("\"} ").append(cumulative).append('\n');
+        }
+        String suffix = labels.isEmpty() ? " " : "{" + labels + "} ";
+        out.append(name).append("_bucket{").append(prefix).append("le=\"+Inf\"} ").append(count()).append('\n');
+        out.append(name).append("_sum").append(suffix)
+            .append(String.format(Locale.ROOT, "%.6f", totalMicros.get() / 1e6)).append('\n');
+        out.append(name).append("_count").append(suffix).append(count()).append('\n');
+    }
+
+    // {"count":..,"mean_us":..,"p50_us":..,"p90_us":..,"p99_us":..,"max_us":..,"buckets":{"<1024":3,...}}
+    public void appendJson(StringBuilder out) {
+        out.append(String.format(Locale.ROOT,
+            "{\"count\":%d,\"mean_us\":%d,\"p50_us\":%d,\"p90_us\":%d,\"p99_us\":%d,\"max_us\":%d,\"buckets\":{",
+            count(), meanMicros(), percentileMicros(0.5), percentileMicros(0.9), percentileMicros(0.99), maxMicros()));
+        boolean first = true;
+        for (int i = 0; i < BUCKETS; i++) {
+            long samples = buckets.get(i);
+            if (samples > 0) {
+                if (!first) {
+                    out.append(',');
+                }
+                out.append("\"<").append(1L << i).append("\":").append(samples);
+                first = false;
+            }
+        }
+        out.append("}}");
+    }
+}
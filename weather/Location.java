@@ -0,0 +1,69 @@
+package weather;
+
+import java.time.DateTimeException;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+// Resolved location block of a WeatherAPI response
+public final class Location {
+    private final String name;
+    private final String region;
+    private final String country;
+    private final String timeZoneId;
+    private final String localTime;
+    private final long localTimeEpoch;
+    private final double lat;
+    private final double lon;
+
+    public Location(String name, String region, String country, String timeZoneId,
+                    String localTime, long localTimeEpoch, double lat, double lon) {
+        this.name = name;
+        this.region = region;
+        this.country = country;
+        this.timeZoneId = timeZoneId;
+        this.localTime = localTime;
+        this.localTimeEpoch = localTimeEpoch;
+        this.lat = lat;
+        this.lon = lon;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public String region() {
+        return region;
+    }
+
+    public String country() {
+        return country;
+    }
+
+    public String timeZoneId() {
+        return timeZoneId;
+    }
+
+    public String localTime() {
+        return localTime;
+    }
+
+    public long localTimeEpoch() {
+        return localTimeEpoch;
+    }
+
+    public double lat() {
+        return lat;
+    }
+
+    public double lon() {
+        return lon;
+    }
+
+    public ZoneId zone() {
+        try {
+            return timeZoneId.isEmpty() ? ZoneOffset.UTC : ZoneId.of(timeZoneId);
+        } catch (DateTimeException e) {
+            return ZoneOffset.UTC;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package weather;
+
+import java.io.IOException;
+
+// A body that arrived but is not the JSON expected; the same bytes would come back, so it is not worth retrying
+public class MalformedJsonException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    public MalformedJsonException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,74 @@
+package weather;
+
+import java.util.Locale;
+
+/**
+ * A named location from the gazetteer, a favorite or WeatherAPI's search.json.
+ * Places with coordinates resolve to a "lat,lon" query, so every spelling of
+ * the same city shares one cache key.
+ */
+public final class Place {
+    private final String name;
+    private final String region;
+    private final String country;
+    private final double lat;
+    private final double lon;
+
+    public Place(String name, String region, String country, double lat, double lon) {
+        this.name = name;
+        this.region = region;
+        this.country = country;
+        this.lat = lat;
+        this.lon = lon;
+    }
+
+    // A favorite or free-text entry without coordinates; its query is the name itself
+    public static Place named(String name) {
+        return new Place(name, "", "", Double.NaN, Double.NaN);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public String region() {
+        return region;
+    }
+
+    public String country() {
+        return country;
+    }
+
+    public double lat() {
+        return lat;
+    }
+
+    public double lon() {
+        return lon;
+    }
+
+    public boolean hasCoordinates() {
+        return !Double.isNaN(lat) && !Double.isNaN(lon);
+    }
+
+    // Two decimals (about 1 km) are plenty for WeatherAPI and keep the key stable across sources
+    public String query() {
+        return hasCoordinates() ? String.format(Locale.ROOT, "%.2f,%.2f", lat, lon) : name;
+    }
+
+    public String label() {
+        StringBuilder label = new StringBuilder(name);
+        if (!region.isEmpty() && !region.equalsIgnoreCase(name)) {
+            label.append(", ").append(region);
+        }
+        if (!country.isEmpty()) {
+            label.append(", ").append(country);
+        }
+        return label.toString();
+    }
+
+    @Override
+    public String toString() {
+        return label();
+    }
+}
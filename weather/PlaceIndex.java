@@ -0,0 +1,257 @@
+package weather;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Prefix index over places: one sorted array of folded keys (name and full
+ * label of every place) searched with a binary search for the first key at
+ * or after the prefix, then scanned while keys still match. Matches are
+ * returned in the order the places were given, so a gazetteer listed by
+ * population suggests the biggest cities first.
+ *
+ * add() and remove() update the index in place, for lists such as the
+ * favorites that change one entry at a time: each folds one place and moves
+ * the keys after it instead of sorting everything again. The index is
+ * thread-safe; the gazetteer and EMPTY are never changed.
+ */
+public final class PlaceIndex {
+    public static final PlaceIndex EMPTY = new PlaceIndex(new ArrayList<>());
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+    // Bounds the work per keystroke for one-letter prefixes
+    private static final int MAX_SCANNED = 512;
+
+    // Guarded by this; sorted by key, then rank. A removed place leaves null at its rank
+    private String[] keys;
+    private int[] ranks;
+    private int keyCount;
+    private Place[] places;
+    private int placeCount;
+    private int removed;
+
+    public PlaceIndex(List<Place> places) {
+        List<Entry> entries = new ArrayList<>(places.size() * 2);
+        for (int rank = 0; rank < places.size(); rank++) {
+            Place place = places.get(rank);
+            String name = fold(place.name());
+            String label = fold(place.label());
+            entries.add(new Entry(name, rank));
+            if (!label.equals(name)) {
+                entries.add(new Entry(label, rank));
+            }
+        }
+        entries.sort((a, b) -> a.key.compareTo(b.key));
+
+        this.keys = new String[entries.size()];
+        this.ranks = new int[entries.size()];
+        this.keyCount = entries.size();
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = entries.get(i).key;
+            ranks[i] = entries.get(i).rank;
+        }
+        this.places = places.toArray(new Place[0]);
+        this.placeCount = this.places.length;
+    }
+
+    // Tab-separated name, region, country, lat, lon; blank lines and # comments are skipped
+    public static PlaceIndex read(InputStream in) throws IOException {
+        List<Place> places = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split("\t", -1);
+                if (fields.length < 5) {
+                    throw new IOException("Expected 5 tab-separated fields: " + line);
+                }
+                places.add(new Place(fields[0], fields[1], fields[2],
+                    Double.parseDouble(fields[3]), Double.parseDouble(fields[4])));
+            }
+        }
+        return new PlaceIndex(places);
+    }
+
+    // Ranked after every place already in the index
+    public synchronized void add(Place place) {
+        if (placeCount == places.length) {
+            if (removed > placeCount / 2) {
+                compact();
+            }
+            if (placeCount == places.length) {
+                places = Arrays.copyOf(places, Math.max(16, places.length * 2));
+            }
+        }
+        int rank = placeCount++;
+        places[rank] = place;
+        String name = fold(place.name());
+        String label = fold(place.label());
+        insertKey(name, rank);
+        if (!label.equals(name)) {
+            insertKey(label, rank);
+        }
+    }
+
+    // Removes that very place, as given to add() or the constructor; false if it is not in the index
+    public synchronized boolean remove(Place place) {
+        String key = fold(place.name());
+        for (int i = lowerBound(key); i < keyCount && keys[i].equals(key); i++) {
+            int rank = ranks[i];
+            if (places[rank] == place) {
+                removeKey(key, rank);
+                String label = fold(place.label());
+                if (!label.equals(key)) {
+                    removeKey(label, rank);
+                }
+                places[rank] = null;
+                removed++;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Up to limit places whose name or label starts with the prefix, best ranked first
+    public synchronized List<Place> search(String prefix, int limit) {
+        String key = fold(prefix);
+        List<Place> matches = new ArrayList<>();
+        if (key.isEmpty() || limit <= 0) {
+            return matches;
+        }
+
+        int[] found = new int[Math.min(MAX_SCANNED, keyCount)];
+        int count = 0;
+        for (int i = lowerBound(key); i < keyCount && count < found.length && keys[i].startsWith(key); i++) {
+            found[count++] = ranks[i];
+        }
+        Arrays.sort(found, 0, count);
+
+        int previous = -1;
+        for (int i = 0; i < count && matches.size() < limit; i++) {
+            // A place matched by both its name and its label shows up once
+            if (found[i] != previous) {
+                matches.add(places[found[i]]);
+                previous = found[i];
+            }
+        }
+        return matches;
+    }
+
+    // The best ranked place whose name or label equals the text, or null
+    public synchronized Place find(String text) {
+        String key = fold(text);
+        Place best = null;
+        int bestRank = Integer.MAX_VALUE;
+        for (int i = lowerBound(key); i < keyCount && keys[i].equals(key); i++) {
+            if (ranks[i] < bestRank) {
+                bestRank = ranks[i];
+                best = places[bestRank];
+            }
+        }
+        return best;
+    }
+
+    // Case, accents and repeated whitespace do not matter: "  São  Paulo" and "sao paulo" match
+    public static String fold(String text) {
+        String stripped = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return SPACES.matcher(stripped.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+
+    // Places in rank order with duplicate queries dropped, the first occurrence winning
+    static List<Place> distinct(List<Place> places, int limit) {
+        Set<String> seen = new HashSet<>();
+        List<Place> result = new ArrayList<>();
+        for (Place place : places) {
+            if (result.size() >= limit) {
+                break;
+            }
+            if (seen.add(place.query().toLowerCase(Locale.ROOT))) {
+                result.add(place);
+            }
+        }
+        return result;
+    }
+
+    private int lowerBound(String key) {
+        int index = Arrays.binarySearch(keys, 0, keyCount, key);
+        if (index < 0) {
+            return -index - 1;
+        }
+        // Walk back to the first of several equal keys
+        while (index > 0 && keys[index - 1].equals(key)) {
+            index--;
+        }
+        return index;
+    }
+
+    // A new rank is the highest, so it goes after every equal key
+    private void insertKey(String key, int rank) {
+        int index = lowerBound(key);
+        while (index < keyCount && keys[index].equals(key)) {
+            index++;
+        }
+        if (keyCount == keys.length) {
+            int capacity = Math.max(16, keys.length * 2);
+            keys = Arrays.copyOf(keys, capacity);
+            ranks = Arrays.copyOf(ranks, capacity);
+        }
+        System.arraycopy(keys, index, keys, index + 1, keyCount - index);
+        System.arraycopy(ranks, index, ranks, index + 1, keyCount - index);
+        keys[index] = key;
+        ranks[index] = rank;
+        keyCount++;
+    }
+
+    private void removeKey(String key, int rank) {
+        for (int i = lowerBound(key); i < keyCount && keys[i].equals(key); i++) {
+            if (ranks[i] == rank) {
+                System.arraycopy(keys, i + 1, keys, i, keyCount - i - 1);
+                System.arraycopy(ranks, i + 1, ranks, i, keyCount - i - 1);
+                keys[--keyCount] = null;
+                return;
+            }
+        }
+    }
+
+    // Closes the gaps removed places left; ranks keep their order, so keys stay sorted
+    private void compact() {
+        int[] newRank = new int[placeCount];
+        int next = 0;
+        for (int rank = 0; rank < placeCount; rank++) {
+            if (places[rank] != null) {
+                newRank[rank] = next;
+                places[next++] = places[rank];
+            }
+        }
+        Arrays.fill(places, next, placeCount, null);
+        for (int i = 0; i < keyCount; i++) {
+            ranks[i] = newRank[ranks[i]];
+        }
+        placeCount = next;
+        removed = 0;
+    }
+
+    private static final class Entry {
+        final String key;
+        final int rank;
+
+        Entry(String key, int rank) {
+            this.key = key;
+            this.rank = rank;
+        }
+    }
+}
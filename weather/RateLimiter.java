@@ -0,0 +1,39 @@
+package weather;
+
+/**
+ * Token bucket that spaces out calls to one upstream host. Callers reserve a
+ * permit with reserveNanos() and delay their request by the returned wait
+ * instead of blocking; a short burst up to the bucket size is allowed after
+ * idle periods.
+ */
+public final class RateLimiter {
+    private final double permitsPerSecond;
+    private final double maxPermits;
+
+    // Guarded by this
+    private double storedPermits;
+    private long lastRefillNanos;
+
+    public RateLimiter(double permitsPerSecond, int burst) {
+        this.permitsPerSecond = permitsPerSecond;
+        this.maxPermits = Math.max(1, burst);
+        this.storedPermits = maxPermits;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    // Takes a permit (possibly going into debt) and returns how long to wait for it
+    public synchronized long reserveNanos() {
+        if (permitsPerSecond <= 0) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        storedPermits = Math.min(maxPermits, storedPermits + (now - lastRefillNanos) * permitsPerSecond / 1e9);
+        lastRefillNanos = now;
+
+        storedPermits -= 1;
+        if (storedPermits >= 0) {
+            return 0;
+        }
+        return (long) (-storedPermits / permitsPerSecond * 1e9);
+    }
+}
@@ -0,0 +1,250 @@
+package weather;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a set of cities fresh in the background.
+ *
+ * Each city is refreshed shortly after WeatherAPI is expected to publish a
+ * new observation. The expected cadence is learned from successive
+ * last_updated_epoch values. Every delay gets jitter so cities do not refresh
+ * in bursts, and failures back off exponentially (starting higher for HTTP
+ * 429). While paused nothing is fetched; on resume, overdue cities are spread
+ * out rather than fired together.
+ */
+public final class RefreshScheduler {
+    private static final long DEFAULT_CADENCE_SECONDS = 15 * 60;
+    private static final long MIN_CADENCE_SECONDS = 5 * 60;
+    private static final long MAX_CADENCE_SECONDS = 60 * 60;
+    // Upstream needs a moment after last_updated before the new value is served
+    private static final long PUBLISH_GRACE_SECONDS = 60;
+    private static final long MIN_DELAY_MILLIS = 60_000;
+    private static final long UNCHANGED_RETRY_MILLIS = 60_000;
+    private static final long ERROR_BACKOFF_MILLIS = 15_000;
+    private static final long RATE_LIMITED_BACKOFF_MILLIS = 120_000;
+    private static final long MAX_BACKOFF_MILLIS = 30 * 60_000;
+    private static final long START_SPREAD_MILLIS = 60_000;
+    private static final long RESUME_SPREAD_MILLIS = 10_000;
+
+    public interface Listener {
+        void refreshed(String city, WeatherReport report);
+
+        void failed(String city, Throwable error, long retryInMillis);
+    }
+
+    private final WeatherService service;
+    private final int days;
+    private final Listener listener;
+    private final ScheduledExecutorService timer;
+
+    // Guarded by this
+    private final Map<String, CityState> cities = new HashMap<>();
+    private boolean paused;
+
+    public RefreshScheduler(WeatherService service, int days, Listener listener) {
+        this.service = service;
+        this.days = days;
+        this.listener = listener;
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "weather-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Replaces the tracked set; cities already tracked keep their schedule
+    public synchronized void setCities(Collection<String> tracked) {
+        Set<String> keys = new HashSet<>();
+        for (String city : tracked) {
+            String key = WeatherCache.normalizeKey(city);
+            keys.add(key);
+            if (!cities.containsKey(key)) {
+                CityState state = new CityState(city);
+                cities.put(key, state);
+                schedule(state, ThreadLocalRandom.current().nextLong(START_SPREAD_MILLIS));
+            }
+        }
+        for (Iterator<CityState> it = cities.values().iterator(); it.hasNext();) {
+            CityState state = it.next();
+            if (!keys.contains(WeatherCache.normalizeKey(state.city))) {
+                state.cancel();
+                it.remove();
+            }
+        }
+    }
+
+    // Adds one city without touching the others, for edits to a long favorites list
+    public synchronized void track(String city) {
+        String key = WeatherCache.normalizeKey(city);
+        if (!cities.containsKey(key)) {
+            CityState state = new CityState(city);
+            cities.put(key, state);
+            schedule(state, ThreadLocalRandom.current().nextLong(START_SPREAD_MILLIS));
+        }
+    }
+
+    public synchronized void untrack(String city) {
+        CityState state = cities.remove(WeatherCache.normalizeKey(city));
+        if (state != null) {
+            state.cancel();
+        }
+    }
+
+    // A report fetched elsewhere (e.g. a search) resets the city's schedule from its last_updated
+    public synchronized void observed(String city, WeatherReport report) {
+        CityState state = cities.get(WeatherCache.normalizeKey(city));
+        if (state != null && state.inFlight == null && report.current().lastUpdatedEpoch() > state.lastUpdatedEpoch) {
+            schedule(state, nextDelay(state, report));
+        }
+    }
+
+    public synchronized void pause() {
+        paused = true;
+        for (CityState state : cities.values()) {
+            if (state.pending != null) {
+                state.pending.cancel(false);
+                state.pending = null;
+            }
+        }
+    }
+
+    public synchronized void resume() {
+        if (!paused) {
+            return;
+        }
+        paused = false;
+        long now = System.currentTimeMillis();
+        for (CityState state : cities.values()) {
+            if (state.inFlight == null) {
+                long spread = ThreadLocalRandom.current().nextLong(RESUME_SPREAD_MILLIS);
+                schedule(state, Math.max(0, state.dueAtMillis - now) + spread);
+            }
+        }
+    }
+
+    public void shutdown() {
+        synchronized (this) {
+            for (CityState state : cities.values()) {
+                state.cancel();
+            }
+            cities.clear();
+        }
+        timer.shutdownNow();
+    }
+
+    private void schedule(CityState state, long delayMillis) {
+        if (state.pending != null) {
+            state.pending.cancel(false);
+        }
+        state.dueAtMillis = System.currentTimeMillis() + delayMillis;
+        state.pending = paused ? null : timer.schedule(() -> refresh(state), delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void refresh(CityState state) {
+        CompletableFuture<WeatherReport> request;
+        synchronized (this) {
+            if (paused || cities.get(WeatherCache.normalizeKey(state.city)) != state) {
+                return;
+            }
+            state.pending = null;
+            request = service.refresh(state.city, days);
+            state.inFlight = request;
+        }
+
+        request.whenComplete((report, error) -> {
+            long retryIn = 0;
+            synchronized (this) {
+                state.inFlight = null;
+                if (cities.get(WeatherCache.normalizeKey(state.city)) != state) {
+                    return;
+                }
+                if (report != null) {
+                    schedule(state, nextDelay(state, report));
+                } else {
+                    retryIn = backoff(state, Futures.unwrap(error));
+                    schedule(state, retryIn);
+                }
+            }
+            if (report != null) {
+                listener.refreshed(state.city, report);
+            } else if (!request.isCancelled()) {
+                listener.failed(state.city, Futures.unwrap(error), retryIn);
+            }
+        });
+    }
+
+    private static long nextDelay(CityState state, WeatherReport report) {
+        state.failures = 0;
+        long updated = report.current().lastUpdatedEpoch();
+        long delay;
+        if (updated <= 0) {
+            delay = state.cadenceSeconds * 1000;
+        } else if (updated <= state.lastUpdatedEpoch) {
+            // Upstream has not published yet; look again soon, then less often
+            delay = Math.min(state.cadenceSeconds * 1000, UNCHANGED_RETRY_MILLIS << Math.min(state.unchanged, 5));
+            state.unchanged++;
+        } else {
+            long observed = updated - state.lastUpdatedEpoch;
+            if (state.lastUpdatedEpoch > 0 && observed <= 2 * state.cadenceSeconds) {
+                // Moving average of the publish interval; longer gaps mean we missed updates, not a slower cadence
+                state.cadenceSeconds = Math.max(MIN_CADENCE_SECONDS,
+                    Math.min(MAX_CADENCE_SECONDS, (state.cadenceSeconds * 3 + observed) / 4));
+            }
+            state.lastUpdatedEpoch = updated;
+            state.unchanged = 0;
+            long nextPublishMillis = (updated + state.cadenceSeconds + PUBLISH_GRACE_SECONDS) * 1000;
+            delay = Math.max(MIN_DELAY_MILLIS, nextPublishMillis - System.currentTimeMillis());
+        }
+        // +-10% so cities with the same cadence drift apart
+        return (long) (delay * (0.9 + ThreadLocalRandom.current().nextDouble() * 0.2));
+    }
+
+    private static long backoff(CityState state, Throwable error) {
+        if (error instanceof CircuitOpenException) {
+            // Upstream is known to be down; look again once the breaker lets a probe through
+            return Math.max(MIN_DELAY_MILLIS, ((CircuitOpenException) error).retryAfterMillis())
+                + ThreadLocalRandom.current().nextLong(RESUME_SPREAD_MILLIS);
+        }
+        boolean rateLimited = FailureKind.classify(error) == FailureKind.RATE_LIMITED;
+        long base = rateLimited ? RATE_LIMITED_BACKOFF_MILLIS : ERROR_BACKOFF_MILLIS;
+        long delay = Math.min(MAX_BACKOFF_MILLIS, base << Math.min(state.failures, 10));
+        state.failures++;
+        // "Equal jitter": at least half the backoff, so retries never bunch up at zero
+        return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+
+    private static final class CityState {
+        final String city;
+        ScheduledFuture<?> pending;
+        CompletableFuture<WeatherReport> inFlight;
+        long dueAtMillis;
+        long lastUpdatedEpoch;
+        long cadenceSeconds = DEFAULT_CADENCE_SECONDS;
+        int unchanged;
+        int failures;
+
+        CityState(String city) {
+            this.city = city;
+        }
+
+        void cancel() {
+            if (pending != null) {
+                pending.cancel(false);
+            }
+            if (inFlight != null) {
+                inFlight.cancel(true);
+            }
+        }
+    }
+}
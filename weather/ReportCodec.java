@@ -0,0 +1,129 @@
+package weather;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Compact binary form of a WeatherReport for the on-disk cache
+public final class ReportCodec {
+    private static final int MAGIC = 0x57584332; // "WXC2"
+    private static final int DECODED_HOURS = 0;
+    private static final int RAW_HOURS = 1;
+
+    private ReportCodec() {
+    }
+
+    public static void write(DataOutput out, WeatherReport report) throws IOException {
+        out.writeInt(MAGIC);
+
+        Location location = report.location();
+        out.writeUTF(location.name());
+        out.writeUTF(location.region());
+        out.writeUTF(location.country());
+        out.writeUTF(location.timeZoneId());
+        out.writeUTF(location.localTime());
+        out.writeLong(location.localTimeEpoch());
+        out.writeDouble(location.lat());
+        out.writeDouble(location.lon());
+
+        CurrentConditions current = report.current();
+        out.writeLong(current.lastUpdatedEpoch());
+        out.writeDouble(current.tempC());
+        out.writeDouble(current.feelsLikeC());
+        out.writeUTF(current.conditionText());
+        out.writeShort(current.conditionCode());
+        out.writeByte(current.humidity());
+        out.writeDouble(current.windKph());
+        out.writeDouble(current.precipMm());
+        out.writeDouble(current.visKm());
+        out.writeDouble(current.uv());
+        out.writeBoolean(current.isDay());
+
+        out.writeShort(report.days().size());
+        for (ForecastDay day : report.days()) {
+            out.writeUTF(day.date());
+            out.writeLong(day.dateEpoch());
+            out.writeDouble(day.maxTempC());
+            out.writeDouble(day.minTempC());
+            out.writeUTF(day.conditionText());
+            out.writeShort(day.conditionCode());
+            out.writeByte(day.chanceOfRain());
+            out.writeDouble(day.uv());
+            // Hours nobody has looked at yet are saved undecoded, so saving does not decode them either
+            JsonReader.RawValue rawHours = day.rawHours();
+            if (rawHours != null) {
+                out.writeByte(RAW_HOURS);
+                out.writeShort(rawHours.elements());
+                out.writeInt(rawHours.length());
+                out.write(rawHours.bytes());
+            } else {
+                out.writeByte(DECODED_HOURS);
+                writeHours(out, day.hours());
+            }
+        }
+    }
+
+    public static WeatherReport read(DataInput in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a weather cache file");
+        }
+
+        Location location = new Location(in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF(),
+            in.readUTF(), in.readLong(), in.readDouble(), in.readDouble());
+
+        CurrentConditions current = new CurrentConditions(in.readLong(), in.readDouble(), in.readDouble(),
+            in.readUTF(), in.readShort(), in.readUnsignedByte(), in.readDouble(), in.readDouble(),
+            in.readDouble(), in.readDouble(), in.readBoolean());
+
+        int dayCount = in.readUnsignedShort();
+        List<ForecastDay> days = new ArrayList<>(dayCount);
+        for (int i = 0; i < dayCount; i++) {
+            String date = in.readUTF();
+            long dateEpoch = in.readLong();
+            double maxTempC = in.readDouble();
+            double minTempC = in.readDouble();
+            String conditionText = in.readUTF();
+            int conditionCode = in.readShort();
+            int chanceOfRain = in.readUnsignedByte();
+            double uv = in.readDouble();
+            if (in.readUnsignedByte() == RAW_HOURS) {
+                int elements = in.readUnsignedShort();
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                days.add(new ForecastDay(date, dateEpoch, maxTempC, minTempC, conditionText, conditionCode,
+                    chanceOfRain, uv, new JsonReader.RawValue(bytes, elements)));
+            } else {
+                days.add(new ForecastDay(date, dateEpoch, maxTempC, minTempC, conditionText, conditionCode,
+                    chanceOfRain, uv, readHours(in)));
+            }
+        }
+        return new WeatherReport(location, current, days);
+    }
+
+    private static void writeHours(DataOutput out, HourlySeries hours) throws IOException {
+        int size = hours.size();
+        out.writeShort(size);
+        for (int i = 0; i < size; i++) {
+            out.writeInt((int) (hours.epochSecond(i) / 60));
+            out.writeShort((int) Math.round(hours.tempC(i) * 10));
+            out.writeByte(hours.chanceOfRain(i));
+            out.writeShort(hours.conditionCode(i));
+            out.writeUTF(hours.conditionText(i));
+        }
+    }
+
+    private static HourlySeries readHours(DataInput in) throws IOException {
+        int size = in.readUnsignedShort();
+        HourlySeries.Builder builder = new HourlySeries.Builder();
+        for (int i = 0; i < size; i++) {
+            long epochSecond = in.readInt() * 60L;
+            double tempC = in.readShort() / 10.0;
+            int chanceOfRain = in.readUnsignedByte();
+            int conditionCode = in.readShort();
+            builder.add(epochSecond, tempC, chanceOfRain, conditionCode, in.readUTF());
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,288 @@
+package weather;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Retries, hedging and a circuit breaker around another provider.
+ *
+ * Failures are classified first: bad requests and unparseable responses fail
+ * at once, while timeouts, 429s, 5xx and network errors are retried with
+ * capped exponential backoff and full jitter (429 starts from a longer base).
+ * Every attempt and hedge of one call shares a single Deadline, and no retry
+ * is scheduled that could not start before it runs out. With hedging on, a second
+ * copy of a slow request is sent once it has run longer than the p95 of
+ * recent successes, and whichever answers first wins. Once upstream keeps
+ * failing the breaker opens and calls fail fast with CircuitOpenException;
+ * WeatherService then falls back to cached data.
+ */
+public final class ResilientProvider implements WeatherProvider {
+    private static final int MIN_HEDGE_SAMPLES = 20;
+    private static final long MIN_HEDGE_DELAY_MICROS = 10_000;
+    private static final long RATE_LIMITED_BACKOFF_FACTOR = 5;
+
+    private final WeatherProvider delegate;
+    private final int maxAttempts;
+    private final long backoffMillis;
+    private final long maxBackoffMillis;
+    private final Duration callBudget;
+    private final boolean hedging;
+    private final long initialHedgeDelayMicros;
+    private final CircuitBreaker breaker;
+    private final ScheduledExecutorService timer;
+    private final WeatherMetrics metrics = WeatherMetrics.global();
+
+    // Latency of successful attempts, the source of the hedge delay
+    private final LatencyHistogram latencies = new LatencyHistogram();
+
+    private ResilientProvider(Builder builder) {
+        this.delegate = builder.delegate;
+        this.maxAttempts = builder.maxAttempts;
+        this.backoffMillis = builder.backoff.toMillis();
+        this.maxBackoffMillis = builder.maxBackoff.toMillis();
+        this.callBudget = builder.deadline;
+        this.hedging = builder.hedging;
+        this.initialHedgeDelayMicros = builder.initialHedgeDelay.toNanos() / 1_000;
+        this.breaker = new CircuitBreaker(builder.breakerThreshold, builder.breakerOpen.toMillis());
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "weather-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static Builder builder(WeatherProvider delegate) {
+        return new Builder(delegate);
+    }
+
+    @Override
+    public CompletableFuture<WeatherReport> current(String query) {
+        return current(query, Deadline.after(callBudget));
+    }
+
+    @Override
+    public CompletableFuture<WeatherReport> forecast(String query, int days) {
+        return forecast(query, days, Deadline.after(callBudget));
+    }
+
+    @Override
+    public CompletableFuture<WeatherReport> current(String query, Deadline deadline) {
+        return call(() -> delegate.current(query, deadline), deadline);
+    }
+
+    @Override
+    public CompletableFuture<WeatherReport> forecast(String query, int days, Deadline deadline) {
+        return call(() -> delegate.forecast(query, days, deadline), deadline);
+    }
+
+    // Suggestions are not worth retrying or hedging, but still respect an open breaker
+    @Override
+    public CompletableFuture<List<Place>> search(String query) {
+        try {
+            breaker.acquire();
+        } catch (CircuitOpenException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<List<Place>> request = delegate.search(query);
+        request.whenComplete((places, error) -> breaker.record(error != null ? FailureKind.classify(error) : null));
+        return request;
+    }
+
+    private <T> CompletableFuture<T> call(Supplier<CompletableFuture<T>> request, Deadline deadline) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        attempt(result, request, deadline, 1);
+        return result;
+    }
+
+    private <T> void attempt(CompletableFuture<T> result, Supplier<CompletableFuture<T>> request,
+                             Deadline deadline, int attempt) {
+        if (result.isDone()) {
+            return;
+        }
+        try {
+            breaker.acquire();
+        } catch (CircuitOpenException e) {
+            metrics.recordShortCircuit();
+            result.completeExceptionally(e);
+            return;
+        }
+
+        long start = System.nanoTime();
+        CompletableFuture<T> response = hedging && breaker.state() == CircuitBreaker.State.CLOSED
+            ? new HedgedCall<>(request, hedgeDelayMicros()).start()
+            : request.get();
+        Futures.propagateCancel(result, response);
+
+        response.whenComplete((value, error) -> {
+            FailureKind failure = error != null ? FailureKind.classify(error) : null;
+            breaker.record(failure);
+            if (failure == null) {
+                latencies.record(System.nanoTime() - start);
+                result.complete(value);
+                return;
+            }
+            long delay = failure.retryable() && attempt < maxAttempts ? backoff(attempt, failure) : -1;
+            if (delay >= 0 && delay < deadline.remaining().toMillis() && !result.isDone()) {
+                metrics.recordRetry();
+                timer.schedule(() -> attempt(result, request, deadline, attempt + 1), delay, TimeUnit.MILLISECONDS);
+            } else {
+                result.completeExceptionally(Futures.unwrap(error));
+            }
+        });
+    }
+
+    // "Full jitter": uniform in [0, min(cap, base * 2^attempt)), so retries from many callers spread out
+    private long backoff(int attempt, FailureKind failure) {
+        long base = failure == FailureKind.RATE_LIMITED ? backoffMillis * RATE_LIMITED_BACKOFF_FACTOR : backoffMillis;
+        long ceiling = Math.min(maxBackoffMillis, base << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private long hedgeDelayMicros() {
+        if (latencies.count() < MIN_HEDGE_SAMPLES) {
+            return initialHedgeDelayMicros;
+        }
+        return Math.max(MIN_HEDGE_DELAY_MICROS, latencies.percentileMicros(0.95));
+    }
+
+    /**
+     * One logical request that may be sent twice. The backup goes out once the
+     * primary has been pending for the hedge delay; the first success wins and
+     * the other copy is cancelled, and the call only fails once every copy
+     * that was sent has failed.
+     */
+    private final class HedgedCall<T> {
+        private final Supplier<CompletableFuture<T>> request;
+        private final long delayMicros;
+        private final CompletableFuture<T> winner = new CompletableFuture<>();
+
+        // Guarded by this
+        private int outstanding;
+        private boolean hedged;
+        private ScheduledFuture<?> hedge;
+
+        HedgedCall(Supplier<CompletableFuture<T>> request, long delayMicros) {
+            this.request = request;
+            this.delayMicros = delayMicros;
+        }
+
+        CompletableFuture<T> start() {
+            synchronized (this) {
+                outstanding = 1;
+                hedge = timer.schedule(this::sendBackup, delayMicros, TimeUnit.MICROSECONDS);
+            }
+            send(false);
+            winner.whenComplete((value, error) -> hedge.cancel(false));
+            return winner;
+        }
+
+        private void sendBackup() {
+            synchronized (this) {
+                if (winner.isDone() || hedged) {
+                    return;
+                }
+                hedged = true;
+                outstanding++;
+            }
+            metrics.recordHedge();
+            send(true);
+        }
+
+        private void send(boolean backup) {
+            CompletableFuture<T> copy = request.get();
+            Futures.propagateCancel(winner, copy);
+            copy.whenComplete((value, error) -> settle(value, error, backup));
+            // The loser is cancelled as soon as the other copy succeeds
+            winner.whenComplete((value, error) -> copy.cancel(true));
+        }
+
+        private void settle(T value, Throwable error, boolean backup) {
+            if (error == null) {
+                if (winner.complete(value) && backup) {
+                    metrics.recordHedgeWin();
+                }
+                return;
+            }
+            synchronized (this) {
+                outstanding--;
+                if (outstanding > 0) {
+                    return;
+                }
+                // No copy left: stop the backup from going out after the fact
+                hedged = true;
+            }
+            winner.completeExceptionally(Futures.unwrap(error));
+        }
+    }
+
+    public static final class Builder {
+        private final WeatherProvider delegate;
+        private int maxAttempts = 3;
+        private Duration backoff = Duration.ofMillis(200);
+        private Duration maxBackoff = Duration.ofSeconds(5);
+        private Duration deadline = Duration.ofSeconds(10);
+        private boolean hedging;
+        private Duration initialHedgeDelay = Duration.ofSeconds(1);
+        private int breakerThreshold = 5;
+        private Duration breakerOpen = Duration.ofSeconds(30);
+
+        private Builder(WeatherProvider delegate) {
+            this.delegate = delegate;
+        }
+
+        // Total attempts including the first; 1 disables retries
+        public Builder maxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        public Builder backoff(Duration backoff) {
+            this.backoff = backoff;
+            return this;
+        }
+
+        public Builder maxBackoff(Duration maxBackoff) {
+            this.maxBackoff = maxBackoff;
+            return this;
+        }
+
+        // Budget for one call, shared by all of its attempts and hedges
+        public Builder deadline(Duration deadline) {
+            this.deadline = deadline;
+            return this;
+        }
+
+        public Builder hedging(boolean hedging) {
+            this.hedging = hedging;
+            return this;
+        }
+
+        // Used until enough successes have been seen to estimate the p95
+        public Builder initialHedgeDelay(Duration initialHedgeDelay) {
+            this.initialHedgeDelay = initialHedgeDelay;
+            return this;
+        }
+
+        // Consecutive unhealthy failures before the breaker opens
+        public Builder breakerThreshold(int breakerThreshold) {
+            this.breakerThreshold = breakerThreshold;
+            return this;
+        }
+
+        public Builder breakerOpen(Duration breakerOpen) {
+            this.breakerOpen = breakerOpen;
+            return this;
+        }
+
+        public ResilientProvider build() {
+            return new ResilientProvider(this);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package weather;
+
+import java.nio.ByteBuffer;
+
+/**
+ * On-disk block of one history series: a fixed 32-byte header followed by
+ * the points, column by column per point as zigzag varints.
+ *
+ * Timestamps are stored as the change in the gap to the previous point
+ * (delta-of-delta), so a regular series costs one byte per timestamp;
+ * values are fixed-point (see HistoryMetric.scale) and stored as deltas,
+ * usually one byte as well.
+ *
+ * Header: int length, int count, long minTs, long maxTs, long issued
+ * (forecast issue time, 0 for observations). All times are epoch seconds.
+ */
+final class SeriesBlock {
+    static final int HEADER_BYTES = 32;
+
+    interface Sink {
+        void accept(long epochSecond, int value, long issued);
+    }
+
+    private SeriesBlock() {
+    }
+
+    static ByteBuffer encode(long[] epochSeconds, int[] values, int count, long issued) {
+        long minTs = Long.MAX_VALUE;
+        long maxTs = Long.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            minTs = Math.min(minTs, epochSeconds[i]);
+            maxTs = Math.max(maxTs, epochSeconds[i]);
+        }
+
+        // Worst case is 10 bytes per varint
+        ByteBuffer out = ByteBuffer.allocate(HEADER_BYTES + count * 20);
+        out.position(HEADER_BYTES);
+        long previousTs = minTs;
+        long previousGap = 0;
+        int previousValue = 0;
+        for (int i = 0; i < count; i++) {
+            long gap = epochSeconds[i] - previousTs;
+            writeVarint(out, zigzag(gap - previousGap));
+            previousGap = gap;
+            previousTs = epochSeconds[i];
+            writeVarint(out, zigzag((long) values[i] - previousValue));
+            previousValue = values[i];
+        }
+        int length = out.position();
+        out.putInt(0, length).putInt(4, count).putLong(8, minTs).putLong(16, maxTs).putLong(24, issued);
+        out.flip();
+        return out;
+    }
+
+    static int length(ByteBuffer buffer, int offset) {
+        return buffer.getInt(offset);
+    }
+
+    static int count(ByteBuffer buffer, int offset) {
+        return buffer.getInt(offset + 4);
+    }
+
+    static long minTs(ByteBuffer buffer, int offset) {
+        return buffer.getLong(offset + 8);
+    }
+
+    static long maxTs(ByteBuffer buffer, int offset) {
+        return buffer.getLong(offset + 16);
+    }
+
+    static long issued(ByteBuffer buffer, int offset) {
+        return buffer.getLong(offset + 24);
+    }
+
+    // True if a complete, plausible block starts at offset; a torn write at the end of a segment fails this
+    static boolean valid(ByteBuffer buffer, int offset, int limit) {
+        if (limit - offset < HEADER_BYTES) {
+            return false;
+        }
+        int length = length(buffer, offset);
+        int count = count(buffer, offset);
+        return length >= HEADER_BYTES + 2 * count && count > 0 && length <= limit - offset
+            && minTs(buffer, offset) <= maxTs(buffer, offset);
+    }
+
+    // Passes the block's points with from <= epochSecond <= to to the sink
+    static void decode(ByteBuffer buffer, int offset, long from, long to, Sink sink) {
+        int count = count(buffer, offset);
+        long issued = issued(buffer, offset);
+        int[] position = {offset + HEADER_BYTES};
+        long previousTs = minTs(buffer, offset);
+        long previousGap = 0;
+        int previousValue = 0;
+        for (int i = 0; i < count; i++) {
+            long gap = previousGap + unzigzag(readVarint(buffer, position));
+            long epochSecond = previousTs + gap;
+            int value = (int) (previousValue + unzigzag(readVarint(buffer, position)));
+            if (epochSecond >= from && epochSecond <= to) {
+                sink.accept(epochSecond, value, issued);
+            }
+            previousGap = gap;
+            previousTs = epochSecond;
+            previousValue = value;
+        }
+    }
+
+    private static long zigzag(long n) {
+        return (n << 1) ^ (n >> 63);
+    }
+
+    private static long unzigzag(long n) {
+        return (n >>> 1) ^ -(n & 1);
+    }
+
+    private static void writeVarint(ByteBuffer out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    private static long readVarint(ByteBuffer buffer, int[] position) {
+        long value = 0;
+        int shift = 0;
+        int pos = position[0];
+        while (true) {
+            byte b = buffer.get(pos++);
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                break;
+            }
+            shift += 7;
+        }
+        position[0] = pos;
+        return value;
+    }
+}
@@ -0,0 +1,81 @@
+package weather;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent loads of the same key into one: while a load is in
+ * flight every caller for that key shares it. Each caller gets its own view
+ * future, so one caller cancelling does not affect the others; the
+ * underlying load is only cancelled once every caller has given up.
+ */
+public final class SingleFlight<T> {
+    private final Map<String, Flight<T>> inFlight = new HashMap<>();
+
+    public CompletableFuture<T> execute(String key, Supplier<CompletableFuture<T>> loader) {
+        Flight<T> flight;
+        boolean started = false;
+        synchronized (this) {
+            flight = inFlight.get(key);
+            if (flight == null) {
+                flight = new Flight<>();
+                inFlight.put(key, flight);
+                started = true;
+            }
+            flight.waiters++;
+        }
+
+        if (started) {
+            Flight<T> newFlight = flight;
+            CompletableFuture<T> source;
+            try {
+                source = loader.get();
+            } catch (RuntimeException e) {
+                source = CompletableFuture.failedFuture(e);
+            }
+            newFlight.source.complete(source);
+            source.whenComplete((value, error) -> release(key, newFlight));
+        }
+
+        Flight<T> joined = flight;
+        CompletableFuture<T> view = new CompletableFuture<>();
+        joined.source.thenCompose(source -> source).whenComplete((value, error) -> {
+            if (error != null) {
+                view.completeExceptionally(Futures.unwrap(error));
+            } else {
+                view.complete(value);
+            }
+        });
+        view.whenComplete((value, error) -> {
+            if (view.isCancelled()) {
+                abandon(key, joined);
+            }
+        });
+        return view;
+    }
+
+    private synchronized void release(String key, Flight<T> flight) {
+        inFlight.remove(key, flight);
+    }
+
+    private void abandon(String key, Flight<T> flight) {
+        boolean last;
+        synchronized (this) {
+            last = --flight.waiters == 0;
+            if (last) {
+                inFlight.remove(key, flight);
+            }
+        }
+        if (last) {
+            flight.source.thenAccept(source -> source.cancel(true));
+        }
+    }
+
+    private static final class Flight<T> {
+        // Completed with the loader's future as soon as the first caller has started it
+        final CompletableFuture<CompletableFuture<T>> source = new CompletableFuture<>();
+        int waiters;
+    }
+}
@@ -0,0 +1,14 @@
+package weather;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// JFR event around a local stage such as formatting a report or rendering it on the EDT
+@Name("weather.Stage")
+@Label("Weather Stage")
+@Category("Weather")
+final class StageEvent extends jdk.jfr.Event {
+    @Label("Stage")
+    String stage;
+}
@@ -0,0 +1,217 @@
+package weather;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Embedded stand-in for api.weatherapi.com that replays recorded responses.
+ *
+ * forecast.json is answered from the forecast-Nd.json fixture with the
+ * fewest days that still covers the request, current.json from current.json
+ * and search.json from search.json (an empty list without that fixture).
+ * Latency, jitter and the shares of injected faults (500 errors, 429 rate
+ * limiting and responses held back until the client times out) are
+ * configurable, and every random choice is derived from the seed and the
+ * request number, so a run replays identically.
+ */
+public final class StubWeatherServer implements AutoCloseable {
+    private static final Pattern FORECAST_FIXTURE = Pattern.compile("forecast-(\\d+)d\\.json");
+    private static final Pattern DAYS_PARAM = Pattern.compile("(?:^|&)days=(\\d+)");
+    private static final byte[] INJECTED_ERROR =
+        "{\"error\":{\"code\":9999,\"message\":\"Internal application error.\"}}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] RATE_LIMITED =
+        "{\"error\":{\"code\":0,\"message\":\"Too many requests.\"}}".getBytes(StandardCharsets.UTF_8);
+    // Longer than any sensible client deadline
+    private static final long HANG_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    private final TreeMap<Integer, byte[]> forecasts;
+    private final byte[] current;
+    private final byte[] search;
+    private final long latencyNanos;
+    private final long jitterNanos;
+    private final double errorRate;
+    private final double rateLimitRate;
+    private final double timeoutRate;
+    private final long seed;
+    private final HttpServer server;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicLong requestCount = new AtomicLong();
+
+    private StubWeatherServer(Builder builder, TreeMap<Integer, byte[]> forecasts, byte[] current, byte[] search)
+            throws IOException {
+        this.forecasts = forecasts;
+        this.current = current;
+        this.search = search;
+        this.latencyNanos = builder.latency.toNanos();
+        this.jitterNanos = builder.jitter.toNanos();
+        this.errorRate = builder.errorRate;
+        this.rateLimitRate = builder.rateLimitRate;
+        this.timeoutRate = builder.timeoutRate;
+        this.seed = builder.seed;
+
+        // Responses are scheduled rather than slept on, so a few threads can hold many slow requests
+        this.scheduler = Executors.newScheduledThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "weather-stub");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), builder.port), 0);
+        server.setExecutor(scheduler);
+        server.createContext("/v1/forecast.json", exchange -> respond(exchange, forecastFixture(exchange)));
+        server.createContext("/v1/current.json", exchange -> respond(exchange, this.current));
+        server.createContext("/v1/search.json", exchange -> respond(exchange, this.search));
+        server.start();
+    }
+
+    public static Builder builder(Path fixtureDir) {
+        return new Builder(fixtureDir);
+    }
+
+    // Pass this to WeatherApiClient.Builder.baseUrl
+    public String baseUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/v1";
+    }
+
+    public long requestCount() {
+        return requestCount.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        scheduler.shutdownNow();
+    }
+
+    private byte[] forecastFixture(HttpExchange exchange) {
+        String query = exchange.getRequestURI().getRawQuery();
+        Matcher matcher = DAYS_PARAM.matcher(query != null ? query : "");
+        int days = matcher.find() ? Integer.parseInt(matcher.group(1)) : 1;
+        Map.Entry<Integer, byte[]> fixture = forecasts.ceilingEntry(days);
+        return fixture != null ? fixture.getValue() : forecasts.lastEntry().getValue();
+    }
+
+    private void respond(HttpExchange exchange, byte[] body) {
+        long request = requestCount.incrementAndGet();
+        Random random = new Random(seed * 0x9E3779B97F4A7C15L + request);
+        long delay = latencyNanos + (jitterNanos > 0 ? (long) (random.nextDouble() * jitterNanos) : 0);
+        double fault = random.nextDouble();
+        int status = 200;
+        byte[] payload = body;
+        if (fault < errorRate) {
+            status = 500;
+            payload = INJECTED_ERROR;
+        } else if (fault < errorRate + rateLimitRate) {
+            status = 429;
+            payload = RATE_LIMITED;
+        } else if (fault < errorRate + rateLimitRate + timeoutRate) {
+            delay += HANG_NANOS;
+        }
+
+        int responseStatus = status;
+        byte[] responseBody = payload;
+        scheduler.schedule(() -> {
+            try (OutputStream out = exchange.getResponseBody()) {
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(responseStatus, responseBody.length);
+                out.write(responseBody);
+            } catch (IOException e) {
+                // Client gave up
+            } finally {
+                exchange.close();
+            }
+        }, delay, TimeUnit.NANOSECONDS);
+    }
+
+    public static final class Builder {
+        private final Path fixtureDir;
+        private Duration latency = Duration.ZERO;
+        private Duration jitter = Duration.ZERO;
+        private double errorRate;
+        private double rateLimitRate;
+        private double timeoutRate;
+        private long seed = 42;
+        private int port;
+
+        private Builder(Path fixtureDir) {
+            this.fixtureDir = fixtureDir;
+        }
+
+        public Builder latency(Duration latency) {
+            this.latency = latency;
+            return this;
+        }
+
+        // Extra delay drawn uniformly from [0, jitter) for each request
+        public Builder jitter(Duration jitter) {
+            this.jitter = jitter;
+            return this;
+        }
+
+        // Share of requests answered with HTTP 500, from 0 to 1
+        public Builder errorRate(double errorRate) {
+            this.errorRate = errorRate;
+            return this;
+        }
+
+        // Share of requests answered with HTTP 429
+        public Builder rateLimitRate(double rateLimitRate) {
+            this.rateLimitRate = rateLimitRate;
+            return this;
+        }
+
+        // Share of requests held back for a minute, so the client's deadline fires first
+        public Builder timeoutRate(double timeoutRate) {
+            this.timeoutRate = timeoutRate;
+            return this;
+        }
+
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        // 0 picks a free port
+        public Builder port(int port) {
+            this.port = port;
+            return this;
+        }
+
+        public StubWeatherServer start() throws IOException {
+            TreeMap<Integer, byte[]> forecasts = new TreeMap<>();
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(fixtureDir, "forecast-*d.json")) {
+                for (Path file : files) {
+                    Matcher matcher = FORECAST_FIXTURE.matcher(file.getFileName().toString());
+                    if (matcher.matches()) {
+                        forecasts.put(Integer.parseInt(matcher.group(1)), Files.readAllBytes(file));
+                    }
+                }
+            }
+            if (forecasts.isEmpty()) {
+                throw new IOException("No forecast-<N>d.json fixtures in " + fixtureDir);
+            }
+            Path currentFile = fixtureDir.resolve("current.json");
+            byte[] current = Files.exists(currentFile) ? Files.readAllBytes(currentFile) : forecasts.firstEntry().getValue();
+            Path searchFile = fixtureDir.resolve("search.json");
+            byte[] search = Files.exists(searchFile) ? Files.readAllBytes(searchFile) : "[]".getBytes(StandardCharsets.UTF_8);
+            return new StubWeatherServer(this, forecasts, current, search);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package weather;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Result of a HistoryStore range query, column-wise like HourlySeries:
+ * parallel arrays of timestamps, values and issue times, ordered by
+ * timestamp and then issue time. For observations the issue time is 0.
+ */
+public final class TimeSeries {
+    private static final long[] NO_TIMES = new long[0];
+    private static final int[] NO_VALUES = new int[0];
+
+    private final HistoryMetric metric;
+    private final long[] epochSeconds;
+    private final int[] values;
+    private final long[] issued;
+    private final int size;
+
+    private TimeSeries(HistoryMetric metric, long[] epochSeconds, int[] values, long[] issued, int size) {
+        this.metric = metric;
+        this.epochSeconds = epochSeconds;
+        this.values = values;
+        this.issued = issued;
+        this.size = size;
+    }
+
+    public static TimeSeries empty(HistoryMetric metric) {
+        return new TimeSeries(metric, NO_TIMES, NO_VALUES, NO_TIMES, 0);
+    }
+
+    public HistoryMetric metric() {
+        return metric;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long epochSecond(int index) {
+        return epochSeconds[index];
+    }
+
+    public double value(int index) {
+        return values[index] / (double) metric.scale();
+    }
+
+    // When the forecast holding this point was issued; 0 for observations
+    public long issuedEpochSecond(int index) {
+        return issued[index];
+    }
+
+    // Index of the point closest to epochSecond, if it is at most tolerance seconds away; otherwise -1
+    public int nearest(long epochSecond, long toleranceSeconds) {
+        int index = Arrays.binarySearch(epochSeconds, 0, size, epochSecond);
+        if (index >= 0) {
+            return index;
+        }
+        int after = -index - 1;
+        int best = -1;
+        long bestDistance = toleranceSeconds + 1;
+        if (after < size && epochSeconds[after] - epochSecond < bestDistance) {
+            best = after;
+            bestDistance = epochSeconds[after] - epochSecond;
+        }
+        if (after > 0 && epochSecond - epochSeconds[after - 1] < bestDistance) {
+            best = after - 1;
+        }
+        return best;
+    }
+
+    // For forecast metrics: only the most recently issued value for each hour
+    public TimeSeries latestIssue() {
+        int kept = 0;
+        long[] keptTs = new long[size];
+        int[] keptValues = new int[size];
+        long[] keptIssued = new long[size];
+        for (int i = 0; i < size; i++) {
+            if (i + 1 < size && epochSeconds[i + 1] == epochSeconds[i]) {
+                continue;
+            }
+            keptTs[kept] = epochSeconds[i];
+            keptValues[kept] = values[i];
+            keptIssued[kept] = issued[i];
+            kept++;
+        }
+        return kept == size ? this : new TimeSeries(metric, keptTs, keptValues, keptIssued, kept);
+    }
+
+    // Downsamples to one row per local calendar day in the zone, oldest first
+    public List<DailyStats> daily(ZoneId zone) {
+        if (size == 0) {
+            return Collections.emptyList();
+        }
+        List<DailyStats> days = new ArrayList<>();
+        LocalDate date = null;
+        long dayEnd = Long.MIN_VALUE;
+        int min = 0;
+        int max = 0;
+        long sum = 0;
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            long ts = epochSeconds[i];
+            if (ts >= dayEnd) {
+                if (count > 0) {
+                    days.add(new DailyStats(date, min / (double) metric.scale(), max / (double) metric.scale(),
+                        sum / (double) count / metric.scale(), count));
+                }
+                // The zone is only consulted once per day, not per point
+                date = LocalDate.ofInstant(Instant.ofEpochSecond(ts), zone);
+                dayEnd = date.plusDays(1).atStartOfDay(zone).toEpochSecond();
+                min = Integer.MAX_VALUE;
+                max = Integer.MIN_VALUE;
+                sum = 0;
+                count = 0;
+            }
+            min = Math.min(min, values[i]);
+            max = Math.max(max, values[i]);
+            sum += values[i];
+            count++;
+        }
+        days.add(new DailyStats(date, min / (double) metric.scale(), max / (double) metric.scale(),
+            sum / (double) count / metric.scale(), count));
+        return days;
+    }
+
+    static final class Builder implements SeriesBlock.Sink {
+        private final HistoryMetric metric;
+        private long[] epochSeconds = new long[64];
+        private int[] values = new int[64];
+        private long[] issued = new long[64];
+        private int size;
+        private boolean sorted = true;
+
+        Builder(HistoryMetric metric) {
+            this.metric = metric;
+        }
+
+        @Override
+        public void accept(long epochSecond, int value, long issuedAt) {
+            if (size == epochSeconds.length) {
+                int capacity = size * 2;
+                epochSeconds = Arrays.copyOf(epochSeconds, capacity);
+                values = Arrays.copyOf(values, capacity);
+                issued = Arrays.copyOf(issued, capacity);
+            }
+            if (size > 0 && epochSecond < epochSeconds[size - 1]) {
+                sorted = false;
+            }
+            epochSeconds[size] = epochSecond;
+            values[size] = value;
+            issued[size] = issuedAt;
+            size++;
+        }
+
+        TimeSeries build() {
+            if (size == 0) {
+                return new TimeSeries(metric, new long[0], new int[0], new long[0], 0);
+            }
+            if (sorted) {
+                return new TimeSeries(metric, epochSeconds, values, issued, size);
+            }
+            // Forecast blocks overlap in time, so points from several blocks need merging. Sorting
+            // (time offset, index) pairs as longs is stable, and blocks arrive in the order they were issued
+            long first = Long.MAX_VALUE;
+            for (int i = 0; i < size; i++) {
+                first = Math.min(first, epochSeconds[i]);
+            }
+            long[] order = new long[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = (epochSeconds[i] - first) << 32 | i;
+            }
+            Arrays.sort(order);
+            long[] sortedTs = new long[size];
+            int[] sortedValues = new int[size];
+            long[] sortedIssued = new long[size];
+            for (int i = 0; i < size; i++) {
+                int index = (int) order[i];
+                sortedTs[i] = epochSeconds[index];
+                sortedValues[i] = values[index];
+                sortedIssued[i] = issued[index];
+            }
+            return new TimeSeries(metric, sortedTs, sortedValues, sortedIssued, size);
+        }
+    }
+}
@@ -0,0 +1,472 @@
+package weather;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Non-blocking client for WeatherAPI.com built on HttpClient.sendAsync.
+ *
+ * A request waits for an in-flight slot and a rate-limit permit, sends, and
+ * then streams the body straight into WeatherJsonParser on a small parse
+ * pool. Cancelling the returned future aborts the HTTP exchange or closes
+ * the body stream, depending on how far the request got. Each request has a
+ * total deadline, and the header and body stages each take a capped slice of
+ * what is left.
+ */
+public final class WeatherApiClient implements WeatherProvider {
+    // Get your free API key from https://www.weatherapi.com/
+    public static final String DEFAULT_API_KEY = "YOUR_API_KEY_HERE";
+    public static final String DEFAULT_BASE_URL = "https://api.weatherapi.com/v1";
+
+    private final String apiKey;
+    private final String baseUrl;
+    private final HttpClient http;
+    private final ExecutorService parseExecutor;
+    private final RateLimiter rateLimiter;
+    private final ConcurrencyLimiter inFlight;
+    private final Duration totalBudget;
+    private final Duration headersBudget;
+    private final Duration bodyBudget;
+    private final boolean printStats;
+
+    // Connection statistics (only printed with printStats)
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong http2Count = new AtomicLong();
+    private final AtomicLong firstRequestMillis = new AtomicLong(-1);
+    private final AtomicLong laterRequestMillis = new AtomicLong();
+
+    private WeatherApiClient(Builder builder) {
+        this.apiKey = builder.apiKey;
+        this.baseUrl = builder.baseUrl;
+        this.rateLimiter = new RateLimiter(builder.rateLimit, 5);
+        this.inFlight = new ConcurrencyLimiter(builder.maxInFlight);
+        this.totalBudget = builder.totalBudget;
+        this.headersBudget = builder.headersBudget;
+        this.bodyBudget = builder.bodyBudget;
+        this.printStats = builder.printStats;
+
+        // Bounded pools of daemon threads so the client never keeps the JVM alive
+        this.parseExecutor = Executors.newFixedThreadPool(builder.maxInFlight, daemonThreads("weather-parse"));
+        ExecutorService httpExecutor = Executors.newFixedThreadPool(builder.threads, daemonThreads("weather-http"));
+
+        // HTTP/2 is negotiated via ALPN and falls back to HTTP/1.1 keep-alive;
+        // either way the client pools its connections across requests
+        this.http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(builder.connectTimeout)
+            .executor(httpExecutor)
+            .build();
+    }
+
+    // -Dweather.api.key, then the WEATHER_API_KEY environment variable, then DEFAULT_API_KEY
+    public static String resolveApiKey() {
+        String key = System.getProperty("weather.api.key");
+        if (key == null || key.isEmpty()) {
+            key = System.getenv("WEATHER_API_KEY");
+        }
+        return key == null || key.isEmpty() ? DEFAULT_API_KEY : key;
+    }
+
+    public static Builder builder(String apiKey) {
+        return new Builder(apiKey);
+    }
+
+    // Builder preloaded from the -Dweather.* system properties documented in the README
+    public static Builder fromSystemProperties(String apiKey) {
+        return builder(apiKey)
+            .baseUrl(System.getProperty("weather.api.baseUrl", DEFAULT_BASE_URL))
+            .threads(Integer.getInteger("weather.http.threads", 4))
+            .connectTimeout(Duration.ofSeconds(Integer.getInteger("weather.http.connectTimeout", 5)))
+            .rateLimit(Double.parseDouble(System.getProperty("weather.http.rateLimit", "10")))
+            .maxInFlight(Integer.getInteger("weather.fetch.concurrency", 8))
+            .totalBudget(Duration.ofSeconds(Integer.getInteger("weather.deadline.total", 10)))
+            .headersBudget(Duration.ofSeconds(Integer.getInteger("weather.deadline.headers", 5)))
+            .bodyBudget(Duration.ofSeconds(Integer.getInteger("weather.deadline.body", 5)))
+            .printStats(Boolean.getBoolean("weather.http.stats"));
+    }
+
+    @Override
+    public CompletableFuture<WeatherReport> current(String query) {
+        return current(query, Deadline.after(totalBudget));
+    }
+
+    @Override
+    public CompletableFuture<WeatherReport> forecast(String query, int days) {
+        return forecast(query, days, Deadline.after(totalBudget));
+    }
+
+    @Override
+    public CompletableFuture<WeatherReport> current(String query, Deadline deadline) {
+        return fetch("/current.json", query, "", WeatherJsonParser::parse, deadline);
+    }
+
+    @Override
+    public CompletableFuture<WeatherReport> forecast(String query, int days, Deadline deadline) {
+        return fetch("/forecast.json", query, "&days=" + days, WeatherJsonParser::parse, deadline);
+    }
+
+    @Override
+    public CompletableFuture<List<Place>> search(String query) {
+        return fetch("/search.json", query, "", WeatherJsonParser::parseSearch, Deadline.after(totalBudget));
+    }
+
+    private static String encode(String query) {
+        return URLEncoder.encode(query, StandardCharsets.UTF_8);
+    }
+
+    private <T> CompletableFuture<T> fetch(String endpoint, String query, String params, BodyParser<T> parser,
+                                           Deadline deadline) {
+        URI uri = URI.create(baseUrl + endpoint + "?key=" + apiKey + "&q=" + encode(query) + params);
+        Trace trace = new Trace(endpoint, query);
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicReference<CompletableFuture<?>> exchange = new AtomicReference<>();
+        AtomicReference<InputStream> body = new AtomicReference<>();
+
+        CompletableFuture<Void> permit = inFlight.acquire();
+        permit
+            .thenCompose(ignored -> rateLimited())
+            .thenCompose(ignored -> send(uri, deadline, result, exchange, trace))
+            .thenApplyAsync(response -> readBody(response, parser, deadline, result, body, trace), parseExecutor)
+            .whenComplete((parsed, error) -> {
+                if (error != null) {
+                    result.completeExceptionally(Futures.unwrap(error));
+                } else {
+                    result.complete(parsed);
+                }
+            });
+
+        // Whatever is left of the whole-call budget; the stage budgets below only ever shrink it
+        result.orTimeout(deadline.remaining().toNanos(), TimeUnit.NANOSECONDS);
+
+        result.whenComplete((parsed, error) -> {
+            inFlight.release(permit);
+            trace.finish(error);
+            if (error != null) {
+                // Cancelled or timed out: abort the exchange and unblock the parser
+                CompletableFuture<?> pending = exchange.get();
+                if (pending != null) {
+                    pending.cancel(true);
+                }
+                closeQuietly(body.get());
+            }
+        });
+        return result;
+    }
+
+    private CompletableFuture<Void> rateLimited() {
+        long waitNanos = rateLimiter.reserveNanos();
+        if (waitNanos <= 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.runAsync(() -> { }, CompletableFuture.delayedExecutor(waitNanos, TimeUnit.NANOSECONDS));
+    }
+
+    private CompletableFuture<HttpResponse<InputStream>> send(URI uri, Deadline deadline,
+                                                              CompletableFuture<?> result,
+                                                              AtomicReference<CompletableFuture<?>> exchange,
+                                                              Trace trace) {
+        if (result.isDone()) {
+            return CompletableFuture.failedFuture(new IOException("Request abandoned"));
+        }
+        try {
+            // HttpRequest.timeout covers the wait for response headers
+            HttpRequest request = HttpRequest.newBuilder()
+                .uri(uri)
+                .timeout(deadline.stage(headersBudget))
+                .GET()
+                .build();
+
+            long start = System.nanoTime();
+            trace.sent(start);
+            CompletableFuture<HttpResponse<InputStream>> pending =
+                http.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream());
+            exchange.set(pending);
+            if (result.isDone()) {
+                pending.cancel(true);
+            }
+            return pending.thenApply(response -> {
+                trace.headers(response.statusCode());
+                recordRequest(response.version(), (System.nanoTime() - start) / 1_000_000);
+                return response;
+            });
+        } catch (HttpTimeoutException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private <T> T readBody(HttpResponse<InputStream> response, BodyParser<T> parser, Deadline deadline,
+                           CompletableFuture<T> result, AtomicReference<InputStream> body, Trace trace) {
+        trace.bodyStarted();
+        // Parse straight off the wire; closing the body also releases the connection
+        try (MeteredInputStream in = new MeteredInputStream(response.body())) {
+            body.set(in);
+            if (result.isDone()) {
+                throw new IOException("Request abandoned");
+            }
+
+            Duration budget = deadline.stage(bodyBudget);
+            CompletableFuture.delayedExecutor(budget.toNanos(), TimeUnit.NANOSECONDS).execute(() ->
+                result.completeExceptionally(new HttpTimeoutException("Response body not received within " + budget.toMillis() + " ms")));
+
+            try {
+                T parsed = parser.parse(in);
+                trace.parsed(in);
+                if (response.statusCode() != 200) {
+                    throw new WeatherApiException(response.statusCode(), 0, "HTTP " + response.statusCode());
+                }
+                return parsed;
+            } catch (WeatherApiException e) {
+                throw e.statusCode() == 0 ? e.withStatus(response.statusCode()) : e;
+            } catch (IOException e) {
+                trace.parsed(in);
+                if (response.statusCode() != 200) {
+                    throw new WeatherApiException(response.statusCode(), 0, "HTTP " + response.statusCode());
+                }
+                throw e;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void closeQuietly(InputStream in) {
+        if (in != null) {
+            try {
+                in.close();
+            } catch (IOException ignored) {
+                // Nothing left to release
+            }
+        }
+    }
+
+    private void recordRequest(HttpClient.Version version, long elapsedMillis) {
+        long count = requestCount.incrementAndGet();
+        if (version == HttpClient.Version.HTTP_2) {
+            http2Count.incrementAndGet();
+        }
+
+        // The first request pays for the TCP/TLS handshake, later ones should reuse it
+        if (!firstRequestMillis.compareAndSet(-1, elapsedMillis)) {
+            laterRequestMillis.addAndGet(elapsedMillis);
+        }
+
+        if (printStats) {
+            long avgLater = count > 1 ? laterRequestMillis.get() / (count - 1) : 0;
+            System.out.printf("[http] %d requests (%d over HTTP/2, %d over HTTP/1.1) | first: %d ms | avg after: %d ms%n",
+                count, http2Count.get(), count - http2Count.get(), firstRequestMillis.get(), avgLater);
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private interface BodyParser<T> {
+        T parse(InputStream in) throws IOException;
+    }
+
+    // Counts the bytes handed to the parser and the time spent waiting for them
+    private static final class MeteredInputStream extends FilterInputStream {
+        long bytes;
+        long blockedNanos;
+
+        MeteredInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            long start = System.nanoTime();
+            int b = super.read();
+            blockedNanos += System.nanoTime() - start;
+            if (b >= 0) {
+                bytes++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            long start = System.nanoTime();
+            int count = super.read(buffer, offset, length);
+            blockedNanos += System.nanoTime() - start;
+            if (count > 0) {
+                bytes += count;
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Stage timestamps of one request, feeding WeatherMetrics and a FetchEvent.
+     * Each stage is written by whichever thread runs it, strictly one after the
+     * other, so the fields need no locking; a request that times out mid-body
+     * simply reports the stages it finished.
+     */
+    private static final class Trace {
+        private final WeatherMetrics metrics = WeatherMetrics.global();
+        private final FetchEvent event = new FetchEvent();
+        private final long start = System.nanoTime();
+        private long sentAt;
+        private long headersAt;
+        private long bodyAt;
+        private int status;
+        private long bytes;
+        private long queueNanos;
+        private long headersNanos;
+        private long bodyNanos;
+        private long parseNanos;
+
+        Trace(String endpoint, String query) {
+            event.begin();
+            event.endpoint = endpoint;
+            event.query = query;
+        }
+
+        void sent(long now) {
+            sentAt = now;
+            metrics.recordRequest();
+        }
+
+        void headers(int statusCode) {
+            headersAt = System.nanoTime();
+            status = statusCode;
+            headersNanos = headersAt - sentAt;
+            metrics.recordStatus(statusCode);
+            metrics.record(WeatherMetrics.Stage.HEADERS, headersNanos);
+        }
+
+        // Waiting for a parse thread counts as queueing, just like waiting for a slot before sending
+        void bodyStarted() {
+            bodyAt = System.nanoTime();
+            queueNanos = (sentAt - start) + (bodyAt - headersAt);
+            metrics.record(WeatherMetrics.Stage.QUEUE, queueNanos);
+        }
+
+        void parsed(MeteredInputStream in) {
+            bytes = in.bytes;
+            bodyNanos = in.blockedNanos;
+            parseNanos = Math.max(0, System.nanoTime() - bodyAt - in.blockedNanos);
+            metrics.recordBytes(in.bytes);
+            metrics.record(WeatherMetrics.Stage.BODY, bodyNanos);
+            metrics.record(WeatherMetrics.Stage.PARSE, parseNanos);
+        }
+
+        void finish(Throwable error) {
+            String outcome = "ok";
+            if (error instanceof CancellationException) {
+                outcome = "cancelled";
+            } else if (error instanceof HttpTimeoutException || error instanceof TimeoutException) {
+                outcome = "timeout";
+                metrics.recordTimeout();
+            } else if (error != null) {
+                outcome = error.getClass().getSimpleName();
+                metrics.recordFailure();
+            }
+
+            event.end();
+            if (event.shouldCommit()) {
+                event.status = status;
+                event.outcome = outcome;
+                event.bytes = bytes;
+                event.queueNanos = queueNanos;
+                event.headersNanos = headersNanos;
+                event.bodyNanos = bodyNanos;
+                event.parseNanos = parseNanos;
+                event.commit();
+            }
+        }
+    }
+
+    public static final class Builder {
+        private final String apiKey;
+        private String baseUrl = DEFAULT_BASE_URL;
+        private int threads = 4;
+        private Duration connectTimeout = Duration.ofSeconds(5);
+        private double rateLimit = 10;
+        private int maxInFlight = 8;
+        private Duration totalBudget = Duration.ofSeconds(10);
+        private Duration headersBudget = Duration.ofSeconds(5);
+        private Duration bodyBudget = Duration.ofSeconds(5);
+        private boolean printStats;
+
+        private Builder(String apiKey) {
+            this.apiKey = apiKey;
+        }
+
+        public Builder baseUrl(String baseUrl) {
+            this.baseUrl = baseUrl;
+            return this;
+        }
+
+        public Builder threads(int threads) {
+            this.threads = threads;
+            return this;
+        }
+
+        public Builder connectTimeout(Duration connectTimeout) {
+            this.connectTimeout = connectTimeout;
+            return this;
+        }
+
+        public Builder rateLimit(double requestsPerSecond) {
+            this.rateLimit = requestsPerSecond;
+            return this;
+        }
+
+        public Builder maxInFlight(int maxInFlight) {
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        public Builder totalBudget(Duration totalBudget) {
+            this.totalBudget = totalBudget;
+            return this;
+        }
+
+        public Builder headersBudget(Duration headersBudget) {
+            this.headersBudget = headersBudget;
+            return this;
+        }
+
+        public Builder bodyBudget(Duration bodyBudget) {
+            this.bodyBudget = bodyBudget;
+            return this;
+        }
+
+        public Builder printStats(boolean printStats) {
+            this.printStats = printStats;
+            return this;
+        }
+
+        public WeatherApiClient build() {
+            return new WeatherApiClient(this);
+        }
+    }
+}
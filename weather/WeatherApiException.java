@@ -0,0 +1,31 @@
+package weather;
+
+import java.io.IOException;
+
+// Non-200 response or error payload from the weather API
+public class WeatherApiException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private final int statusCode;
+    private final int errorCode;
+
+    public WeatherApiException(int statusCode, int errorCode, String message) {
+        super(message);
+        this.statusCode = statusCode;
+        this.errorCode = errorCode;
+    }
+
+    // HTTP status, or 0 when the error was only seen in the payload
+    public int statusCode() {
+        return statusCode;
+    }
+
+    // WeatherAPI's own error code, e.g. 1006 for "No matching location found"
+    public int errorCode() {
+        return errorCode;
+    }
+
+    public WeatherApiException withStatus(int status) {
+        return new WeatherApiException(status, errorCode, getMessage());
+    }
+}
@@ -0,0 +1,188 @@
+package weather;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Size-bounded LRU cache of parsed reports, keyed by normalized location.
+ * Current conditions and forecasts expire on separate TTLs. The resolved
+ * coordinates of every entry are kept as an alias of its key, so "London"
+ * and "51.52,-0.11" share one slot.
+ */
+public final class WeatherCache {
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern COORDINATES = Pattern.compile("(-?\\d+(?:\\.\\d+)?)\\s*,\\s*(-?\\d+(?:\\.\\d+)?)");
+
+    private final int maxEntries;
+    private final long currentTtlMillis;
+    private final long forecastTtlMillis;
+    private final LinkedHashMap<String, CacheEntry> entries;
+    // Coordinate key -> the normalized key its reports are stored under
+    private final Map<String, String> aliases = new HashMap<>();
+
+    // Guarded by this
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+
+    public WeatherCache(int maxEntries, Duration currentTtl, Duration forecastTtl) {
+        this.maxEntries = maxEntries;
+        this.currentTtlMillis = currentTtl.toMillis();
+        this.forecastTtlMillis = forecastTtl.toMillis();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+                if (size() > WeatherCache.this.maxEntries) {
+                    evictions++;
+                    dropAlias(eldest.getKey(), eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    // Case-folded, trimmed, whitespace-collapsed; coordinates rounded to ~1 km
+    public static String normalizeKey(String query) {
+        String key = WHITESPACE.matcher(query.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+        Matcher matcher = COORDINATES.matcher(key);
+        if (matcher.matches()) {
+            return coordinateKey(Double.parseDouble(matcher.group(1)), Double.parseDouble(matcher.group(2)));
+        }
+        return key;
+    }
+
+    public static String coordinateKey(double lat, double lon) {
+        return String.format(Locale.ROOT, "%.2f,%.2f", lat, lon);
+    }
+
+    public synchronized WeatherReport getCurrent(String query) {
+        return lookup(find("current|", normalizeKey(query)), 0, currentTtlMillis);
+    }
+
+    public synchronized WeatherReport getForecast(String query, int days) {
+        return lookup(find("forecast|", normalizeKey(query)), days, forecastTtlMillis);
+    }
+
+    public synchronized void putCurrent(String query, WeatherReport report) {
+        store("current|", query, new CacheEntry(report, 0, System.currentTimeMillis()));
+    }
+
+    // A forecast response also carries fresh current conditions, so both slots are refreshed
+    public synchronized void putForecast(String query, int days, WeatherReport report) {
+        long now = System.currentTimeMillis();
+        store("forecast|", query, new CacheEntry(report, days, now));
+        store("current|", query, new CacheEntry(report, 0, now));
+    }
+
+    // Last forecast covering the days, however old, with the newest current conditions; not counted as a hit or miss
+    public synchronized WeatherReport getStale(String query, int days) {
+        String key = normalizeKey(query);
+        CacheEntry forecast = find("forecast|", key);
+        if (forecast == null || forecast.days < days) {
+            return null;
+        }
+        CacheEntry current = find("current|", key);
+        if (current != null && current.storedAt > forecast.storedAt) {
+            return current.report.withDays(forecast.report.days());
+        }
+        return forecast.report;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        aliases.clear();
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(entries.size(), hits, misses, evictions, expirations);
+    }
+
+    private WeatherReport lookup(CacheEntry entry, int days, long ttlMillis) {
+        if (entry == null || entry.days < days) {
+            misses++;
+            return null;
+        }
+        if (System.currentTimeMillis() - entry.storedAt > ttlMillis) {
+            // Kept (until evicted or replaced) so getStale can still serve it while upstream is down
+            expirations++;
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.report;
+    }
+
+    // The entry stored under key, or else under the key that key is an alias of
+    private CacheEntry find(String prefix, String key) {
+        CacheEntry entry = entries.get(prefix + key);
+        if (entry == null) {
+            String target = aliases.get(key);
+            if (target != null) {
+                entry = entries.get(prefix + target);
+            }
+        }
+        return entry;
+    }
+
+    private void store(String prefix, String query, CacheEntry entry) {
+        String key = normalizeKey(query);
+        entries.put(prefix + key, entry);
+        Location location = entry.report.location();
+        String coordinates = coordinateKey(location.lat(), location.lon());
+        if (!coordinates.equals(key)) {
+            aliases.put(coordinates, key);
+        }
+    }
+
+    // Called while an entry is evicted; the alias goes once neither kind of entry is left under the key
+    private void dropAlias(String evictedKey, CacheEntry evicted) {
+        int separator = evictedKey.indexOf('|');
+        String prefix = evictedKey.substring(0, separator + 1);
+        String key = evictedKey.substring(separator + 1);
+        if (!entries.containsKey((prefix.equals("current|") ? "forecast|" : "current|") + key)) {
+            Location location = evicted.report.location();
+            aliases.remove(coordinateKey(location.lat(), location.lon()), key);
+        }
+    }
+
+    private static final class CacheEntry {
+        final WeatherReport report;
+        final int days;
+        final long storedAt;
+
+        CacheEntry(WeatherReport report, int days, long storedAt) {
+            this.report = report;
+            this.days = days;
+            this.storedAt = storedAt;
+        }
+    }
+
+    public static final class Stats {
+        public final int size;
+        public final long hits;
+        public final long misses;
+        public final long evictions;
+        public final long expirations;
+
+        Stats(int size, long hits, long misses, long evictions, long expirations) {
+            this.size = size;
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.expirations = expirations;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d entries | %d hits, %d misses, %d evicted, %d expired",
+                size, hits, misses, evictions, expirations);
+        }
+    }
+}
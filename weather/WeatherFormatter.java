@@ -0,0 +1,317 @@
+package weather;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Renders a WeatherReport as the text panels shown by the GUI, as CSV rows
+ * or as one JSON object per line. Everything here is pure string building,
+ * so the CLI can use it without loading any AWT classes.
+ */
+public final class WeatherFormatter {
+    public static final String CSV_HEADER =
+        "query,location,kind,time,temp_c,min_temp_c,max_temp_c,feelslike_c,humidity,chance_of_rain,uv,condition_code,condition";
+
+    public static final String ACCURACY_CSV_HEADER =
+        "city,lead_days,temp_samples,temp_bias_c,temp_mae_c,rain_samples,rain_bias_pct,rain_mae_pct";
+
+    private static final DateTimeFormatter HOUR_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+
+    private WeatherFormatter() {
+    }
+
+    public static String current(WeatherReport report) {
+        Location location = report.location();
+        CurrentConditions current = report.current();
+
+        StringBuilder display = new StringBuilder();
+        display.append("╔════════════════════════════════════════════════╗\n");
+        display.append("  📍 ").append(location.name());
+        if (!location.region().equals("N/A") && !location.region().isEmpty()) {
+            display.append(", ").append(location.region());
+        }
+        display.append(", ").append(location.country()).append("\n");
+        display.append("  📅 ").append(location.localTime()).append("\n");
+        display.append("╚════════════════════════════════════════════════╝\n\n");
+
+        display.append("🌡️  Temperature\n");
+        display.append("    ").append(current.tempC()).append("°C\n");
+        display.append("    Feels like: ").append(current.feelsLikeC()).append("°C\n\n");
+
+        display.append("☁️  Conditions\n");
+        display.append("    ").append(ConditionIcons.forCode(current.conditionCode(), current.conditionText())).append(" ").append(current.conditionText()).append("\n\n");
+
+        display.append("💧 Humidity:      ").append(current.humidity()).append("%\n");
+        display.append("👁️  Visibility:    ").append(current.visKm()).append(" km\n");
+        display.append("☀️  UV Index:      ").append(current.uv()).append("\n");
+        return display.toString();
+    }
+
+    public static String hourly(WeatherReport report) {
+        if (report.days().isEmpty() || report.days().get(0).hours().isEmpty()) {
+            return "No hourly data available.";
+        }
+        ForecastDay today = report.days().get(0);
+        HourlySeries hours = today.hours();
+        ZoneId zone = report.location().zone();
+
+        StringBuilder display = new StringBuilder();
+        display.append("╔════════════════════════════════════════════════╗\n");
+        display.append("          24-HOUR WEATHER FORECAST\n");
+        display.append("  📍 ").append(report.location().name()).append("\n");
+        display.append("  📅 ").append(today.date()).append("\n");
+        display.append("╚════════════════════════════════════════════════╝\n\n");
+
+        int hourCount = Math.min(24, hours.size());
+        for (int i = 0; i < hourCount; i++) {
+            String condition = hours.conditionText(i);
+
+            // Local wall-clock hour (HH:MM) in the city's time zone
+            String hourTime = HOUR_FORMAT.format(Instant.ofEpochSecond(hours.epochSecond(i)).atZone(zone));
+
+            display.append(String.format("%-8s │ %5s°C │ %s %-22s │ 💧 %3d%%\n",
+                hourTime, hours.tempC(i),
+                ConditionIcons.forCode(hours.conditionCode(i), condition),
+                condition.length() > 22 ? condition.substring(0, 19) + "..." : condition,
+                hours.chanceOfRain(i)));
+
+            if (i % 6 == 5 && i < 23) {
+                display.append("─────────┼────────┼─────────────────────────────┼─────────\n");
+            }
+        }
+        return display.toString();
+    }
+
+    public static String weekly(WeatherReport report) {
+        if (report.days().isEmpty()) {
+            return "No forecast data available.";
+        }
+
+        int dayCount = report.days().size();
+        StringBuilder display = new StringBuilder();
+        display.append("╔════════════════════════════════════════════════════════╗\n");
+        display.append("                  ").append(dayCount).append("-DAY WEATHER FORECAST\n");
+        display.append("  📍 ").append(report.location().name()).append("\n");
+        display.append("╚════════════════════════════════════════════════════════╝\n\n");
+
+        for (int i = 0; i < dayCount; i++) {
+            ForecastDay day = report.days().get(i);
+            String condition = day.conditionText();
+
+            display.append(String.format("%-12s │ %s %-18s\n",
+                day.date(),
+                ConditionIcons.forCode(day.conditionCode(), condition),
+                condition.length() > 18 ? condition.substring(0, 15) + "..." : condition));
+            display.append(String.format("             │ 🌡️  %s°C - %s°C  │  💧 %d%%\n\n",
+                day.minTempC(), day.maxTempC(), day.chanceOfRain()));
+
+            if (i < dayCount - 1) {
+                display.append("─────────────┴────────────────────────────────────────\n\n");
+            }
+        }
+        return display.toString();
+    }
+
+    // All three panels one after the other, as the CLI prints them
+    public static String text(WeatherReport report) {
+        StringBuilder text = new StringBuilder(current(report));
+        if (!report.days().isEmpty()) {
+            text.append('\n').append(hourly(report)).append('\n').append(weekly(report));
+        }
+        return text.toString();
+    }
+
+    // One "current" row, then one "hourly" row per hour of the first day and one "daily" row per day
+    public static void appendCsv(StringBuilder out, String query, WeatherReport report) {
+        Location location = report.location();
+        CurrentConditions current = report.current();
+        ZoneId zone = location.zone();
+
+        csvRow(out, query, location.name(), "current", isoTime(current.lastUpdatedEpoch(), zone),
+            number(current.tempC()), "", "", number(current.feelsLikeC()), Integer.toString(current.humidity()),
+            "", number(current.uv()), current.conditionCode(), current.conditionText());
+
+        if (!report.days().isEmpty()) {
+            HourlySeries hours = report.days().get(0).hours();
+            for (int i = 0; i < hours.size(); i++) {
+                csvRow(out, query, location.name(), "hourly", isoTime(hours.epochSecond(i), zone),
+                    number(hours.tempC(i)), "", "", "", "", Integer.toString(hours.chanceOfRain(i)), "",
+                    hours.conditionCode(i), hours.conditionText(i));
+            }
+        }
+        for (ForecastDay day : report.days()) {
+            csvRow(out, query, location.name(), "daily", day.date(),
+                "", number(day.minTempC()), number(day.maxTempC()), "", "", Integer.toString(day.chanceOfRain()),
+                number(day.uv()), day.conditionCode(), day.conditionText());
+        }
+    }
+
+    // A single-line JSON object with the current conditions, today's hours and the daily summaries
+    public static void appendJsonLine(StringBuilder out, String query, WeatherReport report) {
+        appendJson(out, query, report, true, 1, true);
+        out.append('\n');
+    }
+
+    // The location plus whichever sections are asked for; hours are taken from the first hourlyDays days
+    public static void appendJson(StringBuilder out, String query, WeatherReport report,
+                                  boolean includeCurrent, int hourlyDays, boolean includeDaily) {
+        Location location = report.location();
+        ZoneId zone = location.zone();
+
+        out.append("{\"query\":");
+        jsonString(out, query);
+        out.append(",\"location\":{\"name\":");
+        jsonString(out, location.name());
+        out.append(",\"region\":");
+        jsonString(out, location.region());
+        out.append(",\"country\":");
+        jsonString(out, location.country());
+        out.append(",\"tz_id\":");
+        jsonString(out, location.timeZoneId());
+        out.append(",\"lat\":").append(location.lat()).append(",\"lon\":").append(location.lon());
+        out.append('}');
+
+        if (includeCurrent) {
+            CurrentConditions current = report.current();
+            out.append(",\"current\":{\"last_updated\":");
+            jsonString(out, isoTime(current.lastUpdatedEpoch(), zone));
+            out.append(",\"temp_c\":").append(current.tempC())
+                .append(",\"feelslike_c\":").append(current.feelsLikeC())
+                .append(",\"humidity\":").append(current.humidity())
+                .append(",\"wind_kph\":").append(current.windKph())
+                .append(",\"vis_km\":").append(current.visKm())
+                .append(",\"uv\":").append(current.uv());
+            jsonCondition(out, current.conditionCode(), current.conditionText());
+            out.append('}');
+        }
+
+        List<ForecastDay> days = report.days();
+        if (hourlyDays > 0) {
+            out.append(",\"hourly\":[");
+            boolean first = true;
+            for (int d = 0; d < Math.min(hourlyDays, days.size()); d++) {
+                HourlySeries hours = days.get(d).hours();
+                for (int i = 0; i < hours.size(); i++) {
+                    if (!first) {
+                        out.append(',');
+                    }
+                    first = false;
+                    out.append("{\"time\":");
+                    jsonString(out, isoTime(hours.epochSecond(i), zone));
+                    out.append(",\"temp_c\":").append(hours.tempC(i))
+                        .append(",\"chance_of_rain\":").append(hours.chanceOfRain(i));
+                    jsonCondition(out, hours.conditionCode(i), hours.conditionText(i));
+                    out.append('}');
+                }
+            }
+            out.append(']');
+        }
+
+        if (includeDaily) {
+            out.append(",\"daily\":[");
+            for (int i = 0; i < days.size(); i++) {
+                ForecastDay day = days.get(i);
+                if (i > 0) {
+                    out.append(',');
+                }
+                out.append("{\"date\":");
+                jsonString(out, day.date());
+                out.append(",\"min_temp_c\":").append(day.minTempC())
+                    .append(",\"max_temp_c\":").append(day.maxTempC())
+                    .append(",\"chance_of_rain\":").append(day.chanceOfRain())
+                    .append(",\"uv\":").append(day.uv());
+                jsonCondition(out, day.conditionCode(), day.conditionText());
+                out.append('}');
+            }
+            out.append(']');
+        }
+        out.append('}');
+    }
+
+    // "just now", "12 min ago", "3 h ago", "2 days ago"
+    public static String age(long epochMillis) {
+        long minutes = Math.max(0, (System.currentTimeMillis() - epochMillis) / 60_000);
+        if (minutes < 1) {
+            return "just now";
+        } else if (minutes < 60) {
+            return minutes + " min ago";
+        } else if (minutes < 48 * 60) {
+            return (minutes / 60) + " h ago";
+        }
+        return (minutes / (24 * 60)) + " days ago";
+    }
+
+    private static String isoTime(long epochSecond, ZoneId zone) {
+        return Instant.ofEpochSecond(epochSecond).atZone(zone).toOffsetDateTime().toString();
+    }
+
+    // One CSV row per city and lead day, without the header
+    public static void appendAccuracyCsv(StringBuilder out, AccuracyReport report) {
+        for (AccuracyReport.Row row : report.rows()) {
+            csvField(out, row.city()).append(',');
+            out.append(row.leadDays()).append(',')
+                .append(row.tempSamples()).append(',').append(rounded(row.tempBias())).append(',')
+                .append(rounded(row.tempMae())).append(',')
+                .append(row.rainSamples()).append(',').append(rounded(row.rainBias())).append(',')
+                .append(rounded(row.rainMae())).append('\n');
+        }
+    }
+
+    // Two decimals; empty for NaN, i.e. no samples
+    private static String rounded(double value) {
+        return Double.isNaN(value) ? "" : String.format(Locale.ROOT, "%.2f", value);
+    }
+
+    private static String number(double value) {
+        return Double.toString(value);
+    }
+
+    private static void csvRow(StringBuilder out, String query, String location, String kind, String time,
+                               String tempC, String minTempC, String maxTempC, String feelsLikeC,
+                               String humidity, String chanceOfRain, String uv, int conditionCode, String condition) {
+        csvField(out, query).append(',');
+        csvField(out, location).append(',');
+        out.append(kind).append(',').append(time).append(',')
+            .append(tempC).append(',').append(minTempC).append(',').append(maxTempC).append(',')
+            .append(feelsLikeC).append(',').append(humidity).append(',').append(chanceOfRain).append(',')
+            .append(uv).append(',').append(conditionCode).append(',');
+        csvField(out, condition).append('\n');
+    }
+
+    private static StringBuilder csvField(StringBuilder out, String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return out.append(value);
+        }
+        return out.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+
+    private static void jsonCondition(StringBuilder out, int code, String text) {
+        out.append(",\"condition_code\":").append(code).append(",\"condition\":");
+        jsonString(out, text);
+    }
+
+    public static void jsonString(StringBuilder out, String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': out.append("\\\""); break;
+                case '\\': out.append("\\\\"); break;
+                case '\n': out.append("\\n"); break;
+                case '\r': out.append("\\r"); break;
+                case '\t': out.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                    break;
+            }
+        }
+        out.append('"');
+    }
+}
@@ -0,0 +1,318 @@
+package weather;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32C;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Small local HTTP front end over a WeatherService, so many clients share one
+ * upstream quota and one cache. Handlers never block on the upstream fetch:
+ * they start it and return, and the response is written from a pool thread
+ * once the report is ready. Responses carry an ETag for conditional GETs and
+ * are gzip-compressed when the client accepts it.
+ */
+public final class WeatherHttpService {
+    private static final int MIN_GZIP_BYTES = 512;
+    private static final int MAX_GZIP_ENTRIES = 256;
+    private static final String[] ENDPOINTS = {"/current", "/forecast", "/hourly", "/stats", "/metrics"};
+
+    private final WeatherService service;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Map<String, LatencyHistogram> latencies = new LinkedHashMap<>();
+
+    // Compressed bodies keyed by ETag, so an unchanged report is only gzipped once
+    private final LinkedHashMap<String, byte[]> gzipped = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+            return size() > MAX_GZIP_ENTRIES;
+        }
+    };
+
+    public WeatherHttpService(WeatherService service, InetSocketAddress address, int threads) throws IOException {
+        this.service = service;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "weather-server-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server = HttpServer.create(address, 0);
+        server.setExecutor(executor);
+        for (String endpoint : ENDPOINTS) {
+            latencies.put(endpoint, new LatencyHistogram());
+            server.createContext(endpoint, exchange -> handle(endpoint, exchange));
+        }
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+    }
+
+    public InetSocketAddress address() {
+        return server.getAddress();
+    }
+
+    private void handle(String endpoint, HttpExchange exchange) {
+        long start = System.nanoTime();
+        LatencyHistogram histogram = latencies.get(endpoint);
+        try {
+            // Contexts match by prefix; "/currentXYZ" is not "/current"
+            if (!exchange.getRequestURI().getPath().equals(endpoint)) {
+                sendError(exchange, 404, "Not found");
+                histogram.record(System.nanoTime() - start);
+                return;
+            }
+            String method = exchange.getRequestMethod();
+            if (!method.equals("GET") && !method.equals("HEAD")) {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                sendError(exchange, 405, "Method not allowed");
+                histogram.record(System.nanoTime() - start);
+                return;
+            }
+            if (endpoint.equals("/stats")) {
+                sendJson(exchange, stats());
+                histogram.record(System.nanoTime() - start);
+                return;
+            }
+            if (endpoint.equals("/metrics")) {
+                exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+                exchange.getResponseHeaders().set("Cache-Control", "no-store");
+                send(exchange, 200, WeatherMetrics.global().prometheusText().getBytes(StandardCharsets.UTF_8));
+                histogram.record(System.nanoTime() - start);
+                return;
+            }
+
+            Map<String, String> params;
+            try {
+                params = queryParams(exchange.getRequestURI().getRawQuery());
+            } catch (IllegalArgumentException e) {
+                // URLDecoder rejects malformed escapes such as "%zz"
+                sendError(exchange, 400, "Malformed query string");
+                histogram.record(System.nanoTime() - start);
+                return;
+            }
+            String query = params.get("q");
+            if (query == null || query.trim().isEmpty()) {
+                sendError(exchange, 400, "Parameter q is required");
+                histogram.record(System.nanoTime() - start);
+                return;
+            }
+            // Only the forecast routes take days; /current ignores it
+            int days = 0;
+            if (!endpoint.equals("/current")) {
+                try {
+                    days = Integer.parseInt(params.getOrDefault("days", endpoint.equals("/hourly") ? "1" : "7"));
+                } catch (NumberFormatException e) {
+                    days = 0;
+                }
+                if (days < 1 || days > 14) {
+                    sendError(exchange, 400, "Parameter days must be between 1 and 14");
+                    histogram.record(System.nanoTime() - start);
+                    return;
+                }
+            }
+
+            int forecastDays = days;
+            CompletableFuture<WeatherReport> report = endpoint.equals("/current")
+                ? service.current(query)
+                : service.load(query, forecastDays);
+
+            // Write the response from the server pool, not from the client's parse threads
+            report.whenCompleteAsync((result, error) -> {
+                try {
+                    if (error != null) {
+                        sendFailure(exchange, Futures.unwrap(error));
+                    } else {
+                        StringBuilder body = new StringBuilder(4096);
+                        WeatherMetrics.Timing timing = WeatherMetrics.global().time(WeatherMetrics.Stage.FORMAT);
+                        try {
+                            if (endpoint.equals("/current")) {
+                                WeatherFormatter.appendJson(body, query, result, true, 0, false);
+                            } else if (endpoint.equals("/hourly")) {
+                                WeatherFormatter.appendJson(body, query, result, false, forecastDays, false);
+                            } else {
+                                WeatherFormatter.appendJson(body, query, result, true, forecastDays, true);
+                            }
+                        } finally {
+                            timing.close();
+                        }
+                        if (service.isStale(result)) {
+                            exchange.getResponseHeaders().set("Warning", "110 - \"Response is Stale\"");
+                        }
+                        sendJson(exchange, body);
+                    }
+                } catch (IOException e) {
+                    // Client went away; nothing left to tell it
+                } finally {
+                    exchange.close();
+                    histogram.record(System.nanoTime() - start);
+                }
+            }, executor);
+        } catch (IOException | RuntimeException e) {
+            exchange.close();
+            histogram.record(System.nanoTime() - start);
+        }
+    }
+
+    private void sendJson(HttpExchange exchange, CharSequence json) throws IOException {
+        byte[] body = json.toString().getBytes(StandardCharsets.UTF_8);
+        String etag = etag(body);
+        Headers headers = exchange.getResponseHeaders();
+        headers.set("Content-Type", "application/json; charset=utf-8");
+        headers.set("ETag", etag);
+        headers.set("Cache-Control", "no-cache");
+        headers.set("Vary", "Accept-Encoding");
+
+        if (matches(exchange.getRequestHeaders().getFirst("If-None-Match"), etag)) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (body.length >= MIN_GZIP_BYTES && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            body = gzip(etag, body);
+            headers.set("Content-Encoding", "gzip");
+        }
+        send(exchange, 200, body);
+    }
+
+    private void sendFailure(HttpExchange exchange, Throwable error) throws IOException {
+        int status;
+        switch (FailureKind.classify(error)) {
+            case BAD_REQUEST:
+                status = ((WeatherApiException) error).errorCode() == 1006 ? 404 : 400;
+                break;
+            case TIMEOUT:
+                status = 504;
+                break;
+            case CIRCUIT_OPEN:
+                status = 503;
+                long retryAfter = Math.max(1, ((CircuitOpenException) error).retryAfterMillis() / 1000);
+                exchange.getResponseHeaders().set("Retry-After", String.valueOf(retryAfter));
+                break;
+            default:
+                status = 502;
+                break;
+        }
+        sendError(exchange, status, error.getMessage() != null ? error.getMessage() : error.toString());
+    }
+
+    private void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        StringBuilder json = new StringBuilder("{\"error\":{\"status\":").append(status).append(",\"message\":");
+        WeatherFormatter.jsonString(json, message);
+        json.append("}}");
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.getResponseHeaders().set("Cache-Control", "no-store");
+        send(exchange, status, json.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        if (exchange.getRequestMethod().equals("HEAD")) {
+            exchange.sendResponseHeaders(status, -1);
+        } else {
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+        exchange.close();
+    }
+
+    private StringBuilder stats() {
+        StringBuilder json = new StringBuilder("{\"endpoints\":{");
+        boolean first = true;
+        for (Map.Entry<String, LatencyHistogram> entry : latencies.entrySet()) {
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            WeatherFormatter.jsonString(json, entry.getKey());
+            json.append(':');
+            entry.getValue().appendJson(json);
+        }
+        WeatherCache.Stats cache = service.cache().stats();
+        json.append("},\"cache\":{\"size\":").append(cache.size)
+            .append(",\"hits\":").append(cache.hits)
+            .append(",\"misses\":").append(cache.misses)
+            .append(",\"evictions\":").append(cache.evictions)
+            .append(",\"expirations\":").append(cache.expirations)
+            .append("}}");
+        return json;
+    }
+
+    // Weak validator: the same JSON is served both plain and gzip-encoded
+    private static String etag(byte[] body) {
+        CRC32C crc = new CRC32C();
+        crc.update(body);
+        return "W/\"" + Long.toHexString(crc.getValue()) + "-" + Integer.toHexString(body.length) + "\"";
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String opaque = etag.substring(2);
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.equals("*") || candidate.equals(etag) || candidate.equals(opaque)
+                    || candidate.equals("W/" + opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private byte[] gzip(String etag, byte[] body) throws IOException {
+        synchronized (gzipped) {
+            byte[] cached = gzipped.get(etag);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+            out.write(body);
+        }
+        byte[] compressed = buffer.toByteArray();
+        synchronized (gzipped) {
+            gzipped.put(etag, compressed);
+        }
+        return compressed;
+    }
+
+    private static Map<String, String> queryParams(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.putIfAbsent(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+}
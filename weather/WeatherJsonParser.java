@@ -0,0 +1,270 @@
+package weather;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+// Maps a streamed current.json / forecast.json body onto a WeatherReport in one pass, and search.json onto places
+public final class WeatherJsonParser {
+    private static final JsonReader.RawValue EMPTY_HOURS = new JsonReader.RawValue(new byte[] {'[', ']'}, 0);
+    // All that readHours looks at; the other thirty-odd members of each hour are not kept
+    private static final JsonReader.Members HOUR_MEMBERS =
+        new JsonReader.Members("time_epoch", "temp_c", "chance_of_rain", "condition", "text", "code");
+
+    private WeatherJsonParser() {
+    }
+
+    public static WeatherReport parse(InputStream in) throws IOException {
+        JsonReader reader = new JsonReader(in);
+        Location location = null;
+        CurrentConditions current = null;
+        List<ForecastDay> days = new ArrayList<>();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "location":
+                    location = readLocation(reader);
+                    break;
+                case "current":
+                    current = readCurrent(reader);
+                    break;
+                case "forecast":
+                    readForecast(reader, days);
+                    break;
+                case "error":
+                    throw readError(reader);
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+
+        if (location == null || current == null) {
+            throw new MalformedJsonException("Response is missing the location or current block");
+        }
+        return new WeatherReport(location, current, days);
+    }
+
+    // search.json: an array of matching locations, or an error object
+    public static List<Place> parseSearch(InputStream in) throws IOException {
+        JsonReader reader = new JsonReader(in);
+        List<Place> places = new ArrayList<>();
+        if (reader.peek() == JsonReader.Token.BEGIN_OBJECT) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if ("error".equals(reader.nextName())) {
+                    throw readError(reader);
+                }
+                reader.skipValue();
+            }
+            throw new MalformedJsonException("Expected an array of locations");
+        }
+
+        reader.beginArray();
+        while (reader.hasNext()) {
+            Location location = readLocation(reader);
+            places.add(new Place(location.name(), location.region(), location.country(), location.lat(), location.lon()));
+        }
+        reader.endArray();
+        return places;
+    }
+
+    private static Location readLocation(JsonReader reader) throws IOException {
+        String name = "N/A";
+        String region = "";
+        String country = "N/A";
+        String timeZoneId = "";
+        String localTime = "N/A";
+        long localTimeEpoch = 0;
+        double lat = 0;
+        double lon = 0;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "name": name = reader.nextString(); break;
+                case "region": region = reader.nextString(); break;
+                case "country": country = reader.nextString(); break;
+                case "lat": lat = reader.nextDouble(); break;
+                case "lon": lon = reader.nextDouble(); break;
+                case "tz_id": timeZoneId = reader.nextString(); break;
+                case "localtime_epoch": localTimeEpoch = reader.nextLong(); break;
+                case "localtime": localTime = reader.nextString(); break;
+                default: reader.skipValue(); break;
+            }
+        }
+        reader.endObject();
+        return new Location(name, region, country, timeZoneId, localTime, localTimeEpoch, lat, lon);
+    }
+
+    private static CurrentConditions readCurrent(JsonReader reader) throws IOException {
+        long lastUpdatedEpoch = 0;
+        double tempC = 0;
+        double feelsLikeC = 0;
+        boolean isDay = true;
+        int humidity = 0;
+        double windKph = 0;
+        double precipMm = 0;
+        double visKm = 0;
+        double uv = 0;
+        Condition condition = Condition.UNKNOWN;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "last_updated_epoch": lastUpdatedEpoch = reader.nextLong(); break;
+                case "temp_c": tempC = reader.nextDouble(); break;
+                case "feelslike_c": feelsLikeC = reader.nextDouble(); break;
+                case "is_day": isDay = reader.nextBoolean(); break;
+                case "humidity": humidity = reader.nextInt(); break;
+                case "wind_kph": windKph = reader.nextDouble(); break;
+                case "precip_mm": precipMm = reader.nextDouble(); break;
+                case "vis_km": visKm = reader.nextDouble(); break;
+                case "uv": uv = reader.nextDouble(); break;
+                case "condition": condition = readCondition(reader); break;
+                default: reader.skipValue(); break;
+            }
+        }
+        reader.endObject();
+        return new CurrentConditions(lastUpdatedEpoch, tempC, feelsLikeC, condition.text, condition.code,
+            humidity, windKph, precipMm, visKm, uv, isDay);
+    }
+
+    private static void readForecast(JsonReader reader, List<ForecastDay> days) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals("forecastday")) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    days.add(readForecastDay(reader));
+                }
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    private static ForecastDay readForecastDay(JsonReader reader) throws IOException {
+        String date = "N/A";
+        long dateEpoch = 0;
+        double maxTempC = 0;
+        double minTempC = 0;
+        int chanceOfRain = 0;
+        double uv = 0;
+        Condition condition = Condition.UNKNOWN;
+        JsonReader.RawValue hours = EMPTY_HOURS;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "date": date = reader.nextString(); break;
+                case "date_epoch": dateEpoch = reader.nextLong(); break;
+                case "day":
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        switch (reader.nextName()) {
+                            case "maxtemp_c": maxTempC = reader.nextDouble(); break;
+                            case "mintemp_c": minTempC = reader.nextDouble(); break;
+                            case "daily_chance_of_rain": chanceOfRain = reader.nextInt(); break;
+                            case "uv": uv = reader.nextDouble(); break;
+                            case "condition": condition = readCondition(reader); break;
+                            default: reader.skipValue(); break;
+                        }
+                    }
+                    reader.endObject();
+                    break;
+                case "hour":
+                    // Most of the payload; kept compact and decoded per day by ForecastDay.hours() when first needed
+                    hours = reader.nextRawValue(HOUR_MEMBERS);
+                    break;
+                default: reader.skipValue(); break;
+            }
+        }
+        reader.endObject();
+        return new ForecastDay(date, dateEpoch, maxTempC, minTempC, condition.text, condition.code,
+            chanceOfRain, uv, hours);
+    }
+
+    // Decodes an "hour" array parse() kept raw; a malformed one yields an empty series
+    static HourlySeries parseHours(JsonReader.RawValue raw) {
+        try (JsonReader reader = raw.reader()) {
+            return readHours(reader);
+        } catch (IOException e) {
+            System.err.println("Error parsing hourly forecast: " + e.getMessage());
+            return HourlySeries.empty();
+        }
+    }
+
+    private static HourlySeries readHours(JsonReader reader) throws IOException {
+        HourlySeries.Builder builder = new HourlySeries.Builder();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            long timeEpoch = 0;
+            double tempC = 0;
+            int chanceOfRain = 0;
+            Condition condition = Condition.UNKNOWN;
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "time_epoch": timeEpoch = reader.nextLong(); break;
+                    case "temp_c": tempC = reader.nextDouble(); break;
+                    case "chance_of_rain": chanceOfRain = reader.nextInt(); break;
+                    case "condition": condition = readCondition(reader); break;
+                    default: reader.skipValue(); break;
+                }
+            }
+            reader.endObject();
+            builder.add(timeEpoch, tempC, chanceOfRain, condition.code, condition.text);
+        }
+        reader.endArray();
+        return builder.build();
+    }
+
+    private static Condition readCondition(JsonReader reader) throws IOException {
+        String text = "N/A";
+        int code = 0;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "text": text = reader.nextString(); break;
+                case "code": code = reader.nextInt(); break;
+                default: reader.skipValue(); break;
+            }
+        }
+        reader.endObject();
+        return new Condition(text, code);
+    }
+
+    private static WeatherApiException readError(JsonReader reader) throws IOException {
+        String message = "unknown error";
+        int code = 0;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "message": message = reader.nextString(); break;
+                case "code": code = reader.nextInt(); break;
+                default: reader.skipValue(); break;
+            }
+        }
+        reader.endObject();
+        return new WeatherApiException(0, code, message);
+    }
+
+    private static final class Condition {
+        static final Condition UNKNOWN = new Condition("N/A", 0);
+
+        final String text;
+        final int code;
+
+        Condition(String text, int code) {
+            this.text = text;
+            this.code = code;
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package weather;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Process-wide timings and counters for the fetch, parse and render path.
+ *
+ * Upstream requests are split into queue (waiting for an in-flight slot and
+ * the rate limiter), headers (DNS, connect and TLS on a fresh connection, plus
+ * time to first byte), body (time blocked reading the response) and parse
+ * (the rest of the streaming parse). Format and render are timed by whoever
+ * formats or paints a report. Everything is lock-free on the recording side
+ * and readable through JMX, JFR events and a Prometheus text dump.
+ */
+public final class WeatherMetrics implements WeatherMetricsMXBean {
+    public enum Stage {
+        QUEUE, HEADERS, BODY, PARSE, FORMAT, RENDER;
+
+        final String label = name().toLowerCase(Locale.ROOT);
+    }
+
+    private static final WeatherMetrics GLOBAL = new WeatherMetrics();
+    private static final String OBJECT_NAME = "weather:type=Metrics";
+
+    private final Map<Stage, LatencyHistogram> stages = new EnumMap<>(Stage.class);
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+    private final LongAdder circuitOpens = new LongAdder();
+    private final LongAdder shortCircuits = new LongAdder();
+    private final Map<Integer, LongAdder> statusCodes = new ConcurrentHashMap<>();
+    private volatile WeatherCache cache;
+
+    private WeatherMetrics() {
+        for (Stage stage : Stage.values()) {
+            stages.put(stage, new LatencyHistogram());
+        }
+    }
+
+    public static WeatherMetrics global() {
+        return GLOBAL;
+    }
+
+    // Idempotent; makes the metrics visible in jconsole / VisualVM under "weather"
+    public synchronized void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(this, name);
+            }
+        } catch (JMException e) {
+            System.err.println("Error registering weather metrics MBean: " + e.getMessage());
+        }
+    }
+
+    // Cache counters are read from the cache itself rather than double-counted here
+    public void trackCache(WeatherCache cache) {
+        this.cache = cache;
+    }
+
+    public void record(Stage stage, long elapsedNanos) {
+        stages.get(stage).record(elapsedNanos);
+    }
+
+    // Timing timing = metrics.time(Stage.RENDER); try { ... } finally { timing.close(); } records a sample and a JFR event
+    public Timing time(Stage stage) {
+        return new Timing(this, stage);
+    }
+
+    void recordRequest() {
+        requests.increment();
+    }
+
+    void recordStatus(int status) {
+        statusCodes.computeIfAbsent(status, code -> new LongAdder()).increment();
+    }
+
+    void recordTimeout() {
+        timeouts.increment();
+    }
+
+    void recordFailure() {
+        failures.increment();
+    }
+
+    void recordBytes(long count) {
+        bytes.add(count);
+    }
+
+    void recordRetry() {
+        retries.increment();
+    }
+
+    void recordHedge() {
+        hedges.increment();
+    }
+
+    void recordHedgeWin() {
+        hedgeWins.increment();
+    }
+
+    void recordCircuitOpened() {
+        circuitOpens.increment();
+    }
+
+    void recordShortCircuit() {
+        shortCircuits.increment();
+    }
+
+    @Override
+    public long getUpstreamRequests() {
+        return requests.sum();
+    }
+
+    @Override
+    public long getUpstreamTimeouts() {
+        return timeouts.sum();
+    }
+
+    @Override
+    public long getUpstreamFailures() {
+        return failures.sum();
+    }
+
+    @Override
+    public long getBytesTransferred() {
+        return bytes.sum();
+    }
+
+    @Override
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    @Override
+    public long getHedgedRequests() {
+        return hedges.sum();
+    }
+
+    @Override
+    public long getHedgeWins() {
+        return hedgeWins.sum();
+    }
+
+    @Override
+    public long getCircuitOpens() {
+        return circuitOpens.sum();
+    }
+
+    @Override
+    public long getShortCircuited() {
+        return shortCircuits.sum();
+    }
+
+    @Override
+    public Map<String, Long> getStatusCodes() {
+        Map<String, Long> counts = new TreeMap<>();
+        statusCodes.forEach((status, count) -> counts.put(String.valueOf(status), count.sum()));
+        return counts;
+    }
+
+    @Override
+    public long getCacheHits() {
+        WeatherCache tracked = cache;
+        return tracked != null ? tracked.stats().hits : 0;
+    }
+
+    @Override
+    public long getCacheMisses() {
+        WeatherCache tracked = cache;
+        return tracked != null ? tracked.stats().misses : 0;
+    }
+
+    @Override
+    public Map<String, Long> getStageCounts() {
+        return perStage(LatencyHistogram::count);
+    }
+
+    @Override
+    public Map<String, Long> getStageMeanMicros() {
+        return perStage(LatencyHistogram::meanMicros);
+    }
+
+    @Override
+    public Map<String, Long> getStageP50Micros() {
+        return perStage(histogram -> histogram.percentileMicros(0.5));
+    }
+
+    @Override
+    public Map<String, Long> getStageP99Micros() {
+        return perStage(histogram -> histogram.percentileMicros(0.99));
+    }
+
+    @Override
+    public Map<String, Long> getStageMaxMicros() {
+        return perStage(LatencyHistogram::maxMicros);
+    }
+
+    @Override
+    public String prometheusText() {
+        StringBuilder out = new StringBuilder(8192);
+        appendPrometheus(out);
+        return out.toString();
+    }
+
+    // Prometheus text exposition format, version 0.0.4
+    public void appendPrometheus(StringBuilder out) {
+        out.append("# HELP weather_stage_seconds Time spent per fetch, parse and render stage\n");
+        out.append("# TYPE weather_stage_seconds histogram\n");
+        for (Map.Entry<Stage, LatencyHistogram> entry : stages.entrySet()) {
+            entry.getValue().appendPrometheus(out, "weather_stage_seconds", "stage=\"" + entry.getKey().label + "\"");
+        }
+
+        counter(out, "weather_upstream_requests_total", "Requests sent to the weather provider", requests.sum());
+        counter(out, "weather_upstream_timeouts_total", "Upstream requests that ran out of time", timeouts.sum());
+        counter(out, "weather_upstream_failures_total", "Upstream requests that failed for any other reason", failures.sum());
+        counter(out, "weather_upstream_bytes_total", "Response body bytes read from the provider", bytes.sum());
+        counter(out, "weather_upstream_retries_total", "Attempts repeated after a retryable failure", retries.sum());
+        counter(out, "weather_upstream_hedges_total", "Backup requests sent for slow attempts", hedges.sum());
+        counter(out, "weather_upstream_hedge_wins_total", "Backup requests that answered first", hedgeWins.sum());
+        counter(out, "weather_circuit_opens_total", "Times the circuit breaker opened", circuitOpens.sum());
+        counter(out, "weather_circuit_rejections_total", "Calls failed fast while the circuit was open", shortCircuits.sum());
+
+        out.append("# HELP weather_upstream_responses_total Upstream responses by HTTP status\n");
+        out.append("# TYPE weather_upstream_responses_total counter\n");
+        for (Map.Entry<String, Long> entry : getStatusCodes().entrySet()) {
+            out.append("weather_upstream_responses_total{code=\"").append(entry.getKey()).append("\"} ")
+                .append(entry.getValue()).append('\n');
+        }
+
+        WeatherCache tracked = cache;
+        if (tracked != null) {
+            WeatherCache.Stats stats = tracked.stats();
+            counter(out, "weather_cache_hits_total", "Memory cache lookups answered from the cache", stats.hits);
+            counter(out, "weather_cache_misses_total", "Memory cache lookups that had to go upstream", stats.misses);
+            counter(out, "weather_cache_evictions_total", "Entries dropped to stay within the cache size", stats.evictions);
+            out.append("# HELP weather_cache_entries Entries currently in the memory cache\n");
+            out.append("# TYPE weather_cache_entries gauge\n");
+            out.append("weather_cache_entries ").append(stats.size).append('\n');
+        }
+    }
+
+    private Map<String, Long> perStage(ToLongFunction<LatencyHistogram> value) {
+        Map<String, Long> values = new LinkedHashMap<>();
+        for (Map.Entry<Stage, LatencyHistogram> entry : stages.entrySet()) {
+            values.put(entry.getKey().label, value.applyAsLong(entry.getValue()));
+        }
+        return values;
+    }
+
+    private static void counter(StringBuilder out, String name, String help, long value) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(" counter\n");
+        out.append(name).append(' ').append(value).append('\n');
+    }
+
+    public static final class Timing implements AutoCloseable {
+        private final WeatherMetrics metrics;
+        private final Stage stage;
+        private final StageEvent event = new StageEvent();
+        private final long start = System.nanoTime();
+
+        private Timing(WeatherMetrics metrics, Stage stage) {
+            this.metrics = metrics;
+            this.stage = stage;
+            event.begin();
+        }
+
+        @Override
+        public void close() {
+            metrics.record(stage, System.nanoTime() - start);
+            event.end();
+            if (event.shouldCommit()) {
+                event.stage = stage.label;
+                event.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package weather;
+
+import java.util.Map;
+
+// JMX view of WeatherMetrics, registered as weather:type=Metrics (see WeatherMetrics.registerMBean)
+public interface WeatherMetricsMXBean {
+    long getUpstreamRequests();
+
+    long getUpstreamTimeouts();
+
+    long getUpstreamFailures();
+
+    long getBytesTransferred();
+
+    long getRetries();
+
+    long getHedgedRequests();
+
+    long getHedgeWins();
+
+    long getCircuitOpens();
+
+    long getShortCircuited();
+
+    // HTTP status code -> responses
+    Map<String, Long> getStatusCodes();
+
+    long getCacheHits();
+
+    long getCacheMisses();
+
+    // Stage name (queue, headers, body, parse, format, render) -> value
+    Map<String, Long> getStageCounts();
+
+    Map<String, Long> getStageMeanMicros();
+
+    Map<String, Long> getStageP50Micros();
+
+    Map<String, Long> getStageP99Micros();
+
+    Map<String, Long> getStageMaxMicros();
+
+    String prometheusText();
+}
@@ -0,0 +1,77 @@
+package weather;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Source of weather reports. WeatherApiClient talks to WeatherAPI.com (or
+ * anything speaking its protocol, such as StubWeatherServer), while
+ * FakeWeatherProvider builds reports in-process without any I/O.
+ */
+public interface WeatherProvider {
+    CompletableFuture<WeatherReport> current(String query);
+
+    CompletableFuture<WeatherReport> forecast(String query, int days);
+
+    // Bounded by the caller's deadline, e.g. one shared by every retry of a call; providers without I/O ignore it
+    default CompletableFuture<WeatherReport> current(String query, Deadline deadline) {
+        return current(query);
+    }
+
+    default CompletableFuture<WeatherReport> forecast(String query, int days, Deadline deadline) {
+        return forecast(query, days);
+    }
+
+    // Locations matching a partial name, for autocomplete; providers without a search have no matches
+    default CompletableFuture<List<Place>> search(String query) {
+        return CompletableFuture.completedFuture(Collections.emptyList());
+    }
+
+    // Picked with -Dweather.provider=api|stub|fake; see the README for the stub and fake settings.
+    // Network providers are wrapped in a ResilientProvider configured from the weather.retry/hedge/breaker properties
+    static WeatherProvider fromSystemProperties() {
+        String provider = System.getProperty("weather.provider", "api");
+        switch (provider) {
+            case "api":
+                return resilient(WeatherApiClient.fromSystemProperties(WeatherApiClient.resolveApiKey()).build());
+            case "stub":
+                StubWeatherServer stub;
+                try {
+                    stub = StubWeatherServer.builder(Paths.get(System.getProperty("weather.stub.fixtures", "fixtures")))
+                        .latency(Duration.ofMillis(Integer.getInteger("weather.stub.latency", 50)))
+                        .jitter(Duration.ofMillis(Integer.getInteger("weather.stub.jitter", 20)))
+                        .errorRate(Double.parseDouble(System.getProperty("weather.stub.errorRate", "0")))
+                        .rateLimitRate(Double.parseDouble(System.getProperty("weather.stub.rateLimitRate", "0")))
+                        .timeoutRate(Double.parseDouble(System.getProperty("weather.stub.timeoutRate", "0")))
+                        .seed(Long.getLong("weather.stub.seed", 42))
+                        .start();
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Could not start the stub weather server", e);
+                }
+                // The stub speaks the real protocol, so the full HTTP and parse path is exercised
+                return resilient(WeatherApiClient.fromSystemProperties("stub").baseUrl(stub.baseUrl()).build());
+            case "fake":
+                return new FakeWeatherProvider(Duration.ofMillis(Integer.getInteger("weather.fake.latency", 0)));
+            default:
+                throw new IllegalArgumentException("Unknown weather.provider: " + provider + " (expected api, stub or fake)");
+        }
+    }
+
+    private static WeatherProvider resilient(WeatherProvider provider) {
+        return ResilientProvider.builder(provider)
+            .maxAttempts(Integer.getInteger("weather.retry.attempts", 3))
+            .backoff(Duration.ofMillis(Integer.getInteger("weather.retry.backoff", 200)))
+            .maxBackoff(Duration.ofMillis(Integer.getInteger("weather.retry.maxBackoff", 5000)))
+            .deadline(Duration.ofSeconds(Integer.getInteger("weather.deadline.total", 10)))
+            .hedging(Boolean.getBoolean("weather.hedge"))
+            .initialHedgeDelay(Duration.ofMillis(Integer.getInteger("weather.hedge.initialDelay", 1000)))
+            .breakerThreshold(Integer.getInteger("weather.breaker.failures", 5))
+            .breakerOpen(Duration.ofSeconds(Integer.getInteger("weather.breaker.open", 30)))
+            .build();
+    }
+}
@@ -0,0 +1,34 @@
+package weather;
+
+import java.util.Collections;
+import java.util.List;
+
+// Everything parsed from one fetch; built once and shared read-only by every view
+public final class WeatherReport {
+    private final Location location;
+    private final CurrentConditions current;
+    private final List<ForecastDay> days;
+
+    public WeatherReport(Location location, CurrentConditions current, List<ForecastDay> days) {
+        this.location = location;
+        this.current = current;
+        this.days = Collections.unmodifiableList(days);
+    }
+
+    public Location location() {
+        return location;
+    }
+
+    public CurrentConditions current() {
+        return current;
+    }
+
+    public List<ForecastDay> days() {
+        return days;
+    }
+
+    // Same location and current conditions with another response's forecast days
+    public WeatherReport withDays(List<ForecastDay> forecastDays) {
+        return new WeatherReport(location, current, forecastDays);
+    }
+}
@@ -0,0 +1,236 @@
+package weather;
+
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.UnaryOperator;
+
+/**
+ * Fetch-and-cache core shared by the GUI, the CLI and anything else that
+ * needs weather data: memory cache, then a single-flight network fetch
+ * (one forecast.json call, or current.json + forecast.json in split mode),
+ * and finally the optional disk cache.
+ */
+public final class WeatherService {
+    private final WeatherProvider provider;
+    private final WeatherCache cache;
+    private final DiskCache diskCache;
+    private final boolean splitFetch;
+    private final boolean printCacheStats;
+    private final SingleFlight<WeatherReport> fetches = new SingleFlight<>();
+    private final ExecutorService diskExecutor;
+    private volatile UnaryOperator<String> resolver = UnaryOperator.identity();
+    private volatile HistoryStore history;
+
+    // Reports handed out from the cache because upstream was failing
+    private final Set<WeatherReport> staleReports = Collections.newSetFromMap(
+        Collections.synchronizedMap(new WeakHashMap<WeatherReport, Boolean>()));
+
+    public WeatherService(WeatherProvider provider, WeatherCache cache, DiskCache diskCache,
+                          boolean splitFetch, boolean printCacheStats) {
+        this.provider = provider;
+        this.cache = cache;
+        this.diskCache = diskCache;
+        this.splitFetch = splitFetch;
+        this.printCacheStats = printCacheStats;
+        WeatherMetrics.global().trackCache(cache);
+        this.diskExecutor = Executors.newFixedThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "weather-disk");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Everything configured from the -Dweather.* system properties documented in the README
+    public static WeatherService fromSystemProperties(boolean useDiskCache) {
+        WeatherCache cache = new WeatherCache(
+            Integer.getInteger("weather.cache.size", 64),
+            Duration.ofMinutes(Integer.getInteger("weather.cache.currentTtl", 10)),
+            Duration.ofMinutes(Integer.getInteger("weather.cache.forecastTtl", 60)));
+        DiskCache diskCache = useDiskCache
+            ? new DiskCache(Paths.get(System.getProperty("weather.cache.dir", "weather_cache")))
+            : null;
+        boolean splitFetch = "split".equalsIgnoreCase(System.getProperty("weather.fetch.mode", "single"));
+        return new WeatherService(WeatherProvider.fromSystemProperties(), cache, diskCache, splitFetch, Boolean.getBoolean("weather.cache.stats"));
+    }
+
+    public WeatherCache cache() {
+        return cache;
+    }
+
+    public WeatherProvider provider() {
+        return provider;
+    }
+
+    // Maps every city before it is used as a cache key or query, e.g. CitySuggester::resolve; must be idempotent
+    public void resolveWith(UnaryOperator<String> resolver) {
+        this.resolver = resolver;
+    }
+
+    // Every report fetched from upstream is recorded there from now on; cached and stale ones are not
+    public void recordTo(HistoryStore history) {
+        this.history = history;
+    }
+
+    // The city's recorded history of the metric, empty if nothing records it
+    public CompletableFuture<TimeSeries> history(String requested, HistoryMetric metric, long fromEpochSecond, long toEpochSecond) {
+        HistoryStore store = history;
+        if (store == null) {
+            return CompletableFuture.completedFuture(TimeSeries.empty(metric));
+        }
+        return store.range(resolver.apply(requested), metric, fromEpochSecond, toEpochSecond);
+    }
+
+    // Current conditions and forecast if both are still fresh in memory, otherwise null
+    public WeatherReport cached(String requested, int days) {
+        String city = resolver.apply(requested);
+        WeatherReport cachedCurrent = cache.getCurrent(city);
+        WeatherReport cachedForecast = cachedCurrent != null ? cache.getForecast(city, days) : null;
+        printCacheStats();
+        return cachedForecast != null ? cachedCurrent.withDays(cachedForecast.days()) : null;
+    }
+
+    // True for a report load() fell back to because upstream timed out, failed or had its circuit open
+    public boolean isStale(WeatherReport report) {
+        return staleReports.contains(report);
+    }
+
+    // Concurrent loads of the same city share one fetch; results are written to the disk cache.
+    // While upstream is unhealthy the last cached report is served instead (see isStale)
+    public CompletableFuture<WeatherReport> load(String city, int days) {
+        return fetch(city, days, true);
+    }
+
+    // Like load, but always goes upstream; used by background refreshes that know the cache is stale
+    public CompletableFuture<WeatherReport> refresh(String city, int days) {
+        return fetch(city, days, false);
+    }
+
+    private CompletableFuture<WeatherReport> fetch(String requested, int days, boolean useCache) {
+        String city = resolver.apply(requested);
+        return fetches.execute(WeatherCache.normalizeKey(city) + "|" + days, () -> {
+            WeatherReport cached = useCache ? cached(city, days) : null;
+            if (cached != null) {
+                return CompletableFuture.completedFuture(cached);
+            }
+            CompletableFuture<WeatherReport> request = request(city, days);
+            if (useCache) {
+                request = withStaleFallback(request, city, days);
+            }
+            if (diskCache == null) {
+                return request;
+            }
+            CompletableFuture<WeatherReport> saved = request.thenApplyAsync(report -> {
+                diskCache.save(city, report);
+                return report;
+            }, diskExecutor);
+            return Futures.propagateCancel(saved, request);
+        });
+    }
+
+    private CompletableFuture<WeatherReport> withStaleFallback(CompletableFuture<WeatherReport> request, String city, int days) {
+        CompletableFuture<WeatherReport> result = new CompletableFuture<>();
+        request.whenComplete((report, error) -> {
+            if (error == null) {
+                result.complete(report);
+                return;
+            }
+            FailureKind failure = FailureKind.classify(error);
+            WeatherReport stale = failure.unhealthy() || failure == FailureKind.CIRCUIT_OPEN ? cache.getStale(city, days) : null;
+            if (stale != null) {
+                staleReports.add(stale);
+                result.complete(stale);
+            } else {
+                result.completeExceptionally(Futures.unwrap(error));
+            }
+        });
+        return Futures.propagateCancel(result, request);
+    }
+
+    // Last report saved to disk for this city, or null
+    public CompletableFuture<DiskCache.Snapshot> snapshot(String city) {
+        if (diskCache == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        String key = resolver.apply(city);
+        return CompletableFuture.supplyAsync(() -> diskCache.load(key), diskExecutor);
+    }
+
+    public CompletableFuture<WeatherReport> current(String requested) {
+        String city = resolver.apply(requested);
+        WeatherReport cached = cache.getCurrent(city);
+        printCacheStats();
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        return fetches.execute(WeatherCache.normalizeKey(city) + "|current", () -> {
+            CompletableFuture<WeatherReport> request = provider.current(city);
+            return Futures.propagateCancel(request.thenApply(report -> {
+                cache.putCurrent(city, report);
+                record(city, report);
+                return report;
+            }), request);
+        });
+    }
+
+    public CompletableFuture<WeatherReport> forecast(String requested, int days) {
+        String city = resolver.apply(requested);
+        WeatherReport cached = cache.getForecast(city, days);
+        printCacheStats();
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        return requestForecast(city, days);
+    }
+
+    private CompletableFuture<WeatherReport> request(String city, int days) {
+        if (splitFetch) {
+            // Both requests run concurrently; either one alone is still enough to show something
+            CompletableFuture<WeatherReport> currentWeather = current(city);
+            CompletableFuture<WeatherReport> forecast = forecast(city, days);
+            CompletableFuture<WeatherReport> combined = currentWeather.handle((report, error) -> report)
+                .thenCombine(forecast.handle((report, error) -> report), (current, withDays) -> {
+                    if (current == null && withDays == null) {
+                        throw new CompletionException(currentWeather.handle((report, error) -> error).join());
+                    }
+                    if (current == null) {
+                        return withDays;
+                    }
+                    return withDays != null ? current.withDays(withDays.days()) : current;
+                });
+            return Futures.propagateCancel(combined, currentWeather, forecast);
+        }
+
+        // forecast.json carries the same location and current blocks as current.json
+        return requestForecast(city, days);
+    }
+
+    private CompletableFuture<WeatherReport> requestForecast(String city, int days) {
+        CompletableFuture<WeatherReport> request = provider.forecast(city, days);
+        return Futures.propagateCancel(request.thenApply(report -> {
+            cache.putForecast(city, days, report);
+            record(city, report);
+            return report;
+        }), request);
+    }
+
+    private void record(String city, WeatherReport report) {
+        HistoryStore store = history;
+        if (store != null) {
+            store.record(city, report);
+        }
+    }
+
+    private void printCacheStats() {
+        if (printCacheStats) {
+            System.out.println("[cache] " + cache.stats());
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package weather.ui;
+
+import java.util.List;
+import java.util.Locale;
+import weather.AccuracyReport;
+
+// Rows of the accuracy tab, one per city and lead day
+public final class AccuracyTableModel extends DiffTableModel {
+    private static final long serialVersionUID = 1L;
+
+    public AccuracyTableModel() {
+        super("City", "Lead", "Temp bias", "Temp MAE", "Rain bias", "Rain MAE", "Samples");
+    }
+
+    public void update(AccuracyReport report) {
+        List<AccuracyReport.Row> reportRows = report.rows();
+        Object[][] rows = new Object[reportRows.size()][];
+        for (int i = 0; i < rows.length; i++) {
+            AccuracyReport.Row row = reportRows.get(i);
+            rows[i] = new Object[] {
+                row.city(),
+                "Day +" + row.leadDays(),
+                format("%+.1f°C", row.tempBias()),
+                format("%.1f°C", row.tempMae()),
+                format("%+.0f pp", row.rainBias()),
+                format("%.0f pp", row.rainMae()),
+                row.tempSamples()
+            };
+        }
+        setRows(rows);
+    }
+
+    private static String format(String pattern, double value) {
+        return Double.isNaN(value) ? "–" : String.format(Locale.ROOT, pattern, value);
+    }
+}
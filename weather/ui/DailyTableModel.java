@@ -0,0 +1,31 @@
+package weather.ui;
+
+import java.util.List;
+import weather.ConditionIcons;
+import weather.ForecastDay;
+import weather.WeatherReport;
+
+// Rows of the daily forecast tab, one per forecast day
+public final class DailyTableModel extends DiffTableModel {
+    private static final long serialVersionUID = 1L;
+
+    public DailyTableModel() {
+        super("Date", "Conditions", "Low", "High", "Rain");
+    }
+
+    public void update(WeatherReport report) {
+        List<ForecastDay> days = report.days();
+        Object[][] rows = new Object[days.size()][];
+        for (int i = 0; i < rows.length; i++) {
+            ForecastDay day = days.get(i);
+            rows[i] = new Object[] {
+                day.date(),
+                ConditionIcons.forCode(day.conditionCode(), day.conditionText()) + " " + day.conditionText(),
+                day.minTempC() + "°C",
+                day.maxTempC() + "°C",
+                day.chanceOfRain() + "%"
+            };
+        }
+        setRows(rows);
+    }
+}
@@ -0,0 +1,163 @@
+package weather.ui;
+
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import javax.swing.JComponent;
+import javax.swing.JList;
+import javax.swing.ListCellRenderer;
+
+/**
+ * Paints one dashboard tile straight onto the Graphics: no child components,
+ * no layout, and text that was formatted when the data arrived. Like
+ * DefaultListCellRenderer, the revalidate/repaint/property-change calls the
+ * JList triggers while stamping the renderer are no-ops.
+ *
+ * Use with a JList that has a fixed cell width and height, so the list never
+ * asks a cell for its preferred size and only the visible cells are painted.
+ */
+public final class DashboardCellRenderer extends JComponent implements ListCellRenderer<String> {
+    private static final long serialVersionUID = 1L;
+    public static final int CELL_WIDTH = 220;
+    public static final int CELL_HEIGHT = 104;
+
+    private static final int GAP = 4;
+    private static final int PAD = 10;
+    private static final int STRIPE = 5;
+    private static final Font PLACE_FONT = new Font("Arial", Font.BOLD, 13);
+    private static final Font TEMP_FONT = new Font("Arial", Font.BOLD, 24);
+    private static final Font TEXT_FONT = new Font("Arial", Font.PLAIN, 12);
+    private static final Font SMALL_FONT = new Font("Arial", Font.PLAIN, 10);
+
+    // Stripe colour per whole degree from -20°C to 40°C, cold blue to hot red
+    private static final Color[] TEMP_COLORS = new Color[61];
+    static {
+        for (int i = 0; i < TEMP_COLORS.length; i++) {
+            float hue = 0.66f * (1f - i / (float) (TEMP_COLORS.length - 1));
+            TEMP_COLORS[i] = Color.getHSBColor(hue, 0.65f, 0.9f);
+        }
+    }
+
+    private final DashboardModel model;
+    private Color background = new Color(240, 248, 255);
+    private Color card = Color.WHITE;
+    private Color text = Color.BLACK;
+    private Color muted = new Color(110, 110, 110);
+    private Color selection = new Color(70, 130, 180);
+
+    // The cell being painted
+    private String city;
+    private DashboardModel.Tile tile;
+    private boolean selected;
+
+    public DashboardCellRenderer(DashboardModel model) {
+        this.model = model;
+        setOpaque(true);
+    }
+
+    public void setColors(Color background, Color card, Color text, Color muted) {
+        this.background = background;
+        this.card = card;
+        this.text = text;
+        this.muted = muted;
+    }
+
+    @Override
+    public Component getListCellRendererComponent(JList<? extends String> list, String value, int index,
+                                                  boolean isSelected, boolean cellHasFocus) {
+        city = value;
+        tile = model.tile(value);
+        selected = isSelected;
+        return this;
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Graphics2D g2 = (Graphics2D) g;
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        int width = getWidth();
+        int height = getHeight();
+        g2.setColor(background);
+        g2.fillRect(0, 0, width, height);
+
+        int cardWidth = width - 2 * GAP;
+        int cardHeight = height - 2 * GAP;
+        g2.setColor(card);
+        g2.fillRoundRect(GAP, GAP, cardWidth, cardHeight, 10, 10);
+        if (selected) {
+            g2.setColor(selection);
+            g2.drawRoundRect(GAP, GAP, cardWidth - 1, cardHeight - 1, 10, 10);
+        }
+
+        int x = GAP + STRIPE + PAD;
+        int textWidth = cardWidth - STRIPE - 2 * PAD;
+        if (tile == null) {
+            drawText(g2, PLACE_FONT, text, city, x, GAP + PAD + 12, textWidth);
+            drawText(g2, TEXT_FONT, muted, "Waiting for data…", x, GAP + PAD + 34, textWidth);
+            return;
+        }
+
+        g2.setColor(TEMP_COLORS[Math.max(0, Math.min(TEMP_COLORS.length - 1, (int) Math.round(tile.tempC()) + 20))]);
+        g2.fillRoundRect(GAP, GAP, STRIPE * 2, cardHeight, 10, 10);
+        g2.setColor(card);
+        g2.fillRect(GAP + STRIPE, GAP, STRIPE, cardHeight);
+
+        drawText(g2, PLACE_FONT, text, tile.place(), x, GAP + PAD + 12, textWidth);
+        drawText(g2, TEMP_FONT, text, tile.temperature(), x, GAP + PAD + 40, textWidth);
+        drawText(g2, TEXT_FONT, text, tile.condition(), x + 90, GAP + PAD + 36, textWidth - 90);
+        drawText(g2, TEXT_FONT, muted, tile.details(), x, GAP + PAD + 62, textWidth);
+        drawText(g2, SMALL_FONT, muted, tile.observed(), x, GAP + PAD + 79, textWidth);
+    }
+
+    // Draws the text at the baseline, cut with an ellipsis if it would overflow
+    private void drawText(Graphics2D g2, Font font, Color color, String value, int x, int baseline, int maxWidth) {
+        g2.setFont(font);
+        g2.setColor(color);
+        FontMetrics metrics = g2.getFontMetrics();
+        if (metrics.stringWidth(value) <= maxWidth) {
+            g2.drawString(value, x, baseline);
+            return;
+        }
+        int ellipsis = metrics.stringWidth("…");
+        int end = value.length();
+        while (end > 0 && metrics.stringWidth(value.substring(0, end)) + ellipsis > maxWidth) {
+            end--;
+        }
+        g2.drawString(value.substring(0, end) + "…", x, baseline);
+    }
+
+    // The JList only stamps this component, so none of these have anything to do
+
+    @Override
+    public void invalidate() {
+    }
+
+    @Override
+    public void validate() {
+    }
+
+    @Override
+    public void revalidate() {
+    }
+
+    @Override
+    public void repaint(long tm, int x, int y, int width, int height) {
+    }
+
+    @Override
+    public void repaint() {
+    }
+
+    @Override
+    protected void firePropertyChange(String propertyName, Object oldValue, Object newValue) {
+    }
+
+    @Override
+    public void firePropertyChange(String propertyName, boolean oldValue, boolean newValue) {
+    }
+}
@@ -0,0 +1,172 @@
+package weather.ui;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.swing.AbstractListModel;
+import weather.ConditionIcons;
+import weather.CurrentConditions;
+import weather.WeatherCache;
+import weather.WeatherReport;
+
+/**
+ * Cities of the dashboard, each with a small pre-formatted Tile of its
+ * current conditions.
+ *
+ * Only the tile is kept, never the report it came from, so a row costs a
+ * few short strings however many forecast days were fetched. update() finds
+ * the row through a hash index and fires a change for that row alone.
+ */
+public final class DashboardModel extends AbstractListModel<String> {
+    private static final long serialVersionUID = 1L;
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+
+    private List<String> cities = new ArrayList<>();
+    // Normalized cities, parallel to cities
+    private List<String> keys = new ArrayList<>();
+    // Normalized city -> row
+    private Map<String, Integer> rows = new HashMap<>();
+    // Normalized city -> tile; kept for cities that are removed and added again
+    private final Map<String, Tile> tiles = new HashMap<>();
+
+    public void setCities(List<String> next) {
+        int previousSize = cities.size();
+        cities = new ArrayList<>(next);
+        keys = new ArrayList<>(cities.size());
+        Map<String, Integer> index = new HashMap<>(cities.size() * 2);
+        for (int i = 0; i < cities.size(); i++) {
+            String key = WeatherCache.normalizeKey(cities.get(i));
+            keys.add(key);
+            index.put(key, i);
+        }
+        rows = index;
+        tiles.keySet().retainAll(index.keySet());
+
+        int common = Math.min(previousSize, cities.size());
+        if (common > 0) {
+            fireContentsChanged(this, 0, common - 1);
+        }
+        if (cities.size() > previousSize) {
+            fireIntervalAdded(this, previousSize, cities.size() - 1);
+        } else if (cities.size() < previousSize) {
+            fireIntervalRemoved(this, cities.size(), previousSize - 1);
+        }
+    }
+
+    // Appends one city; cheaper than setCities for a single edit to a long list
+    public void add(String city) {
+        String key = WeatherCache.normalizeKey(city);
+        if (rows.containsKey(key)) {
+            return;
+        }
+        rows.put(key, cities.size());
+        cities.add(city);
+        keys.add(key);
+        fireIntervalAdded(this, cities.size() - 1, cities.size() - 1);
+    }
+
+    public void remove(String city) {
+        String key = WeatherCache.normalizeKey(city);
+        Integer row = rows.remove(key);
+        if (row == null) {
+            return;
+        }
+        cities.remove((int) row);
+        keys.remove((int) row);
+        tiles.remove(key);
+        for (int i = row; i < keys.size(); i++) {
+            rows.put(keys.get(i), i);
+        }
+        fireIntervalRemoved(this, row, row);
+    }
+
+    // Stores the report's current conditions as the city's tile; returns its row, or -1 if the city is not on the dashboard
+    public int update(String city, WeatherReport report) {
+        String key = WeatherCache.normalizeKey(city);
+        Integer row = rows.get(key);
+        if (row == null) {
+            return -1;
+        }
+        tiles.put(key, new Tile(report));
+        fireContentsChanged(this, row, row);
+        return row;
+    }
+
+    public boolean hasTile(String city) {
+        return tiles.containsKey(WeatherCache.normalizeKey(city));
+    }
+
+    // The city's tile, or null until a report for it has arrived
+    public Tile tile(String city) {
+        return tiles.get(WeatherCache.normalizeKey(city));
+    }
+
+    @Override
+    public int getSize() {
+        return cities.size();
+    }
+
+    @Override
+    public String getElementAt(int index) {
+        return cities.get(index);
+    }
+
+    // Everything the dashboard paints for one city, formatted once when the data arrives
+    public static final class Tile {
+        private final String place;
+        private final double tempC;
+        private final String temperature;
+        private final String icon;
+        private final String condition;
+        private final String details;
+        private final String observed;
+
+        Tile(WeatherReport report) {
+            CurrentConditions current = report.current();
+            ZoneId zone = report.location().zone();
+            this.place = report.location().country().isEmpty()
+                ? report.location().name()
+                : report.location().name() + ", " + report.location().country();
+            this.tempC = current.tempC();
+            this.temperature = Math.round(current.tempC()) + "°C";
+            this.icon = ConditionIcons.forCode(current.conditionCode(), current.conditionText());
+            this.condition = icon + " " + current.conditionText();
+            this.details = "💧 " + current.humidity() + "%   💨 " + Math.round(current.windKph()) + " km/h";
+            this.observed = current.lastUpdatedEpoch() > 0
+                ? "Observed " + TIME_FORMAT.format(Instant.ofEpochSecond(current.lastUpdatedEpoch()).atZone(zone))
+                : "";
+        }
+
+        public String place() {
+            return place;
+        }
+
+        public double tempC() {
+            return tempC;
+        }
+
+        public String temperature() {
+            return temperature;
+        }
+
+        public String icon() {
+            return icon;
+        }
+
+        public String condition() {
+            return condition;
+        }
+
+        public String details() {
+            return details;
+        }
+
+        public String observed() {
+            return observed;
+        }
+    }
+}
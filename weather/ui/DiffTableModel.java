@@ -0,0 +1,65 @@
+package weather.ui;
+
+import java.util.Objects;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Read-only table model that is replaced wholesale but repaints piecemeal:
+ * setRows compares the new rows with the old ones and only fires events for
+ * cells that actually changed, so an unchanged refresh costs no layout or
+ * painting at all.
+ */
+public abstract class DiffTableModel extends AbstractTableModel {
+    private static final long serialVersionUID = 1L;
+    private static final Object[][] NO_ROWS = new Object[0][];
+
+    private final String[] columns;
+    private Object[][] rows = NO_ROWS;
+
+    protected DiffTableModel(String... columns) {
+        this.columns = columns;
+    }
+
+    public void clear() {
+        setRows(NO_ROWS);
+    }
+
+    protected void setRows(Object[][] next) {
+        Object[][] previous = rows;
+        rows = next;
+
+        int common = Math.min(previous.length, next.length);
+        for (int row = 0; row < common; row++) {
+            for (int column = 0; column < columns.length; column++) {
+                if (!Objects.equals(previous[row][column], next[row][column])) {
+                    fireTableCellUpdated(row, column);
+                }
+            }
+        }
+        if (next.length > previous.length) {
+            fireTableRowsInserted(previous.length, next.length - 1);
+        } else if (next.length < previous.length) {
+            fireTableRowsDeleted(next.length, previous.length - 1);
+        }
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows.length;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columns[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        return rows[row][column];
+    }
+}
@@ -0,0 +1,33 @@
+package weather.ui;
+
+import java.util.List;
+import java.util.Locale;
+import weather.DailyStats;
+
+// Rows of the history tab, one per recorded day, newest first
+public final class HistoryTableModel extends DiffTableModel {
+    private static final long serialVersionUID = 1L;
+
+    public HistoryTableModel() {
+        super("Date", "Min", "Max", "Avg", "Samples");
+    }
+
+    public void update(List<DailyStats> days) {
+        Object[][] rows = new Object[days.size()][];
+        for (int i = 0; i < rows.length; i++) {
+            DailyStats day = days.get(days.size() - 1 - i);
+            rows[i] = new Object[] {
+                day.date().toString(),
+                format(day.min()),
+                format(day.max()),
+                format(day.avg()),
+                day.count()
+            };
+        }
+        setRows(rows);
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.1f", value);
+    }
+}
@@ -0,0 +1,136 @@
+package weather.ui;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import javax.swing.table.AbstractTableModel;
+import weather.ConditionIcons;
+import weather.ForecastDay;
+import weather.HourlySeries;
+import weather.WeatherReport;
+
+/**
+ * Rows of the Hourly Forecast tab: every hour of every forecast day, in the
+ * city's time zone.
+ *
+ * Rows are built one day (page) at a time when the table first asks for
+ * them, i.e. when they scroll into view, and only then are that day's hours
+ * decoded. A refresh diffs the pages that were built and fires events for
+ * the cells that changed, like DiffTableModel; pages never shown are simply
+ * dropped.
+ */
+public final class HourlyTableModel extends AbstractTableModel {
+    private static final long serialVersionUID = 1L;
+    private static final String[] COLUMNS = {"Day", "Time", "Temp", "Conditions", "Rain"};
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.ofPattern("EEE d MMM");
+    private static final DateTimeFormatter HOUR_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+    private static final int[] NO_OFFSETS = {0};
+
+    private List<ForecastDay> days = Collections.emptyList();
+    private ZoneId zone = ZoneId.systemDefault();
+    // firstRow[d] is the row of day d's first hour; the last entry is the row count
+    private int[] firstRow = NO_OFFSETS;
+    private Object[][][] pages = new Object[0][][];
+
+    public void clear() {
+        days = Collections.emptyList();
+        firstRow = NO_OFFSETS;
+        pages = new Object[0][][];
+        fireTableDataChanged();
+    }
+
+    public void update(WeatherReport report) {
+        List<ForecastDay> nextDays = report.days();
+        int[] nextFirstRow = new int[nextDays.size() + 1];
+        for (int d = 0; d < nextDays.size(); d++) {
+            nextFirstRow[d + 1] = nextFirstRow[d] + nextDays.get(d).hourCount();
+        }
+
+        Object[][][] previousPages = pages;
+        boolean sameShape = Arrays.equals(firstRow, nextFirstRow);
+        days = nextDays;
+        zone = report.location().zone();
+        firstRow = nextFirstRow;
+        pages = new Object[nextDays.size()][][];
+        if (!sameShape) {
+            fireTableDataChanged();
+            return;
+        }
+
+        // Only built pages can be on screen, so only they need comparing
+        for (int d = 0; d < previousPages.length; d++) {
+            if (previousPages[d] == null) {
+                continue;
+            }
+            Object[][] next = page(d);
+            for (int i = 0; i < next.length; i++) {
+                for (int column = 0; column < COLUMNS.length; column++) {
+                    if (!Objects.equals(previousPages[d][i][column], next[i][column])) {
+                        fireTableCellUpdated(firstRow[d] + i, column);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public int getRowCount() {
+        return firstRow[firstRow.length - 1];
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        int found = Arrays.binarySearch(firstRow, row);
+        // Days without hours share their first row with the next day; take the last of them
+        int day = found >= 0 ? lastDayStartingAt(found) : -found - 2;
+        return page(day)[row - firstRow[day]][column];
+    }
+
+    private int lastDayStartingAt(int day) {
+        while (day + 1 < days.size() && firstRow[day + 1] == firstRow[day]) {
+            day++;
+        }
+        return day;
+    }
+
+    private Object[][] page(int day) {
+        Object[][] page = pages[day];
+        if (page != null) {
+            return page;
+        }
+        HourlySeries hours = days.get(day).hours();
+        page = new Object[firstRow[day + 1] - firstRow[day]][];
+        for (int i = 0; i < page.length; i++) {
+            if (i >= hours.size()) {
+                page[i] = new Object[] {"", "", "", "", ""};
+                continue;
+            }
+            ZonedDateTime time = Instant.ofEpochSecond(hours.epochSecond(i)).atZone(zone);
+            String condition = hours.conditionText(i);
+            page[i] = new Object[] {
+                DAY_FORMAT.format(time),
+                HOUR_FORMAT.format(time),
+                hours.tempC(i) + "°C",
+                ConditionIcons.forCode(hours.conditionCode(i), condition) + " " + condition,
+                hours.chanceOfRain(i) + "%"
+            };
+        }
+        pages[day] = page;
+        return page;
+    }
+}